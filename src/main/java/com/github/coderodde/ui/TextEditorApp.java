@@ -1,5 +1,7 @@
 package com.github.coderodde.ui;
 
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import javafx.application.Application;
@@ -31,10 +33,17 @@ public class TextEditorApp extends Application {
     private static final int CHAR_HORIZONTAL_DELIMITER_LENGTH = 1;
     private static final int SLEEP_MILLISECONDS = 400;
     private static final String HELLO_WORLD_STRING = "Hello, world! ";
+    private static final String RECORD_PARAMETER_NAME = "record";
+    private static final String RENDER_PARAMETER_NAME = "render";
+    private static final String LATENCY_PARAMETER_NAME = "trace-latency";
+    private static final int MINIMUM_FONT_SIZE = 6;
+    private static final int MAXIMUM_FONT_SIZE = 72;
     
     private final TextUIWindow window;
     private final HelloWorldThread helloWorldThread;
     private final CursorBlinkThread cursorBlinkThread;
+    private Scene scene;
+    private HBox hboxColorPickers;
     
     private volatile int cursorX = 0;
     private volatile int cursorY = 2;
@@ -65,10 +74,64 @@ public class TextEditorApp extends Application {
         } catch (InterruptedException ex) {
             
         }
+        
+        TextUIWindowLatencyTracer latencyTracer = window.getLatencyTracer();
+        
+        if (latencyTracer.getSamplingInterval() > 0) {
+            System.out.println("Input latency: " + latencyTracer);
+        }
+        
+        TextUIWindowSessionRecorder recorder = window.getSessionRecorder();
+        
+        if (recorder != null) {
+            window.setSessionRecorder(null);
+            
+            try {
+                recorder.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
     }
     
     @Override
     public void start(Stage primaryStage) {
+        // Ctrl+Plus/Minus zooms by one point at a time:
+        TextUIWindow.prewarmFonts(FONT_SIZE - 1, FONT_SIZE + 1);
+        
+        // Run with --record=<file> in order to record the session:
+        String recordFileName = 
+                getParameters().getNamed().get(RECORD_PARAMETER_NAME);
+        
+        if (recordFileName != null) {
+            try {
+                window.setSessionRecorder(
+                        new TextUIWindowSessionRecorder(
+                                new FileOutputStream(recordFileName)));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+        
+        // Run with --render=PIXEL_BUFFER in order to bypass the canvases:
+        String renderModeName = 
+                getParameters().getNamed().get(RENDER_PARAMETER_NAME);
+        
+        if (renderModeName != null) {
+            window.setRenderMode(TextUIWindowRenderMode.valueOf(
+                    renderModeName.toUpperCase()));
+        }
+        
+        // Run with --trace-latency=<n> in order to trace every nth input 
+        // event; the latencies are printed on exit:
+        String samplingInterval = 
+                getParameters().getNamed().get(LATENCY_PARAMETER_NAME);
+        
+        if (samplingInterval != null) {
+            window.getLatencyTracer().setSamplingInterval(
+                    Integer.parseInt(samplingInterval));
+        }
+        
         Platform.runLater(() -> {
             
             try {
@@ -118,14 +181,14 @@ public class TextEditorApp extends Application {
                     }
                 });
                 
-                HBox hboxColorPickers = new HBox(textForegroundColorPicker,
+                hboxColorPickers = new HBox(textForegroundColorPicker,
                                                  textBackgroundColorPicker,
                                                  cursorBlinkForegroundColorPicker,
                                                  cursorBlinkBackgroundColorPicker);
                 
                 VBox vbox = new VBox(hboxColorPickers, window);
                 
-                Scene scene = new Scene(vbox, 
+                scene = new Scene(vbox, 
                                         window.getPreferredWidth(), 
                                         window.getPreferredHeight() + 35, // How to get rid of this 35?
                                         false,
@@ -135,13 +198,20 @@ public class TextEditorApp extends Application {
 
                 primaryStage.setScene(scene);
                 window.addTextUIWindowMouseListener(new TextEditorMouseListener());
+                window.setMouseSelectionEnabled(true);
                 window.addTextUIWindowKeyboardListener(
                         new TextEditorKeyboardListener());
                 
                 helloWorldThread.start();
                 cursorBlinkThread.start();
                 
-                primaryStage.setResizable(false);
+                scene.widthProperty().addListener(
+                        (observable, oldValue, newValue) -> fitGridToScene());
+                
+                scene.heightProperty().addListener(
+                        (observable, oldValue, newValue) -> fitGridToScene());
+                
+                primaryStage.setResizable(true);
                 primaryStage.show();
                 window.requestFocus();
                 window.repaint();
@@ -169,6 +239,34 @@ public class TextEditorApp extends Application {
         launch(args);
     }
     
+    private void fitGridToScene() {
+        int gridWidth = 
+                Math.max(1, (int) (scene.getWidth() / window.getCellWidth()));
+        
+        int gridHeight = 
+                Math.max(1, 
+                         (int) ((scene.getHeight() 
+                                - hboxColorPickers.getHeight()) 
+                                / window.getCellHeight()));
+        
+        window.turnOffBlink(cursorX, cursorY);
+        window.resize(gridWidth, gridHeight);
+        cursorX = Math.min(cursorX, gridWidth - 1);
+        cursorY = Math.min(cursorY, gridHeight - 1);
+        window.repaint();
+    }
+    
+    private void changeFontSize(int delta) {
+        int fontSize = window.getFontSize() + delta;
+        
+        if (fontSize < MINIMUM_FONT_SIZE || fontSize > MAXIMUM_FONT_SIZE) {
+            return;
+        }
+        
+        window.setFontSize(fontSize);
+        fitGridToScene();
+    }
+    
     private void moveCursorUp() {
         if (cursorY == 2) {
             return;
@@ -176,7 +274,7 @@ public class TextEditorApp extends Application {
 
         window.turnOffBlink(cursorX, cursorY);
         cursorY--;
-        Platform.runLater(() -> { window.repaint(); });
+        window.requestRepaint();
     }
 
     private void moveCursorLeft() {
@@ -185,12 +283,12 @@ public class TextEditorApp extends Application {
                 window.turnOffBlink(cursorX, cursorY);
                 cursorY--;
                 cursorX = window.getGridWidth() - 1;
-                Platform.runLater(() -> { window.repaint(); });
+                window.requestRepaint();
             }
         } else {
             window.turnOffBlink(cursorX, cursorY);
             cursorX--;
-            Platform.runLater(() -> { window.repaint(); });
+            window.requestRepaint();
         }
     }
 
@@ -200,12 +298,12 @@ public class TextEditorApp extends Application {
                 window.turnOffBlink(cursorX, cursorY);
                 cursorY++;
                 cursorX = 0;
-                Platform.runLater(() -> { window.repaint(); });
+                window.requestRepaint();
             }
         } else {
             window.turnOffBlink(cursorX, cursorY);
             cursorX++;
-            Platform.runLater(() -> { window.repaint(); });
+            window.requestRepaint();
         }
     }
 
@@ -216,7 +314,7 @@ public class TextEditorApp extends Application {
 
         window.turnOffBlink(cursorX, cursorY);
         cursorY++;
-        Platform.runLater(() -> { window.repaint(); });
+        window.requestRepaint();
     }
     
     private final class CursorBlinkThread extends Thread {
@@ -242,7 +340,7 @@ public class TextEditorApp extends Application {
                 
                 window.toggleBlinkCursor(cursorX, cursorY);
                 
-                Platform.runLater(() -> { window.repaint(); });
+                window.requestRepaint();
             }
         }
         
@@ -289,7 +387,7 @@ public class TextEditorApp extends Application {
                 Character ch = characterList.remove(0);
                 characterList.add(ch);
                 
-                Platform.runLater(() -> { window.repaint(); });
+                window.requestRepaint();
             }
         }
         
@@ -308,11 +406,25 @@ public class TextEditorApp extends Application {
         
         @Override
         public void onKeyTyped(KeyEvent event) {
+            if (event.isShortcutDown()) {
+                // Shortcuts are handled in onKeyPressed():
+                return;
+            }
+            
+            String grapheme = event.getCharacter();
+            
+            if (grapheme.isEmpty()) {
+                return;
+            }
+            
             window.turnOffBlink(cursorX, cursorY);
-            window.setChar(cursorX, cursorY, event.getCharacter().charAt(0));
-            moveCursorRight();
+            window.setGrapheme(cursorX, cursorY, grapheme);
+            
+            for (int i = 0; i < TextUIWindowGraphemes.getColumns(grapheme); i++) {
+                moveCursorRight();
+            }
             
-            Platform.runLater(() -> { window.repaint(); });
+            window.requestRepaint();
             event.consume();
         }
         
@@ -334,6 +446,34 @@ public class TextEditorApp extends Application {
                 case DOWN:
                     moveCursorDown();
                     break;
+                    
+                case C:
+                    if (event.isShortcutDown()) {
+                        window.copySelectionToClipboard();
+                    }
+                    
+                    break;
+                    
+                case ESCAPE:
+                    window.clearSelection();
+                    break;
+                    
+                case PLUS:
+                case ADD:
+                case EQUALS:
+                    if (event.isShortcutDown()) {
+                        changeFontSize(1);
+                    }
+                    
+                    break;
+                    
+                case MINUS:
+                case SUBTRACT:
+                    if (event.isShortcutDown()) {
+                        changeFontSize(-1);
+                    }
+                    
+                    break;
             }
             
             event.consume();
@@ -1,62 +1,238 @@
 package com.github.coderodde.ui;
 
+import javafx.application.Platform;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.layout.Region;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import com.sun.javafx.tk.FontMetrics;
-import com.sun.javafx.tk.Toolkit;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import javafx.event.EventHandler;
+import javafx.event.EventType;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.Clipboard;
+import javafx.scene.input.ClipboardContent;
 import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.text.FontWeight;
 
 /**
- * This class implements a simple colorful terminal window.
+ * This class implements a simple colorful terminal window. The window is a 
+ * view of a {@link TextUIWindowModel}; several windows may share one model, 
+ * each showing its own viewport (region) of it. Each window tracks the cells
+ * that changed since its previous repaint, so that {@link #repaint()} redraws
+ * only those.
+ * <p>
+ * The window is a stack of three canvases, see {@link TextUIWindowLayer}: the
+ * cell backgrounds, the glyphs, and the overlay holding the blink cursor. 
+ * Each layer keeps its own damage, so that toggling a cursor repaints a 
+ * single overlay cell and never the text underneath.
  * 
  * @author Rodion "rodde" Efremov
- * @version 1.6 (Jul 24, 2022)
+ * @version 1.7 (Oct 18, 2026)
  * @since 1.6 (Jul 24, 2022)
  */
-public class TextUIWindow extends Canvas {
+public class TextUIWindow extends Region {
     
-    private static final int MINIMUM_WIDTH = 1;
-    private static final int MINIMUM_HEIGHT = 1;
     private static final int MINIMUM_FONT_SIZE = 1;
-    private static final Color DEFAULT_TEXT_BACKGROUND_COLOR = Color.BLACK;
-    private static final Color DEFAULT_TEXT_FOREGROUND_COLOR = Color.WHITE;
-    private static final Color DEFAULT_BLINK_BACKGROUND_COLOR = Color.WHITE;
-    private static final Color DEFAULT_BLINK_FOREGROUND_COLOR = Color.BLACK;
-    private static final char DEFAULT_CHAR = ' ';
     private static final String FONT_NAME = "Monospaced";
     private static final int DEFAULT_CHAR_DELIMITER_LENGTH = 4;
+    private static final int DEFAULT_TARGET_FRAMES_PER_SECOND = 60;
+    private static final int DEFAULT_FRAME_BUDGET_MILLIS = 8;
+    private static final Color DEFAULT_SELECTION_COLOR = 
+            Color.rgb(80, 130, 255, 0.4);
+    
+    // The initial capacity of the selected text is capped, since a selection
+    // of mostly short rows would reserve far too much:
+    private static final int MAXIMUM_SELECTED_TEXT_CAPACITY = 1 << 24;
 
-    private final int width;
-    private final int height;
-    private final int fontSize;
-    private final Font font;
-    private final int fontCharWidth;
-    private final int fontCharHeight;
+    private final TextUIWindowModel model;
+    private final Canvas backgroundCanvas = new Canvas();
+    private final Canvas textCanvas = new Canvas();
+    private final Canvas overlayCanvas = new Canvas();
+    private final TextUIWindowDamage backgroundDamage;
+    private final TextUIWindowDamage textDamage;
+    private final TextUIWindowDamage overlayDamage;
+    private TextUIWindowRenderMode renderMode = TextUIWindowRenderMode.CANVAS;
+    private TextUIWindowPixelRenderer pixelRenderer;
+    private boolean renderingOffThread;
+    private TextUIWindowRenderPipeline renderPipeline;
+    // Reused when rendering on the JavaFX application thread:
+    private final TextUIWindowRenderCommands renderCommands = 
+            new TextUIWindowRenderCommands();
+    
+    private final TextUIWindowRenderTimings renderTimings = 
+            new TextUIWindowRenderTimings();
+    
+    private final TextUIWindowLatencyTracer latencyTracer = 
+            new TextUIWindowLatencyTracer();
+    
+    private final TextUIWindowFrameGovernor frameGovernor = 
+            new TextUIWindowFrameGovernor(this, 
+                                          renderTimings, 
+                                          DEFAULT_TARGET_FRAMES_PER_SECOND);
+    
+    private volatile int targetFramesPerSecond = 
+            DEFAULT_TARGET_FRAMES_PER_SECOND;
+    
+    private volatile int frameBudgetMillis = DEFAULT_FRAME_BUDGET_MILLIS;
+    
+    // The low priority regions in model coordinates, as (x, y, width, height)
+    // quadruples:
+    private volatile int[] lowPriorityRegions = new int[0];
+    
+    // Accessed by the thread building the render commands only:
+    private long buildDeadlineNanos;
+    private int deferredSpans;
+    
+    // Indexed by the layer ordinals:
+    private final GraphicsContext[] layerGraphicsContexts = {
+        backgroundCanvas.getGraphicsContext2D(),
+        textCanvas.getGraphicsContext2D(),
+        overlayCanvas.getGraphicsContext2D(),
+    };
+    // The union of the damaged spans of all layers in the pixel buffer mode:
+    private int[] pixelSpanFrom = new int[0];
+    private int[] pixelSpanTo = new int[0];
+    private final TextUIWindowModelListener modelListener = 
+            new TextUIWindowModelListener() {
+        
+        @Override
+        public void onCellsChanged(int charX, 
+                                   int charY, 
+                                   int width, 
+                                   int height) {
+            backgroundDamage.add(charX - viewportX, 
+                                 charY - viewportY, 
+                                 width, 
+                                 height);
+            
+            textDamage.add(charX - viewportX, 
+                           charY - viewportY, 
+                           width, 
+                           height);
+            
+            latencyTracer.onModelWrite();
+        }
+        
+        @Override
+        public void onCursorChanged(int charX, 
+                                    int charY, 
+                                    int width, 
+                                    int height) {
+            overlayDamage.add(charX - viewportX, 
+                              charY - viewportY, 
+                              width, 
+                              height);
+            
+            latencyTracer.onModelWrite();
+        }
+        
+        @Override
+        public void onModelResized(int width, int height) {
+            // The model may be resized on any thread, but the viewport and
+            // the damage are updated together with the repaints, so that a
+            // repaint never sees them half-way:
+            if (Platform.isFxApplicationThread()) {
+                fitViewport(width, height);
+            } else {
+                Platform.runLater(() -> fitViewport(width, height));
+            }
+        }
+    };
+    
+    // The viewport is the region of the model this window shows. Unless set
+    // explicitly, it covers the entire model and follows its size:
+    private volatile int viewportX;
+    private volatile int viewportY;
+    private volatile int viewportColumns;
+    private volatile int viewportRows;
+    private volatile boolean tracksModelSize = true;
+    
+    private int fontSize;
+    private TextUIWindowFontPool.Entry fontEntry;
+    private Font font;
+    private int fontCharWidth;
+    private int fontCharHeight;
+    private int fontAscent;
+    private boolean fontMetricsDirty;
+    // Whether the overlay layer currently covers a viewport cell:
+    private boolean[][] overlayPainted = new boolean[0][0];
+    private volatile boolean canvasSizeDirty;
     private final int charDelimiterLength;
     private int windowTitleBorderThickness;
     private final Set<TextUIWindowMouseListener> mouseMotionListeners = 
             new HashSet<>();
     
+    private final TextUIWindowMouseRegionIndex mouseRegions;
+    
+    // The region under the pointer, and the region that got the press of the
+    // ongoing drag:
+    private TextUIWindowMouseRegion hoveredMouseRegion;
+    private TextUIWindowMouseRegion pressedMouseRegion;
+    
+    // The planes floating over the model, ordered by their z-order. Replaced
+    // on every change, so the renderers may iterate over them on any thread:
+    private volatile TextUIWindowPlane[] planes = new TextUIWindowPlane[0];
+    
+    private volatile TextUIWindowSelection selection;
+    private volatile Color selectionColor = DEFAULT_SELECTION_COLOR;
+    private boolean mouseSelectionEnabled;
+    private boolean selectionDragged;
+    private int selectionAnchorX;
+    private int selectionAnchorY;
+    
+    private final TextUIWindowMouseListener selectionMouseListener = 
+            new TextUIWindowMouseListener() {
+        
+        @Override
+        public void onMousePressed(MouseEvent event, int charX, int charY) {
+            if (event.getButton() != MouseButton.PRIMARY) {
+                return;
+            }
+            
+            selectionDragged = true;
+            selectionAnchorX = clampColumn(charX);
+            selectionAnchorY = clampRow(charY);
+            setSelection(null);
+        }
+        
+        @Override
+        public void onMouseDragged(MouseEvent event, int charX, int charY) {
+            if (!selectionDragged) {
+                return;
+            }
+            
+            int focusX = clampColumn(charX);
+            int focusY = clampRow(charY);
+            
+            followSelectionFocus(focusY);
+            setSelection(
+                    new TextUIWindowSelection(
+                            event.isAltDown() ? 
+                                    TextUIWindowSelectionMode.BLOCK :
+                                    TextUIWindowSelectionMode.LINEAR,
+                            selectionAnchorX,
+                            selectionAnchorY,
+                            focusX,
+                            focusY));
+        }
+        
+        @Override
+        public void onMouseReleased(MouseEvent event, int charX, int charY) {
+            selectionDragged = false;
+        }
+    };
+    
     private final Set<TextUIWindowKeyboardListener> keyboardListeners =
             new HashSet<>();
     
-    private final Color[][] backgroundColorGrid;
-    private final Color[][] foregroundColorGrid;
-    private final boolean[][] cursorGrid;
-    private final char[][] charGrid;
-    private Color textBackgroundColor = DEFAULT_TEXT_BACKGROUND_COLOR;
-    private Color textForegroundColor = DEFAULT_TEXT_FOREGROUND_COLOR;
-    private Color blinkCursorBackgroundColor = DEFAULT_BLINK_BACKGROUND_COLOR;
-    private Color blinkCursorForegroundColor = DEFAULT_BLINK_FOREGROUND_COLOR;
-    
     public TextUIWindow(int width, int height, int fontSize) {
         this(width, height, fontSize, DEFAULT_CHAR_DELIMITER_LENGTH);
     }
@@ -65,134 +241,580 @@ public class TextUIWindow extends Canvas {
                         int height, 
                         int fontSize, 
                         int charDelimiterLength) {
-        
-        this.width = checkWidth(width);
-        this.height = checkHeight(height);
+        this(new TextUIWindowModel(width, height), 
+             fontSize, 
+             charDelimiterLength);
+    }
+    
+    /**
+     * Constructs a new window showing the entire {@code model}.
+     * 
+     * @param model               the model to show.
+     * @param fontSize            the font size.
+     * @param charDelimiterLength the horizontal gap between characters.
+     */
+    public TextUIWindow(TextUIWindowModel model, 
+                        int fontSize, 
+                        int charDelimiterLength) {
+        this.model = Objects.requireNonNull(model, "The model is null.");
+        this.mouseRegions = new TextUIWindowMouseRegionIndex(model);
         this.fontSize = checkFontSize(fontSize);
         this.charDelimiterLength = 
                 checkCharDelimiterLength(charDelimiterLength);
         
-        this.font = getFont();
-        this.fontCharWidth = getFontWidth();
-        this.fontCharHeight = getFontHeight();
+        rebuildFontMetrics();
+        
+        this.viewportColumns = model.getWidth();
+        this.viewportRows = model.getHeight();
+        this.backgroundDamage = 
+                new TextUIWindowDamage(viewportColumns, viewportRows);
         
-        backgroundColorGrid = new Color[height][width];
-        foregroundColorGrid = new Color[height][width];
-        charGrid = new char[height][width];
-        cursorGrid = new boolean[height][width];
+        this.textDamage = 
+                new TextUIWindowDamage(viewportColumns, viewportRows);
         
-        setDefaultForegroundColors();
-        setDefaultBackgroundColors();
-        setChars();
+        this.overlayDamage = 
+                new TextUIWindowDamage(viewportColumns, viewportRows);
         
-        this.setWidth(width * (fontCharWidth + charDelimiterLength));
-        this.setHeight(height * fontCharHeight);
+        this.getChildren().addAll(backgroundCanvas, textCanvas, overlayCanvas);
+        this.setMinSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        this.setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        this.canvasSizeDirty = true;
+        this.validateCanvasSize();
         this.setFocusTraversable(true);
         this.addEventFilter(MouseEvent.ANY, (e) -> this.requestFocus());
         
+        model.addModelListener(modelListener);
+        
         setMouseListeners();
         setMouseMotionListeners();
         setKeyboardListeners();
     }
     
+    public TextUIWindowModel getModel() {
+        return model;
+    }
+    
+    /**
+     * Detaches this window from its model, and the planes of this window from
+     * the palette. The window must not be used afterwards. The model stays
+     * registered with its palette; call 
+     * {@link TextUIWindowModel#detachPalette()} if the model is discarded as
+     * well while its palette lives on.
+     */
+    public void dispose() {
+        model.removeModelListener(modelListener);
+        
+        for (TextUIWindowPlane plane : planes) {
+            plane.getModel().detachPalette();
+        }
+        
+        if (fontEntry != null) {
+            TextUIWindowFontPool.release(fontEntry);
+            fontEntry = null;
+            fontMetricsDirty = true;
+        }
+        
+        if (pixelRenderer != null) {
+            pixelRenderer.dispose();
+        }
+        
+        if (renderPipeline != null) {
+            renderPipeline.stop();
+            renderPipeline = null;
+        }
+        
+        frameGovernor.stop();
+    }
+    
+    /**
+     * Requests a repaint paced by the frame governor. May be called from any
+     * thread at any rate: the requests are coalesced so that at most one 
+     * frame is pending, and frames are painted at most at the target frame 
+     * rate. Coalesced requests are counted as dropped frames in 
+     * {@link #getRenderTimings()}.
+     */
+    public void requestRepaint() {
+        frameGovernor.requestFrame();
+    }
+    
+    public void setTargetFramesPerSecond(int targetFramesPerSecond) {
+        if (targetFramesPerSecond < 1) {
+            throw new IllegalArgumentException(
+                    "Target frames per second is invalid (" 
+                            + targetFramesPerSecond 
+                            + "). Must be at least 1.");
+        }
+        
+        this.targetFramesPerSecond = targetFramesPerSecond;
+        frameGovernor.setTargetFramesPerSecond(targetFramesPerSecond);
+    }
+    
+    public int getTargetFramesPerSecond() {
+        return targetFramesPerSecond;
+    }
+    
+    /**
+     * Sets the time a frame may spend on building its render commands. Once a
+     * frame runs over its budget, the damage in the low priority regions is 
+     * deferred to the following frames; the rest is painted regardless, so
+     * that interactive regions stay responsive under load.
+     * 
+     * @param frameBudgetMillis the frame budget in milliseconds.
+     * @see #addLowPriorityRegion(int, int, int, int) 
+     */
+    public void setFrameBudgetMillis(int frameBudgetMillis) {
+        if (frameBudgetMillis < 1) {
+            throw new IllegalArgumentException(
+                    "Frame budget is invalid (" 
+                            + frameBudgetMillis 
+                            + "). Must be at least 1 millisecond.");
+        }
+        
+        this.frameBudgetMillis = frameBudgetMillis;
+    }
+    
+    public int getFrameBudgetMillis() {
+        return frameBudgetMillis;
+    }
+    
+    /**
+     * Marks the given model region as low priority, for example a decorative
+     * border, a clock or a background feed. Its damage is painted only while 
+     * the frame is within its budget.
+     * 
+     * @param charX   the leftmost column of the region.
+     * @param charY   the topmost row of the region.
+     * @param columns the number of columns.
+     * @param rows    the number of rows.
+     */
+    public synchronized void addLowPriorityRegion(int charX, 
+                                                  int charY, 
+                                                  int columns, 
+                                                  int rows) {
+        if (charX < 0 || charY < 0 || columns < 1 || rows < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid low priority region: (" 
+                            + charX 
+                            + ", " 
+                            + charY 
+                            + "), " 
+                            + columns 
+                            + " x " 
+                            + rows 
+                            + ".");
+        }
+        
+        int[] regions = Arrays.copyOf(lowPriorityRegions, 
+                                      lowPriorityRegions.length + 4);
+        
+        regions[regions.length - 4] = charX;
+        regions[regions.length - 3] = charY;
+        regions[regions.length - 2] = columns;
+        regions[regions.length - 1] = rows;
+        lowPriorityRegions = regions;
+    }
+    
+    public synchronized void clearLowPriorityRegions() {
+        lowPriorityRegions = new int[0];
+    }
+    
+    /**
+     * Selects how this window draws its cells. Must be called on the JavaFX
+     * application thread.
+     * 
+     * @param renderMode the new render mode.
+     */
+    public void setRenderMode(TextUIWindowRenderMode renderMode) {
+        Objects.requireNonNull(renderMode, "The render mode is null.");
+        
+        if (this.renderMode == renderMode) {
+            return;
+        }
+        
+        this.renderMode = renderMode;
+        boolean pixelBufferMode = 
+                renderMode == TextUIWindowRenderMode.PIXEL_BUFFER;
+        
+        if (pixelBufferMode && pixelRenderer == null) {
+            pixelRenderer = new TextUIWindowPixelRenderer(this);
+            pixelRenderer.setRasterizingOffThread(renderingOffThread);
+            getChildren().add(pixelRenderer.getImageView());
+        }
+        
+        backgroundCanvas.setVisible(!pixelBufferMode);
+        textCanvas.setVisible(!pixelBufferMode);
+        overlayCanvas.setVisible(!pixelBufferMode);
+        
+        if (pixelRenderer != null) {
+            pixelRenderer.getImageView().setVisible(pixelBufferMode);
+        }
+        
+        updateRenderPipeline();
+        invalidate();
+    }
+    
+    public TextUIWindowRenderMode getRenderMode() {
+        return renderMode;
+    }
+    
+    /**
+     * Selects whether this window renders in a background thread. In the
+     * {@link TextUIWindowRenderMode#CANVAS} mode, a render thread diffs the
+     * model and builds the draw commands, and the JavaFX application thread
+     * only replays them. In the {@link TextUIWindowRenderMode#PIXEL_BUFFER}
+     * mode, a render thread rasterizes the cells, and the JavaFX application
+     * thread only copies the finished rectangles into the pixel buffer. Must
+     * be called on the JavaFX application thread.
+     * 
+     * @param renderingOffThread whether to render in the background.
+     */
+    public void setRenderingOffThread(boolean renderingOffThread) {
+        this.renderingOffThread = renderingOffThread;
+        
+        if (pixelRenderer != null) {
+            pixelRenderer.setRasterizingOffThread(renderingOffThread);
+        }
+        
+        updateRenderPipeline();
+    }
+    
+    public boolean isRenderingOffThread() {
+        return renderingOffThread;
+    }
+    
+    /**
+     * Returns the stage timings of the frames rendered in the 
+     * {@link TextUIWindowRenderMode#CANVAS} mode.
+     * 
+     * @return the render timings.
+     */
+    public TextUIWindowRenderTimings getRenderTimings() {
+        return renderTimings;
+    }
+    
+    /**
+     * Returns the input-to-frame latency tracer of this window. The tracing 
+     * is off until a sampling interval is set.
+     * 
+     * @return the latency tracer.
+     */
+    public TextUIWindowLatencyTracer getLatencyTracer() {
+        return latencyTracer;
+    }
+    
+    private void updateRenderPipeline() {
+        boolean pipelined = renderingOffThread 
+                && renderMode == TextUIWindowRenderMode.CANVAS;
+        
+        if (pipelined && renderPipeline == null) {
+            renderPipeline = new TextUIWindowRenderPipeline(this);
+        } else if (!pipelined && renderPipeline != null) {
+            renderPipeline.stop();
+            renderPipeline = null;
+        }
+    }
+    
+    /**
+     * Makes this window show the region of the model starting at 
+     * {@code (charX, charY)} and spanning {@code columns} times {@code rows}
+     * cells. From now on, the viewport no longer follows the model size.
+     * 
+     * @param charX   the leftmost shown model column.
+     * @param charY   the topmost shown model row.
+     * @param columns the number of shown columns.
+     * @param rows    the number of shown rows.
+     */
+    public void setViewport(int charX, int charY, int columns, int rows) {
+        if (charX < 0 || charY < 0) {
+            throw new IllegalArgumentException(
+                    "Negative viewport offset: (" 
+                            + charX 
+                            + ", " 
+                            + charY 
+                            + ").");
+        }
+        
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException(
+                    "Invalid viewport size: " 
+                            + columns 
+                            + " x " 
+                            + rows 
+                            + ". Must be at least 1 x 1.");
+        }
+        
+        tracksModelSize = false;
+        viewportX = charX;
+        viewportY = charY;
+        
+        if (columns != viewportColumns || rows != viewportRows) {
+            viewportColumns = columns;
+            viewportRows = rows;
+            canvasSizeDirty = true;
+            resizeDamage(columns, rows);
+        } else {
+            invalidate();
+        }
+    }
+    
+    /**
+     * Scrolls the viewport so that its top left corner is at 
+     * {@code (charX, charY)} in the model.
+     * 
+     * @param charX the leftmost shown model column.
+     * @param charY the topmost shown model row.
+     */
+    public void scrollTo(int charX, int charY) {
+        setViewport(charX, charY, viewportColumns, viewportRows);
+    }
+    
+    public int getViewportX() {
+        return viewportX;
+    }
+    
+    public int getViewportY() {
+        return viewportY;
+    }
+    
+    public int getViewportWidth() {
+        return viewportColumns;
+    }
+    
+    public int getViewportHeight() {
+        return viewportRows;
+    }
+    
+    /**
+     * Marks the entire viewport as damaged in all the layers, so that the 
+     * next {@link #repaint()} redraws all of it.
+     */
+    public void invalidate() {
+        backgroundDamage.addAll();
+        textDamage.addAll();
+        overlayDamage.addAll();
+    }
+    
+    /**
+     * Marks the entire viewport as damaged in the given layer only.
+     * 
+     * @param layer the layer to repaint.
+     */
+    public void invalidate(TextUIWindowLayer layer) {
+        getLayerDamage(layer).addAll();
+    }
+    
+    /**
+     * Marks the given viewport cells as damaged in the given layer only.
+     * 
+     * @param layer   the layer to repaint.
+     * @param charX   the leftmost viewport column.
+     * @param charY   the topmost viewport row.
+     * @param columns the number of columns.
+     * @param rows    the number of rows.
+     */
+    public void invalidate(TextUIWindowLayer layer, 
+                           int charX, 
+                           int charY, 
+                           int columns, 
+                           int rows) {
+        getLayerDamage(layer).add(charX, charY, columns, rows);
+    }
+    
+    private TextUIWindowDamage getLayerDamage(TextUIWindowLayer layer) {
+        switch (Objects.requireNonNull(layer, "The layer is null.")) {
+            case BACKGROUND:
+                return backgroundDamage;
+                
+            case TEXT:
+                return textDamage;
+                
+            default:
+                return overlayDamage;
+        }
+    }
+    
+    private void fitViewport(int width, int height) {
+        if (tracksModelSize) {
+            viewportColumns = width;
+            viewportRows = height;
+            resizeDamage(width, height);
+            canvasSizeDirty = true;
+        } else {
+            invalidate();
+        }
+    }
+    
+    private void resizeDamage(int columns, int rows) {
+        backgroundDamage.resize(columns, rows);
+        textDamage.resize(columns, rows);
+        overlayDamage.resize(columns, rows);
+    }
+    
     public Color getTextForegroundColor() {
-        return textForegroundColor;
+        return model.getTextForegroundColor();
     }
     
     public Color getTextBackgroundColor() {
-        return textBackgroundColor;
+        return model.getTextBackgroundColor();
     }
     
     public Color getBlinkCursorForegroundColor() {
-        return blinkCursorForegroundColor;
+        return model.getBlinkCursorForegroundColor();
     }
     
     public Color getBlinkCursorBackgroundColor() {
-        return blinkCursorBackgroundColor;
+        return model.getBlinkCursorBackgroundColor();
     }
     
     public void setForegroundColor(Color color) {
-        textForegroundColor = 
-                Objects.requireNonNull(color, "The input color is null.");
+        model.setTextForegroundColor(color);
     }
     
     public void setBackgroundColor(Color color) {
-        textBackgroundColor = 
-                Objects.requireNonNull(color, "The input color is null.");
+        model.setTextBackgroundColor(color);
     }
     
     public void turnOffBlink(int charX, int charY) {
-        if (checkXandY(charX, charY)) {
-            cursorGrid[charY][charX] = false;
-        }
+        model.turnOffBlink(charX, charY);
     }
     
     public void setBlinkCursorBackgroundColor(Color backgroundColor) {
-        this.blinkCursorBackgroundColor =
-                Objects.requireNonNull(
-                        backgroundColor, 
-                        "backgroundColor is null.");
+        model.setBlinkCursorBackgroundColor(backgroundColor);
     }
     
     public void setBlinkCursorForegroundColor(Color foregroundColor) {
-        this.blinkCursorForegroundColor =
-                Objects.requireNonNull(
-                        foregroundColor, 
-                        "foregroundColor is null.");
+        model.setBlinkCursorForegroundColor(foregroundColor);
     }
     
     public void setTextBackgroundColor(Color backgroundColor) {
-        this.textBackgroundColor =
-                Objects.requireNonNull(backgroundColor, 
-                                       "The input color is null.");
+        model.setTextBackgroundColor(backgroundColor);
     }
     
     public void setTextForegroundColor(Color foregroundColor) {
-        this.textForegroundColor =
-                Objects.requireNonNull(foregroundColor, 
-                                       "The input color is null.");
+        model.setTextForegroundColor(foregroundColor);
+    }
+    
+    public void setTextBackgroundSlot(int slot) {
+        model.setTextBackgroundSlot(slot);
+    }
+    
+    public void setTextForegroundSlot(int slot) {
+        model.setTextForegroundSlot(slot);
+    }
+    
+    public TextUIWindowPalette getPalette() {
+        return model.getPalette();
+    }
+    
+    /**
+     * Makes the model and all the planes of this window, including the ones
+     * added later, use {@code palette}.
+     * 
+     * @param palette the new palette.
+     */
+    public synchronized void setPalette(TextUIWindowPalette palette) {
+        model.setPalette(palette);
+        
+        for (TextUIWindowPlane plane : planes) {
+            plane.getModel().setPalette(palette);
+        }
+    }
+    
+    public void setSessionRecorder(
+            TextUIWindowSessionRecorder sessionRecorder) {
+        model.setSessionRecorder(sessionRecorder);
+    }
+    
+    public TextUIWindowSessionRecorder getSessionRecorder() {
+        return model.getSessionRecorder();
     }
     
     public int getGridWidth() {
-        return width;
+        return model.getWidth();
     }
     
     public int getGridHeight() {
-        return height;
+        return model.getHeight();
     }
     
-    public void toggleBlinkCursor(int charX, int charY) {
-        if (checkXandY(charX, charY)) {
-            cursorGrid[charY][charX] = !cursorGrid[charY][charX];
-        }
+    public int getFontSize() {
+        return fontSize;
     }
     
-    public boolean readCursorStatus(int charX, int charY) {
-        if (!checkX(charX)) {
-            throw charXToException(charX);
-        }
+    /**
+     * Returns the width of a single character cell in pixels.
+     * 
+     * @return the cell width.
+     */
+    public int getCellWidth() {
+        validateFontMetrics();
+        return fontCharWidth + charDelimiterLength;
+    }
+    
+    /**
+     * Returns the height of a single character cell in pixels.
+     * 
+     * @return the cell height.
+     */
+    public int getCellHeight() {
+        validateFontMetrics();
+        return fontCharHeight;
+    }
+    
+    /**
+     * Sets the new font size. The font metrics are not recomputed right away,
+     * but on the next repaint or size query.
+     * 
+     * @param fontSize the new font size.
+     */
+    public void setFontSize(int fontSize) {
+        checkFontSize(fontSize);
         
-        if (!checkY(charY)) {
-            throw charYToException(charY);
+        if (this.fontSize != fontSize) {
+            this.fontSize = fontSize;
+            this.fontMetricsDirty = true;
+            this.canvasSizeDirty = true;
+            invalidate();
         }
-        
-        return cursorGrid[charY][charX];
+    }
+    
+    /**
+     * Resizes the model of this window without reflowing the text.
+     * 
+     * @param width  the new width in characters.
+     * @param height the new height in characters.
+     * @see TextUIWindowModel#resize(int, int) 
+     */
+    public void resize(int width, int height) {
+        model.resize(width, height);
+    }
+    
+    /**
+     * Resizes the model of this window.
+     * 
+     * @param width  the new width in characters.
+     * @param height the new height in characters.
+     * @param reflow whether to rewrap the text.
+     * @see TextUIWindowModel#resize(int, int, boolean) 
+     */
+    public void resize(int width, int height, boolean reflow) {
+        model.resize(width, height, reflow);
+    }
+    
+    public void toggleBlinkCursor(int charX, int charY) {
+        model.toggleBlinkCursor(charX, charY);
+    }
+    
+    public boolean readCursorStatus(int charX, int charY) {
+        return model.readCursorStatus(charX, charY);
     }
     
     public void printString(int charX, int charY, String text) {
-        if (!checkY(charY)) {
-            return;
-        }
-        
-        for (int i = 0; i < text.length(); ++i) {
-            setChar(charX + i, charY, text.charAt(i));
-            
-            if (!checkX(charX + i)) {
-                // Once here, the input text string proceeds beyond the right
-                // border. Nothing to print, can exit.
-                return;
-            }
-        }
+        model.printString(charX, charY, text);
+    }
+    
+    public void clearToEndOfRow(int charX, int charY) {
+        model.clearToEndOfRow(charX, charY);
     }
     
     public void addTextUIWindowMouseListener(
@@ -205,6 +827,336 @@ public class TextUIWindow extends Canvas {
         mouseMotionListeners.remove(listener);
     }
     
+    /**
+     * Registers an interactive region of {@code columns x rows} cells at the
+     * model cell {@code (charX, charY)}. {@code listener} receives only the 
+     * mouse events over the region; the entered and exited events are 
+     * synthesized as the pointer crosses the region border. Once a button is
+     * pressed over a region, the region receives the drag and release events
+     * even outside its border. Must be called on the JavaFX application 
+     * thread.
+     * 
+     * @param charX    the leftmost column of the region.
+     * @param charY    the topmost row of the region.
+     * @param columns  the width of the region in cells.
+     * @param rows     the height of the region in cells.
+     * @param listener the listener of the region.
+     * @return the registered region.
+     */
+    public TextUIWindowMouseRegion addMouseRegion(
+            int charX,
+            int charY,
+            int columns,
+            int rows,
+            TextUIWindowMouseListener listener) {
+        Objects.requireNonNull(listener, "The listener is null.");
+        
+        if (charX < 0 || charY < 0) {
+            throw new IllegalArgumentException(
+                    "Region position is invalid (" 
+                            + charX 
+                            + ", " 
+                            + charY 
+                            + "). Must be at least (0, 0).");
+        }
+        
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException(
+                    "Region size is invalid (" 
+                            + columns 
+                            + "x" 
+                            + rows 
+                            + "). Must be at least 1x1.");
+        }
+        
+        TextUIWindowMouseRegion region = 
+                new TextUIWindowMouseRegion(charX,
+                                            charY,
+                                            columns, 
+                                            rows, 
+                                            listener);
+        mouseRegions.add(region);
+        return region;
+    }
+    
+    /**
+     * Unregisters {@code region}. The region receives no further events, not
+     * even an exited event.
+     * 
+     * @param region the region to unregister.
+     * @return {@code true} if the region was registered.
+     */
+    public boolean removeMouseRegion(TextUIWindowMouseRegion region) {
+        if (hoveredMouseRegion == region) {
+            hoveredMouseRegion = null;
+        }
+        
+        if (pressedMouseRegion == region) {
+            pressedMouseRegion = null;
+        }
+        
+        return mouseRegions.remove(region);
+    }
+    
+    public void clearMouseRegions() {
+        hoveredMouseRegion = null;
+        pressedMouseRegion = null;
+        mouseRegions.clear();
+    }
+    
+    /**
+     * Returns the topmost region containing the model cell 
+     * {@code (charX, charY)}.
+     * 
+     * @param charX the column.
+     * @param charY the row.
+     * @return the region or {@code null} if there is none.
+     */
+    public TextUIWindowMouseRegion getMouseRegionAt(int charX, int charY) {
+        return mouseRegions.find(charX, charY);
+    }
+    
+    public int getMouseRegionCount() {
+        return mouseRegions.size();
+    }
+    
+    /**
+     * Adds a transparent plane of {@code columns x rows} cells with its top 
+     * left corner at the model cell {@code (charX, charY)}. The plane covers
+     * the planes with a smaller {@code z}; among the planes with equal 
+     * {@code z}, the one added last is on top.
+     * 
+     * @param charX   the leftmost column of the plane.
+     * @param charY   the topmost row of the plane.
+     * @param columns the width of the plane in cells.
+     * @param rows    the height of the plane in cells.
+     * @param z       the z-order of the plane.
+     * @return the new plane.
+     */
+    public synchronized TextUIWindowPlane addPlane(int charX,
+                                                   int charY, 
+                                                   int columns, 
+                                                   int rows, 
+                                                   int z) {
+        TextUIWindowPlane plane = 
+                new TextUIWindowPlane(this, charX, charY, columns, rows, z);
+        
+        plane.getModel().setPalette(model.getPalette());
+        
+        TextUIWindowPlane[] currentPlanes = planes;
+        int index = currentPlanes.length;
+        
+        while (index > 0 && currentPlanes[index - 1].getZ() > z) {
+            index--;
+        }
+        
+        TextUIWindowPlane[] newPlanes = 
+                new TextUIWindowPlane[currentPlanes.length + 1];
+        
+        System.arraycopy(currentPlanes, 0, newPlanes, 0, index);
+        System.arraycopy(currentPlanes, 
+                         index, 
+                         newPlanes,
+                         index + 1, 
+                         currentPlanes.length - index);
+        
+        newPlanes[index] = plane;
+        planes = newPlanes;
+        return plane;
+    }
+    
+    /**
+     * Removes {@code plane}, uncovering the cells under it.
+     * 
+     * @param plane the plane to remove.
+     * @return {@code true} if the plane belonged to this window.
+     */
+    public synchronized boolean removePlane(TextUIWindowPlane plane) {
+        TextUIWindowPlane[] currentPlanes = planes;
+        
+        for (int i = 0; i < currentPlanes.length; i++) {
+            if (currentPlanes[i] == plane) {
+                TextUIWindowPlane[] newPlanes = 
+                        new TextUIWindowPlane[currentPlanes.length - 1];
+                
+                System.arraycopy(currentPlanes, 0, newPlanes, 0, i);
+                System.arraycopy(currentPlanes,
+                                 i + 1, 
+                                 newPlanes, 
+                                 i, 
+                                 currentPlanes.length - i - 1);
+                
+                planes = newPlanes;
+                plane.getModel().detachPalette();
+                damagePlaneArea(plane.getCharX(),
+                                plane.getCharY(), 
+                                plane.getColumns(),
+                                plane.getRows());
+                
+                requestRepaint();
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    /**
+     * Returns the planes of this window from the bottom to the top.
+     * 
+     * @return the planes.
+     */
+    public List<TextUIWindowPlane> getPlanes() {
+        return List.of(planes);
+    }
+    
+    /**
+     * Sets the selection shown over the cells. The selection is painted in the
+     * overlay layer, so the cells themselves are not modified; only the rows
+     * where the old and the new selection differ are repainted.
+     * 
+     * @param selection the new selection, or {@code null} to clear it.
+     */
+    public void setSelection(TextUIWindowSelection selection) {
+        TextUIWindowSelection previousSelection = this.selection;
+        
+        if (previousSelection == selection) {
+            return;
+        }
+        
+        this.selection = selection;
+        damageSelectionChange(previousSelection, selection);
+        requestRepaint();
+    }
+    
+    public TextUIWindowSelection getSelection() {
+        return selection;
+    }
+    
+    public void clearSelection() {
+        setSelection(null);
+    }
+    
+    public Color getSelectionColor() {
+        return selectionColor;
+    }
+    
+    /**
+     * Sets the color painted over the selected cells. The color should be 
+     * translucent, so that the text under the selection stays readable.
+     * 
+     * @param selectionColor the selection color.
+     */
+    public void setSelectionColor(Color selectionColor) {
+        this.selectionColor = 
+                Objects.requireNonNull(
+                        selectionColor, 
+                        "The selection color is null.");
+        
+        TextUIWindowSelection currentSelection = selection;
+        damageSelectionChange(currentSelection, null);
+        requestRepaint();
+    }
+    
+    public boolean isMouseSelectionEnabled() {
+        return mouseSelectionEnabled;
+    }
+    
+    /**
+     * Enables or disables selecting with the mouse. Dragging with the primary
+     * button selects linearly, or a block if the Alt key is held; dragging 
+     * past the top or the bottom of a scrolled viewport scrolls it.
+     * 
+     * @param mouseSelectionEnabled whether mouse selection is enabled.
+     */
+    public void setMouseSelectionEnabled(boolean mouseSelectionEnabled) {
+        this.mouseSelectionEnabled = mouseSelectionEnabled;
+        
+        if (mouseSelectionEnabled) {
+            mouseMotionListeners.add(selectionMouseListener);
+        } else {
+            mouseMotionListeners.remove(selectionMouseListener);
+            selectionDragged = false;
+        }
+    }
+    
+    /**
+     * Writes the text of the selection to {@code out}, the rows separated by
+     * newlines and without their trailing blanks. The cells are appended 
+     * straight from the model, so even a selection of many thousands of rows,
+     * including the rows scrolled out of the viewport, creates no 
+     * intermediate strings. Must not run concurrently with model updates.
+     * 
+     * @param out the destination of the text.
+     * @throws IOException if {@code out} fails.
+     */
+    public void copySelection(Appendable out) throws IOException {
+        Objects.requireNonNull(out, "The output is null.");
+        TextUIWindowSelection currentSelection = selection;
+        
+        if (currentSelection == null) {
+            return;
+        }
+        
+        int modelWidth = model.getWidth();
+        int firstRow = currentSelection.getFirstRow();
+        int lastRow = Math.min(currentSelection.getLastRow(), 
+                               model.getHeight() - 1);
+        
+        for (int y = firstRow; y <= lastRow; y++) {
+            if (y > firstRow) {
+                out.append('\n');
+            }
+            
+            model.appendRowText(out, 
+                                y, 
+                                currentSelection.getRowFrom(y), 
+                                currentSelection.getRowTo(y, modelWidth));
+        }
+    }
+    
+    public String getSelectedText() {
+        TextUIWindowSelection currentSelection = selection;
+        
+        if (currentSelection == null) {
+            return "";
+        }
+        
+        long rows = currentSelection.getLastRow() 
+                  - currentSelection.getFirstRow() 
+                  + 1;
+        
+        StringBuilder sb = 
+                new StringBuilder(
+                        (int) Math.min(MAXIMUM_SELECTED_TEXT_CAPACITY, 
+                                       rows * (model.getWidth() + 1)));
+        
+        try {
+            copySelection(sb);
+        } catch (IOException ex) {
+            // A StringBuilder never throws.
+            throw new UncheckedIOException(ex);
+        }
+        
+        return sb.toString();
+    }
+    
+    /**
+     * Puts the text of the selection to the system clipboard. Must be called
+     * on the JavaFX application thread.
+     * 
+     * @return {@code true} if there was a selection and the clipboard took it.
+     */
+    public boolean copySelectionToClipboard() {
+        if (selection == null) {
+            return false;
+        }
+        
+        ClipboardContent content = new ClipboardContent();
+        content.putString(getSelectedText());
+        return Clipboard.getSystemClipboard().setContent(content);
+    }
+    
     public void addTextUIWindowKeyboardListener(
             TextUIWindowKeyboardListener listener) {
         keyboardListeners.add(listener);
@@ -238,10 +1190,7 @@ public class TextUIWindow extends Canvas {
         this.setOnKeyPressed(new EventHandler<KeyEvent>() {
             @Override
             public void handle(KeyEvent event) {
-                for (TextUIWindowKeyboardListener listener 
-                        : keyboardListeners) {
-                    listener.onKeyPressed(event);
-                }
+                dispatchKeyEvent(event);
             }
         });
     }
@@ -250,10 +1199,7 @@ public class TextUIWindow extends Canvas {
         this.setOnKeyReleased(new EventHandler<KeyEvent>() {
             @Override
             public void handle(KeyEvent event) {
-                for (TextUIWindowKeyboardListener listener 
-                        : keyboardListeners) {
-                    listener.onKeyReleased(event);
-                }
+                dispatchKeyEvent(event);
             }
         });
     }
@@ -261,9 +1207,7 @@ public class TextUIWindow extends Canvas {
     private void setKeyboardTypedListener() {
         this.addEventFilter(KeyEvent.KEY_TYPED, new EventHandler<KeyEvent>() {
             public void handle(KeyEvent event) {
-                for (TextUIWindowKeyboardListener listener : keyboardListeners) {
-                    listener.onKeyTyped(event);
-                }
+                dispatchKeyEvent(event);
             }
         });
     }
@@ -278,10 +1222,7 @@ public class TextUIWindow extends Canvas {
                 int charX = convertPixelXtoCharX(pixelX);
                 int charY = convertPixelYtoCharY(pixelY);
                 
-                for (TextUIWindowMouseListener listener 
-                        : mouseMotionListeners) {
-                    listener.onMouseMove(event, charX, charY);
-                }
+                dispatchMouseEvent(event, charX, charY);
             }
         });
     }
@@ -296,10 +1237,7 @@ public class TextUIWindow extends Canvas {
                 int charX = convertPixelXtoCharX(pixelX);
                 int charY = convertPixelYtoCharY(pixelY);
                 
-                for (TextUIWindowMouseListener listener 
-                        : mouseMotionListeners) {
-                    listener.onMouseClick(event, charX, charY);
-                }
+                dispatchMouseEvent(event, charX, charY);
             }
         });
     }
@@ -314,10 +1252,7 @@ public class TextUIWindow extends Canvas {
                 int charX = convertPixelXtoCharX(pixelX);
                 int charY = convertPixelYtoCharY(pixelY);
                 
-                for (TextUIWindowMouseListener listener 
-                        : mouseMotionListeners) {
-                    listener.onMouseClick(event, charX, charY);
-                }
+                dispatchMouseEvent(event, charX, charY);
             }
         });
     }
@@ -332,10 +1267,7 @@ public class TextUIWindow extends Canvas {
                 int charX = convertPixelXtoCharX(pixelX);
                 int charY = convertPixelYtoCharY(pixelY);
                 
-                for (TextUIWindowMouseListener listener 
-                        : mouseMotionListeners) {
-                    listener.onMouseEntered(event, charX, charY);
-                }
+                dispatchMouseEvent(event, charX, charY);
             }
         });
     }
@@ -350,10 +1282,7 @@ public class TextUIWindow extends Canvas {
                 int charX = convertPixelXtoCharX(pixelX);
                 int charY = convertPixelYtoCharY(pixelY);
                 
-                for (TextUIWindowMouseListener listener 
-                        : mouseMotionListeners) {
-                    listener.onMouseExited(event, charX, charY);
-                }
+                dispatchMouseEvent(event, charX, charY);
             }
         });
     }
@@ -368,10 +1297,7 @@ public class TextUIWindow extends Canvas {
                 int charX = convertPixelXtoCharX(pixelX);
                 int charY = convertPixelYtoCharY(pixelY);
                 
-                for (TextUIWindowMouseListener listener 
-                        : mouseMotionListeners) {
-                    listener.onMousePressed(event, charX, charY);
-                }
+                dispatchMouseEvent(event, charX, charY);
             }
         });
     }
@@ -386,281 +1312,745 @@ public class TextUIWindow extends Canvas {
                 int charX = convertPixelXtoCharX(pixelX);
                 int charY = convertPixelYtoCharY(pixelY);
                 
-                for (TextUIWindowMouseListener listener 
-                        : mouseMotionListeners) {
-                    listener.onMouseReleased(event, charX, charY);
-                }
+                dispatchMouseEvent(event, charX, charY);
             }
         });
     }
     
-    private int convertPixelXtoCharX(int pixelX) {
-        return pixelX / (fontCharWidth + charDelimiterLength);
-    }
-    
-    private int convertPixelYtoCharY(int pixelY) {
-        return (pixelY - windowTitleBorderThickness) / fontCharHeight;
-    }
-            
-    public void setTitleBorderThickness(int thickness) {
-        this.windowTitleBorderThickness = thickness;
-    }
-    
-    public void repaint() {
-        GraphicsContext gc = getGraphicsContext2D();
+    void dispatchKeyEvent(KeyEvent event) {
+        boolean traced = latencyTracer.beginDispatch();
         
-        for (int y = 0; y < height; y++) {
-            repaintRow(gc, y);
+        TextUIWindowSessionRecorder recorder = model.getSessionRecorder();
+        
+        if (recorder != null) {
+            recorder.recordKeyEvent(event);
         }
-    }
-    
-    private void repaintRow(GraphicsContext gc, int y) {
-        for (int x = 0; x < width; x++) {
-            repaintCell(gc, x, y);
+        
+        EventType<KeyEvent> eventType = event.getEventType();
+        
+        for (TextUIWindowKeyboardListener listener : keyboardListeners) {
+            if (eventType == KeyEvent.KEY_PRESSED) {
+                listener.onKeyPressed(event);
+            } else if (eventType == KeyEvent.KEY_RELEASED) {
+                listener.onKeyReleased(event);
+            } else if (eventType == KeyEvent.KEY_TYPED) {
+                listener.onKeyTyped(event);
+            }
+        }
+        
+        if (traced) {
+            latencyTracer.endDispatch();
         }
     }
     
-    private void repaintCell(GraphicsContext gc, int x, int y) {
-        repaintCellBackground(gc, x, y);
-        repaintCellForeground(gc, x, y);
-    }
-    
-    private void repaintCellBackground(GraphicsContext gc,  
-                                       int charX, 
-                                       int charY) {
-        if (cursorGrid[charY][charX]) {
-            // Once here, we need to use the cursor's color:
-            gc.setFill(blinkCursorBackgroundColor);
-        } else {
-            gc.setFill(backgroundColorGrid[charY][charX]);
+    void dispatchMouseEvent(MouseEvent event, int charX, int charY) {
+        boolean traced = latencyTracer.beginDispatch();
+        
+        TextUIWindowSessionRecorder recorder = model.getSessionRecorder();
+        
+        if (recorder != null) {
+            recorder.recordMouseEvent(event, charX, charY);
         }
         
-        gc.fillRect(charX * (fontCharWidth + charDelimiterLength),
-                    charY * fontCharHeight,
-                    fontCharWidth + charDelimiterLength,
-                    fontCharHeight);
-    }
-            
-    private void repaintCellForeground(GraphicsContext gc,
-                                       int charX, 
-                                       int charY) {
-        gc.setFont(font);
+        EventType<? extends MouseEvent> eventType = event.getEventType();
         
-        if (cursorGrid[charY][charX]) {
-            gc.setFill(blinkCursorForegroundColor);
-        } else {
-            gc.setFill(foregroundColorGrid[charY][charX]);
+        for (TextUIWindowMouseListener listener : mouseMotionListeners) {
+            dispatchMouseEvent(listener, eventType, event, charX, charY);
         }
         
-        int fixY = fontCharHeight - (int) getFontMetrics().getMaxAscent();
+        if (mouseRegions.size() > 0 
+                || hoveredMouseRegion != null
+                || pressedMouseRegion != null) {
+            dispatchMouseRegionEvent(event, eventType, charX, charY);
+        }
         
-        gc.fillText("" + charGrid[charY][charX],
-                    charDelimiterLength / 2 +
-                            (fontCharWidth + charDelimiterLength) * charX,
-                    fontCharHeight * (charY + 1) - fixY);
+        if (traced) {
+            latencyTracer.endDispatch();
+        }
     }
     
-    public Color getForegroundColor(int charX, int charY) {
-        if (!checkX(charX)) {
-            throw charXToException(charX);
+    private void damageSelectionChange(TextUIWindowSelection oldSelection,
+                                       TextUIWindowSelection newSelection) {
+        if (oldSelection != null 
+                && newSelection != null 
+                && oldSelection.getMode() == newSelection.getMode()
+                && oldSelection.getAnchorX() == newSelection.getAnchorX()
+                && oldSelection.getAnchorY() == newSelection.getAnchorY()
+                && (oldSelection.getMode() == TextUIWindowSelectionMode.LINEAR
+                    || oldSelection.getFocusX() == newSelection.getFocusX())) {
+            // Only the rows between the two focuses changed:
+            damageOverlayRows(
+                    Math.min(oldSelection.getFocusY(), 
+                             newSelection.getFocusY()),
+                    Math.max(oldSelection.getFocusY(), 
+                             newSelection.getFocusY()));
+            return;
         }
         
-        if (!checkY(charY)) {
-            throw charYToException(charY);
+        if (oldSelection != null) {
+            damageOverlayRows(oldSelection.getFirstRow(), 
+                              oldSelection.getLastRow());
         }
         
-        return foregroundColorGrid[charY][charX];
+        if (newSelection != null) {
+            damageOverlayRows(newSelection.getFirstRow(), 
+                              newSelection.getLastRow());
+        }
     }
     
-    public Color getBackgroundColor(int charX, int charY) {
-        if (!checkX(charX)) {
-            throw charXToException(charX);
+    private void damageOverlayRows(int firstModelRow, int lastModelRow) {
+        overlayDamage.add(0, 
+                          firstModelRow - viewportY,
+                          viewportColumns, 
+                          lastModelRow - firstModelRow + 1);
+    }
+    
+    /**
+     * Scrolls a viewport showing a part of the model by a row when a 
+     * selection is dragged past its top or bottom.
+     */
+    private void followSelectionFocus(int focusY) {
+        if (tracksModelSize) {
+            return;
         }
         
-        if (!checkY(charY)) {
-            throw charYToException(charY);
+        if (focusY < viewportY) {
+            scrollTo(viewportX, viewportY - 1);
+        } else if (focusY >= viewportY + viewportRows 
+                && viewportY + viewportRows < model.getHeight()) {
+            scrollTo(viewportX, viewportY + 1);
         }
-        
-        return backgroundColorGrid[charY][charX];
     }
     
-    public void setForegroundColor(int charX, int charY, Color color) {
-        if (checkXandY(charX, charY)) {
-            foregroundColorGrid[charY][charX] = 
-                    Objects.requireNonNull(color, "The color is null.");
-        }
+    private int clampColumn(int charX) {
+        return Math.max(0, Math.min(charX, model.getWidth() - 1));
     }
     
-    public void setBackgroundColor(int x, int y, Color color) {
-        if (checkXandY(x, y)) {
-            backgroundColorGrid[y][x] = 
-                    Objects.requireNonNull(color, "The color is null.");
-        }
+    private int clampRow(int charY) {
+        return Math.max(0, Math.min(charY, model.getHeight() - 1));
     }
     
-    public char getChar(int charX, int charY) {
-        if (!checkX(charX)) {
-            throw charXToException(charX);
+    private void dispatchMouseRegionEvent(
+            MouseEvent event,
+            EventType<? extends MouseEvent> eventType,
+            int charX,
+            int charY) {
+        TextUIWindowMouseRegion region = 
+                eventType == MouseEvent.MOUSE_EXITED ? 
+                null : 
+                mouseRegions.find(charX, charY);
+        
+        if (region != hoveredMouseRegion) {
+            TextUIWindowMouseRegion previousRegion = hoveredMouseRegion;
+            hoveredMouseRegion = region;
+            
+            if (previousRegion != null) {
+                previousRegion.getListener()
+                              .onMouseExited(event, charX, charY);
+            }
+            
+            if (region != null) {
+                region.getListener().onMouseEntered(event, charX, charY);
+            }
+        }
+        
+        if (eventType == MouseEvent.MOUSE_ENTERED
+                || eventType == MouseEvent.MOUSE_EXITED) {
+            // Synthesized above.
+            return;
         }
         
-        if (!checkY(charY)) {
-            throw charYToException(charY);
+        if (eventType == MouseEvent.MOUSE_PRESSED) {
+            pressedMouseRegion = region;
+        }
+        
+        // A pressed region captures the pointer until the release:
+        TextUIWindowMouseRegion target = 
+                pressedMouseRegion != null ? pressedMouseRegion : region;
+        
+        if (eventType == MouseEvent.MOUSE_RELEASED) {
+            pressedMouseRegion = null;
         }
         
-        return charGrid[charY][charX];
+        if (target != null) {
+            dispatchMouseEvent(target.getListener(), 
+                               eventType,
+                               event, 
+                               charX, 
+                               charY);
+        }
     }
     
-    public void setChar(int x, int y, char ch) {
-        if (checkXandY(x, y)) {
-            charGrid[y][x] = ch;
-            foregroundColorGrid[y][x] = textForegroundColor;
-            backgroundColorGrid[y][x] = textBackgroundColor;
+    private static void dispatchMouseEvent(
+            TextUIWindowMouseListener listener,
+            EventType<? extends MouseEvent> eventType,
+            MouseEvent event,
+            int charX,
+            int charY) {
+        if (eventType == MouseEvent.MOUSE_MOVED) {
+            listener.onMouseMove(event, charX, charY);
+        } else if (eventType == MouseEvent.MOUSE_DRAGGED) {
+            listener.onMouseDragged(event, charX, charY);
+        } else if (eventType == MouseEvent.MOUSE_CLICKED) {
+            listener.onMouseClick(event, charX, charY);
+        } else if (eventType == MouseEvent.MOUSE_ENTERED) {
+            listener.onMouseEntered(event, charX, charY);
+        } else if (eventType == MouseEvent.MOUSE_EXITED) {
+            listener.onMouseExited(event, charX, charY);
+        } else if (eventType == MouseEvent.MOUSE_PRESSED) {
+            listener.onMousePressed(event, charX, charY);
+        } else if (eventType == MouseEvent.MOUSE_RELEASED) {
+            listener.onMouseReleased(event, charX, charY);
         }
     }
     
-    public int getPreferredWidth() {
-        return width * (fontCharWidth + charDelimiterLength);
+    private int convertPixelXtoCharX(int pixelX) {
+        return viewportX + pixelX / (fontCharWidth + charDelimiterLength);
     }
     
-    public int getPreferredHeight() {
-        return height * fontCharHeight;
+    private int convertPixelYtoCharY(int pixelY) {
+        return viewportY 
+                + (pixelY - windowTitleBorderThickness) / fontCharHeight;
+    }
+            
+    public void setTitleBorderThickness(int thickness) {
+        this.windowTitleBorderThickness = thickness;
     }
     
-    private FontMetrics getFontMetrics() {
-        return Toolkit.getToolkit().getFontLoader().getFontMetrics(font);
+    /**
+     * Repaints the cells that have changed since the previous repaint. Each
+     * layer is repainted only where it is damaged; for example, a blinking 
+     * cursor touches the overlay layer only. If the window renders 
+     * off-thread, this method only requests a frame and returns; the frame is
+     * drawn once the render thread has built it. Must be called on the JavaFX 
+     * application thread.
+     */
+    public void repaint() {
+        validateCanvasSize();
+        
+        if (renderMode == TextUIWindowRenderMode.PIXEL_BUFFER) {
+            repaintPixelBuffer();
+            return;
+        }
+        
+        if (renderPipeline != null) {
+            renderPipeline.requestFrame();
+            return;
+        }
+        
+        long startNanos = System.nanoTime();
+        
+        buildRenderCommands(renderCommands);
+        
+        long endNanos = System.nanoTime();
+        renderTimings.recordBuild(endNanos - startNanos);
+        
+        if (!renderCommands.isEmpty()) {
+            renderCommands.setPublishNanos(endNanos);
+            replayRenderCommands(renderCommands);
+            renderCommands.clear();
+        } else {
+            latencyTracer.onFramePainted(renderCommands.getTraceFrame());
+        }
     }
     
-    private static int checkWidth(int widthCandidate) {
-        if (widthCandidate < MINIMUM_WIDTH) {
-            throw new IllegalArgumentException(
-                    "Width candidate is invalid (" 
-                            + widthCandidate
-                            + "). Must be at least " 
-                            + MINIMUM_WIDTH
-                            + ".");
+    private void repaintPixelBuffer() {
+        long traceFrame = latencyTracer.onFrameStart();
+        int columns = viewportColumns;
+        int rows = viewportRows;
+        boolean reallocated = 
+                pixelRenderer.configure(fontEntry, 
+                                        fontCharWidth + charDelimiterLength, 
+                                        fontCharHeight,
+                                        charDelimiterLength / 2,
+                                        fontAscent,
+                                        columns, 
+                                        rows);
+        
+        if (pixelSpanFrom.length < rows) {
+            pixelSpanFrom = new int[rows];
+            pixelSpanTo = new int[rows];
         }
         
-        return widthCandidate;
+        Arrays.fill(pixelSpanFrom, 0, rows, reallocated ? 0 : columns);
+        Arrays.fill(pixelSpanTo, 0, rows, reallocated ? columns : 0);
+        
+        // The pixel buffer composes all the layers of a cell at once:
+        boolean damaged = mergePixelSpans(backgroundDamage, rows);
+        damaged |= mergePixelSpans(textDamage, rows);
+        damaged |= mergePixelSpans(overlayDamage, rows);
+        
+        if (damaged || reallocated) {
+            pixelRenderer.render(viewportX, 
+                                 viewportY, 
+                                 rows, 
+                                 pixelSpanFrom, 
+                                 pixelSpanTo,
+                                 traceFrame);
+        } else {
+            pixelRenderer.skip(traceFrame);
+        }
     }
     
-    private static int checkHeight(int heightCandidate) {
-        if (heightCandidate < MINIMUM_WIDTH) {
-            throw new IllegalArgumentException(
-                    "Height candidate is invalid (" 
-                            + heightCandidate
-                            + "). Must be at least " 
-                            + MINIMUM_HEIGHT
-                            + ".");
+    private boolean mergePixelSpans(TextUIWindowDamage damage, int rows) {
+        if (!damage.drain()) {
+            return false;
+        }
+        
+        for (int y = 0; y < Math.min(rows, damage.getDrainedRows()); y++) {
+            int fromX = damage.getDrainedFrom(y);
+            int toX = damage.getDrainedTo(y);
+            
+            if (fromX < toX) {
+                pixelSpanFrom[y] = Math.min(pixelSpanFrom[y], fromX);
+                pixelSpanTo[y] = Math.max(pixelSpanTo[y], toX);
+            }
+        }
+        
+        return true;
+    }
+    
+    /**
+     * Encodes the damaged cells of all the layers into {@code commands}. Runs
+     * on the render thread of the pipeline, or on the JavaFX application 
+     * thread if the window does not render off-thread.
+     */
+    void buildRenderCommands(TextUIWindowRenderCommands commands) {
+        // The traces dispatched so far are complete once this frame is:
+        commands.setTraceFrame(latencyTracer.onFrameStart());
+        buildDeadlineNanos = System.nanoTime() 
+                + frameBudgetMillis * 1_000_000L;
+        deferredSpans = 0;
+        
+        buildBackgroundLayer(commands);
+        // The text layer damages the overlay where a cursor covers a repainted
+        // glyph, so the overlay goes last:
+        buildTextLayer(commands);
+        buildOverlayLayer(commands);
+        
+        if (deferredSpans > 0 || System.nanoTime() > buildDeadlineNanos) {
+            renderTimings.recordOverBudgetFrame(deferredSpans);
         }
         
-        return heightCandidate;
+        if (deferredSpans > 0) {
+            requestRepaint();
+        }
     }
     
-    private static int checkFontSize(int fontSizeCandidate) {
-        if (fontSizeCandidate < MINIMUM_FONT_SIZE) {
-            throw new IllegalArgumentException(
-                    "Font size candidate is invalid (" 
-                            + fontSizeCandidate
-                            + "). Must be at least " 
-                            + MINIMUM_FONT_SIZE
-                            + ".");
+    /**
+     * Puts the span back to {@code damage} if the frame is over its budget 
+     * and the span lies in a low priority region.
+     * 
+     * @return {@code true} if the span was deferred.
+     */
+    private boolean deferSpan(TextUIWindowDamage damage, 
+                              int y, 
+                              int fromX, 
+                              int toX) {
+        int[] regions = lowPriorityRegions;
+        
+        if (regions.length == 0 || System.nanoTime() < buildDeadlineNanos) {
+            return false;
         }
         
-        return fontSizeCandidate;
+        int modelY = viewportY + y;
+        int modelFromX = viewportX + fromX;
+        int modelToX = viewportX + toX;
+        
+        for (int i = 0; i < regions.length; i += 4) {
+            if (modelFromX >= regions[i]
+                    && modelToX <= regions[i] + regions[i + 2]
+                    && modelY >= regions[i + 1]
+                    && modelY < regions[i + 1] + regions[i + 3]) {
+                damage.add(fromX, y, toX - fromX, 1);
+                deferredSpans++;
+                return true;
+            }
+        }
+        
+        return false;
     }
     
-    private int checkCharDelimiterLength(int charDelimiterLength) {
-        if (charDelimiterLength < 0) {
-            throw new IllegalArgumentException(
-                    "Char delimiter length negative: (" 
-                            + charDelimiterLength 
-                            + "). Must be at least 0.");
+    /**
+     * Replays {@code commands} onto the canvases. Must be called on the JavaFX
+     * application thread.
+     */
+    void replayRenderCommands(TextUIWindowRenderCommands commands) {
+        validateFontMetrics();
+        
+        long startNanos = System.nanoTime();
+        
+        commands.replay(layerGraphicsContexts,
+                        font,
+                        fontCharWidth + charDelimiterLength,
+                        fontCharHeight,
+                        charDelimiterLength / 2,
+                        fontAscent);
+        
+        long endNanos = System.nanoTime();
+        
+        renderTimings.recordReplay(startNanos - commands.getPublishNanos(),
+                                   endNanos - startNanos,
+                                   commands.getCommandCount());
+        
+        latencyTracer.onFramePainted(commands.getTraceFrame());
+    }
+    
+    private void buildBackgroundLayer(TextUIWindowRenderCommands commands) {
+        if (!backgroundDamage.drain()) {
+            return;
         }
         
-        return charDelimiterLength;
+        int rows = backgroundDamage.getDrainedRows();
+        int modelWidth = model.getWidth();
+        int modelHeight = model.getHeight();
+        
+        for (int y = 0; y < rows; y++) {
+            int fromX = backgroundDamage.getDrainedFrom(y);
+            int toX = backgroundDamage.getDrainedTo(y);
+            int modelY = viewportY + y;
+            
+            if (fromX < toX && deferSpan(backgroundDamage, y, fromX, toX)) {
+                continue;
+            }
+            
+            for (int x = fromX; x < toX; x++) {
+                int modelX = viewportX + x;
+                
+                commands.fill(TextUIWindowLayer.BACKGROUND,
+                              modelX < modelWidth && modelY < modelHeight ?
+                                      compositeBackgroundAt(modelX, modelY) :
+                                      TextUIWindowModel
+                                              .DEFAULT_TEXT_BACKGROUND_COLOR,
+                              x,
+                              y,
+                              1);
+            }
+        }
     }
     
-    private IndexOutOfBoundsException charXToException(int charX) {
-        if (charX < 0) {
-            return new IndexOutOfBoundsException(
-                    "Character X coordinate is negative: " + charX);
+    private void buildTextLayer(TextUIWindowRenderCommands commands) {
+        if (!textDamage.drain()) {
+            return;
         }
         
-        if (charX >= width) {
-            return new IndexOutOfBoundsException(
-                    "Character X coordinate is too large: " 
-                            + charX
-                            + ". Must be at most "
-                            + (width - 1)
-                            + ".");
+        int rows = textDamage.getDrainedRows();
+        
+        for (int y = 0; y < rows; y++) {
+            int fromX = textDamage.getDrainedFrom(y);
+            int toX = textDamage.getDrainedTo(y);
+            
+            if (fromX < toX && !deferSpan(textDamage, y, fromX, toX)) {
+                buildTextRow(commands, y, fromX, toX);
+            }
         }
+    }
+    
+    private void buildTextRow(TextUIWindowRenderCommands commands,
+                              int y, 
+                              int fromX, 
+                              int toX) {
+        int modelY = viewportY + y;
+        int modelWidth = model.getWidth();
+        int modelHeight = model.getHeight();
         
-        throw new IllegalStateException("Should not get here.");
+        // A wide character is painted from its left half, so a damaged half
+        // repaints both:
+        if (fromX > 0 
+                && isModelCell(viewportX + fromX, modelY)
+                && compositeCharAt(viewportX + fromX, modelY) 
+                == TextUIWindowGraphemes.WIDE_CONTINUATION) {
+            fromX--;
+        }
+        
+        if (toX < viewportColumns
+                && isModelCell(viewportX + toX - 1, modelY)
+                && TextUIWindowGraphemes.getColumns(
+                        compositeCharAt(viewportX + toX - 1, modelY)) == 2) {
+            toX++;
+        }
+        
+        // Clear the whole span first so that the right half of a wide glyph 
+        // is not erased by clearing the next cell:
+        commands.clear(TextUIWindowLayer.TEXT, fromX, y, toX - fromX);
+        
+        for (int x = fromX; x < toX; x++) {
+            int modelX = viewportX + x;
+            
+            if (modelX < modelWidth && modelY < modelHeight) {
+                commands.glyph(TextUIWindowLayer.TEXT,
+                               compositeForegroundAt(modelX, modelY),
+                               x,
+                               y,
+                               compositeCharAt(modelX, modelY));
+                
+                if (compositeCursorAt(modelX, modelY) 
+                        || isOverlayPainted(x, y)) {
+                    overlayDamage.add(x, y, 1, 1);
+                }
+            }
+        }
     }
     
-    private IndexOutOfBoundsException charYToException(int charY) {
-        if (charY < 0) {
-            throw new IndexOutOfBoundsException(
-                    "Character Y coordinate is negative: " + charY);
+    private void buildOverlayLayer(TextUIWindowRenderCommands commands) {
+        if (!overlayDamage.drain()) {
+            return;
         }
         
-        if (charY >= height) {
-            throw new IndexOutOfBoundsException(
-                    "Character Y coordinate is too large: " 
-                            + charY
-                            + ". Must be at most "
-                            + (height - 1)
-                            + ".");
+        int columns = overlayDamage.getDrainedColumns();
+        int rows = overlayDamage.getDrainedRows();
+        int modelWidth = model.getWidth();
+        int modelHeight = model.getHeight();
+        TextUIWindowSelection currentSelection = selection;
+        Color currentSelectionColor = selectionColor;
+        
+        if (overlayPainted.length != rows 
+                || (rows > 0 && overlayPainted[0].length != columns)) {
+            // Resizing damages the entire overlay, so nothing is lost here:
+            overlayPainted = new boolean[rows][columns];
         }
         
-        throw new IllegalStateException("Should not get here.");
+        for (int y = 0; y < rows; y++) {
+            int fromX = overlayDamage.getDrainedFrom(y);
+            int toX = overlayDamage.getDrainedTo(y);
+            int modelY = viewportY + y;
+            
+            if (fromX >= toX || deferSpan(overlayDamage, y, fromX, toX)) {
+                continue;
+            }
+            
+            // Clear the whole span first so that the fills of the selected 
+            // cells merge into a single rectangle:
+            commands.clear(TextUIWindowLayer.OVERLAY, fromX, y, toX - fromX);
+            
+            for (int x = fromX; x < toX; x++) {
+                int modelX = viewportX + x;
+                
+                overlayPainted[y][x] = false;
+                
+                if (modelX >= modelWidth || modelY >= modelHeight) {
+                    continue;
+                }
+                
+                if (compositeCursorAt(modelX, modelY)) {
+                    commands.fill(TextUIWindowLayer.OVERLAY,
+                                  model.getBlinkCursorBackgroundColor(),
+                                  x,
+                                  y,
+                                  1);
+                    
+                    commands.glyph(TextUIWindowLayer.OVERLAY,
+                                   model.getBlinkCursorForegroundColor(),
+                                   x,
+                                   y,
+                                   compositeCharAt(modelX, modelY));
+                    
+                    overlayPainted[y][x] = true;
+                } else if (currentSelection != null 
+                        && currentSelection.contains(modelX, modelY)) {
+                    commands.fill(TextUIWindowLayer.OVERLAY,
+                                  currentSelectionColor,
+                                  x,
+                                  y,
+                                  1);
+                    
+                    overlayPainted[y][x] = true;
+                }
+            }
+        }
     }
     
-    private boolean checkX(int x) {
-        return x >= 0 && x < width;
+    private boolean isOverlayPainted(int x, int y) {
+        return y < overlayPainted.length 
+                && x < overlayPainted[y].length 
+                && overlayPainted[y][x];
     }
     
-    private boolean checkY(int y) {
-        return y >= 0 && y < height;
+    /**
+     * Damages all the layers over the given model cells, once the planes 
+     * covering them have changed.
+     */
+    void damagePlaneArea(int charX, int charY, int columns, int rows) {
+        int x = charX - viewportX;
+        int y = charY - viewportY;
+        
+        backgroundDamage.add(x, y, columns, rows);
+        textDamage.add(x, y, columns, rows);
+        overlayDamage.add(x, y, columns, rows);
+        latencyTracer.onModelWrite();
+    }
+    
+    /**
+     * Returns the topmost plane covering the model cell {@code (x, y)}, or 
+     * {@code null} if the cell of the model itself is visible.
+     */
+    private TextUIWindowPlane planeAt(int x, int y) {
+        TextUIWindowPlane[] currentPlanes = planes;
+        
+        for (int i = currentPlanes.length - 1; i >= 0; i--) {
+            if (currentPlanes[i].coversCell(x, y)) {
+                return currentPlanes[i];
+            }
+        }
+        
+        return null;
     }
     
-    private boolean checkXandY(int x, int y) {
-        return checkX(x) && checkY(y);
+    // The following accessors return the visible content of a valid model 
+    // cell, composed from the model and the planes over it:
+    
+    int compositeCharAt(int x, int y) {
+        TextUIWindowPlane plane = planeAt(x, y);
+        return plane == null ? model.charAt(x, y) : plane.charAt(x, y);
     }
     
-    private void setDefaultForegroundColors() {
-        for (Color[] colors : foregroundColorGrid) {
-            for (int i = 0; i < width; i++) {
-                colors[i] = DEFAULT_TEXT_FOREGROUND_COLOR;
-            }
+    Color compositeForegroundAt(int x, int y) {
+        TextUIWindowPlane plane = planeAt(x, y);
+        
+        return plane == null ? 
+                model.foregroundColorAt(x, y) :
+                plane.foregroundColorAt(x, y);
+    }
+    
+    Color compositeBackgroundAt(int x, int y) {
+        TextUIWindowPlane plane = planeAt(x, y);
+        
+        return plane == null ? 
+                model.backgroundColorAt(x, y) :
+                plane.backgroundColorAt(x, y);
+    }
+    
+    boolean compositeCursorAt(int x, int y) {
+        // A plane hides the cursor under it:
+        return model.cursorAt(x, y) && planeAt(x, y) == null;
+    }
+    
+    private boolean isModelCell(int modelX, int modelY) {
+        return modelX < model.getWidth() && modelY < model.getHeight();
+    }
+    
+    public Color getForegroundColor(int charX, int charY) {
+        return model.getForegroundColor(charX, charY);
+    }
+    
+    public Color getBackgroundColor(int charX, int charY) {
+        return model.getBackgroundColor(charX, charY);
+    }
+    
+    public void setForegroundColor(int charX, int charY, Color color) {
+        model.setForegroundColor(charX, charY, color);
+    }
+    
+    public void setBackgroundColor(int x, int y, Color color) {
+        model.setBackgroundColor(x, y, color);
+    }
+    
+    public char getChar(int charX, int charY) {
+        return model.getChar(charX, charY);
+    }
+    
+    public void setChar(int x, int y, char ch) {
+        model.setChar(x, y, ch);
+    }
+    
+    public void setCodePoint(int x, int y, int codePoint) {
+        model.setCodePoint(x, y, codePoint);
+    }
+    
+    public void setGrapheme(int x, int y, String grapheme) {
+        model.setGrapheme(x, y, grapheme);
+    }
+    
+    public String getGrapheme(int charX, int charY) {
+        return model.getGrapheme(charX, charY);
+    }
+    
+    public int getPreferredWidth() {
+        validateFontMetrics();
+        return viewportColumns * (fontCharWidth + charDelimiterLength);
+    }
+    
+    public int getPreferredHeight() {
+        validateFontMetrics();
+        return viewportRows * fontCharHeight;
+    }
+    
+    private void validateFontMetrics() {
+        if (fontMetricsDirty) {
+            rebuildFontMetrics();
         }
     }
+    
+    private void validateCanvasSize() {
+        validateFontMetrics();
         
-    private void setDefaultBackgroundColors() {
-        for (Color[] colors : backgroundColorGrid) {
-            for (int i = 0; i < width; i++) {
-                colors[i] = DEFAULT_TEXT_BACKGROUND_COLOR;
-            }
+        if (canvasSizeDirty) {
+            canvasSizeDirty = false;
+            
+            int width = viewportColumns * (fontCharWidth + charDelimiterLength);
+            int height = viewportRows * fontCharHeight;
+            
+            backgroundCanvas.setWidth(width);
+            backgroundCanvas.setHeight(height);
+            textCanvas.setWidth(width);
+            textCanvas.setHeight(height);
+            overlayCanvas.setWidth(width);
+            overlayCanvas.setHeight(height);
+            setPrefSize(width, height);
         }
     }
+    
+    private void rebuildFontMetrics() {
+        // Acquire before releasing, so that an entry shared with other windows
+        // is never evicted in between:
+        TextUIWindowFontPool.Entry previousFontEntry = fontEntry;
         
-    private void setChars() {
-        for (char[] charRow : charGrid) {
-            for (int i = 0; i < width; i++) {
-                charRow[i] = DEFAULT_CHAR;
-            }
+        fontEntry = TextUIWindowFontPool.acquire(FONT_NAME, 
+                                                 FontWeight.BOLD, 
+                                                 fontSize);
+        
+        if (previousFontEntry != null) {
+            TextUIWindowFontPool.release(previousFontEntry);
         }
+        
+        font = fontEntry.getFont();
+        fontCharWidth = fontEntry.getCharWidth() + charDelimiterLength;
+        fontCharHeight = fontEntry.getLineHeight();
+        fontAscent = fontEntry.getAscent();
+        fontMetricsDirty = false;
     }
     
-    private Font getFont() {
-        return Font.font(FONT_NAME, FontWeight.BOLD, fontSize);
+    /**
+     * Loads the fonts of the given sizes into the shared font pool in the 
+     * background, so that the windows created later start faster.
+     * 
+     * @param fontSizes the font sizes to load.
+     */
+    public static void prewarmFonts(int... fontSizes) {
+        TextUIWindowFontPool.prewarm(FONT_NAME, FontWeight.BOLD, fontSizes);
     }
     
-    private int getFontWidth() {
-        return (int) getFontMetrics().getCharWidth('C') + charDelimiterLength;
+    private static int checkFontSize(int fontSizeCandidate) {
+        if (fontSizeCandidate < MINIMUM_FONT_SIZE) {
+            throw new IllegalArgumentException(
+                    "Font size candidate is invalid (" 
+                            + fontSizeCandidate
+                            + "). Must be at least " 
+                            + MINIMUM_FONT_SIZE
+                            + ".");
+        }
+        
+        return fontSizeCandidate;
     }
     
-    private int getFontHeight() {
-        return (int) getFontMetrics().getLineHeight();
+    private int checkCharDelimiterLength(int charDelimiterLength) {
+        if (charDelimiterLength < 0) {
+            throw new IllegalArgumentException(
+                    "Char delimiter length negative: (" 
+                            + charDelimiterLength 
+                            + "). Must be at least 0.");
+        }
+        
+        return charDelimiterLength;
     }
 }
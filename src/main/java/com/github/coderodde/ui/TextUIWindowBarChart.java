@@ -0,0 +1,48 @@
+package com.github.coderodde.ui;
+
+/**
+ * This class implements a vertical bar chart drawn with the lower block
+ * elements. Each column shows one bucket of the buffer, the newest one at the
+ * right edge, at a resolution of eighths of a cell.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowBarChart extends TextUIWindowChart {
+    
+    // U+2581 is the lower one eighth block, U+2588 the full block:
+    private static final int LOWER_BLOCK = 0x2580;
+    private static final int EIGHTHS = 8;
+    
+    public TextUIWindowBarChart(TextUIWindow window,
+                                int charX,
+                                int charY,
+                                int columns,
+                                int rows,
+                                TextUIWindowSampleBuffer buffer) {
+        super(window, charX, charY, columns, rows, buffer);
+    }
+    
+    @Override
+    int cellAt(int x, int y, double minimum, double maximum) {
+        int bucket = buffer.size() - columns + x;
+        
+        if (bucket < 0) {
+            return ' ';
+        }
+        
+        int level = levelOf(buffer.get(bucket),
+                            minimum,
+                            maximum,
+                            rows * EIGHTHS);
+        
+        int eighths = level - (rows - 1 - y) * EIGHTHS;
+        
+        if (eighths <= 0) {
+            return ' ';
+        }
+        
+        return LOWER_BLOCK + Math.min(eighths, EIGHTHS);
+    }
+}
@@ -0,0 +1,258 @@
+package com.github.coderodde.ui;
+
+import java.util.Arrays;
+import java.util.Objects;
+import javafx.scene.paint.Color;
+
+/**
+ * This class is the base of the chart widgets drawing the buckets of a
+ * {@link TextUIWindowSampleBuffer} into a rectangle of cells of a
+ * {@link TextUIWindow}. The values are scaled to the range set by
+ * {@link #setRange(double, double)}, or to the minimum and the maximum of the
+ * buffer if no range is set.
+ * <p>
+ * {@link #render()} returns at once unless the buffer completed a bucket or
+ * the scale changed since the last call. Otherwise it computes the cell of
+ * each position of the chart and writes only those that differ from the ones
+ * written last, so a chart costs nothing per frame while its data is idle and
+ * allocates nothing while it is fed. A dashboard typically adds the samples
+ * of all its series and then renders them on the same thread, 10 times a
+ * second or so.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public abstract class TextUIWindowChart {
+    
+    final TextUIWindowSampleBuffer buffer;
+    final int columns;
+    final int rows;
+    
+    private final TextUIWindow window;
+    private final TextUIWindowModel model;
+    private final int charX;
+    private final int charY;
+    
+    // The code points written last, or -1 where unknown:
+    private final int[] shownCells;
+    
+    private double rangeMinimum = Double.NaN;
+    private double rangeMaximum = Double.NaN;
+    private Color foregroundColor = Color.LIMEGREEN;
+    private Color backgroundColor = Color.BLACK;
+    private long renderedBucketCount = -1L;
+    private int renderedSize = -1;
+    private double renderedMinimum;
+    private double renderedMaximum;
+    
+    TextUIWindowChart(TextUIWindow window,
+                      int charX,
+                      int charY,
+                      int columns,
+                      int rows,
+                      TextUIWindowSampleBuffer buffer) {
+        this.window = Objects.requireNonNull(window, "The window is null.");
+        this.buffer = Objects.requireNonNull(buffer, "The buffer is null.");
+        
+        if (charX < 0 || charY < 0) {
+            throw new IllegalArgumentException(
+                    "Chart position is invalid ("
+                            + charX
+                            + ", "
+                            + charY
+                            + "). Must be at least (0, 0).");
+        }
+        
+        if (columns < 1 || rows < 1) {
+            throw new IllegalArgumentException(
+                    "Chart size is invalid ("
+                            + columns
+                            + "x"
+                            + rows
+                            + "). Must be at least 1x1.");
+        }
+        
+        this.model = window.getModel();
+        this.charX = charX;
+        this.charY = charY;
+        this.columns = columns;
+        this.rows = rows;
+        this.shownCells = new int[columns * rows];
+        
+        Arrays.fill(shownCells, -1);
+    }
+    
+    public TextUIWindowSampleBuffer getBuffer() {
+        return buffer;
+    }
+    
+    public int getCharX() {
+        return charX;
+    }
+    
+    public int getCharY() {
+        return charY;
+    }
+    
+    public int getColumns() {
+        return columns;
+    }
+    
+    public int getRows() {
+        return rows;
+    }
+    
+    /**
+     * Fixes the values shown at the bottom and at the top of the chart.
+     * Values outside of the range are clamped.
+     *
+     * @param minimum the value at the bottom.
+     * @param maximum the value at the top.
+     */
+    public void setRange(double minimum, double maximum) {
+        if (!(minimum < maximum)) {
+            throw new IllegalArgumentException(
+                    "Range is invalid ("
+                            + minimum
+                            + ", "
+                            + maximum
+                            + "). Must be ascending.");
+        }
+        
+        rangeMinimum = minimum;
+        rangeMaximum = maximum;
+    }
+    
+    /**
+     * Scales the chart to the minimum and the maximum of the buffer.
+     */
+    public void clearRange() {
+        rangeMinimum = Double.NaN;
+        rangeMaximum = Double.NaN;
+    }
+    
+    public void setColors(Color foregroundColor, Color backgroundColor) {
+        this.foregroundColor =
+                Objects.requireNonNull(foregroundColor,
+                                       "The foreground color is null.");
+        this.backgroundColor =
+                Objects.requireNonNull(backgroundColor,
+                                       "The background color is null.");
+        invalidate();
+    }
+    
+    /**
+     * Makes the next {@link #render()} write every cell of the chart, for
+     * example after something else has drawn over it.
+     */
+    public void invalidate() {
+        Arrays.fill(shownCells, -1);
+        renderedBucketCount = -1L;
+    }
+    
+    /**
+     * Writes the cells of the chart that changed since the last call into the
+     * window model, and requests a repaint if any did.
+     *
+     * @return {@code true} if any cell was written.
+     */
+    public boolean render() {
+        long bucketCount = buffer.getBucketCount();
+        int size = buffer.size();
+        boolean ranged = !Double.isNaN(rangeMinimum);
+        double minimum = ranged ? rangeMinimum : buffer.getMinimum();
+        double maximum = ranged ? rangeMaximum : buffer.getMaximum();
+        
+        if (bucketCount == renderedBucketCount
+                && size == renderedSize
+                && Double.compare(minimum, renderedMinimum) == 0
+                && Double.compare(maximum, renderedMaximum) == 0) {
+            return false;
+        }
+        
+        renderedBucketCount = bucketCount;
+        renderedSize = size;
+        renderedMinimum = minimum;
+        renderedMaximum = maximum;
+        
+        Color savedForegroundColor = null;
+        Color savedBackgroundColor = null;
+        int savedForegroundSlot = -1;
+        int savedBackgroundSlot = -1;
+        boolean written = false;
+        
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < columns; x++) {
+                int cell = cellAt(x, y, minimum, maximum);
+                int index = y * columns + x;
+                
+                if (shownCells[index] == cell) {
+                    continue;
+                }
+                
+                if (!written) {
+                    savedForegroundColor = model.getTextForegroundColor();
+                    savedBackgroundColor = model.getTextBackgroundColor();
+                    savedForegroundSlot = model.getTextForegroundSlot();
+                    savedBackgroundSlot = model.getTextBackgroundSlot();
+                    model.setTextForegroundColor(foregroundColor);
+                    model.setTextBackgroundColor(backgroundColor);
+                    written = true;
+                }
+                
+                model.setCodePoint(charX + x, charY + y, cell);
+                shownCells[index] = cell;
+            }
+        }
+        
+        if (!written) {
+            return false;
+        }
+        
+        if (savedForegroundSlot >= 0) {
+            model.setTextForegroundSlot(savedForegroundSlot);
+        } else {
+            model.setTextForegroundColor(savedForegroundColor);
+        }
+        
+        if (savedBackgroundSlot >= 0) {
+            model.setTextBackgroundSlot(savedBackgroundSlot);
+        } else {
+            model.setTextBackgroundColor(savedBackgroundColor);
+        }
+        
+        window.requestRepaint();
+        return true;
+    }
+    
+    /**
+     * Returns the code point of the chart cell {@code (x, y)}, relative to
+     * the top left corner of the chart.
+     *
+     * @param x       the column within the chart.
+     * @param y       the row within the chart.
+     * @param minimum the value at the bottom of the scale, or {@code NaN} if
+     *                the buffer is empty.
+     * @param maximum the value at the top of the scale.
+     * @return the code point of the cell.
+     */
+    abstract int cellAt(int x, int y, double minimum, double maximum);
+    
+    /**
+     * Scales {@code value} to a level between 0 and {@code levels}. A flat
+     * scale puts every value in the middle.
+     */
+    static int levelOf(double value,
+                       double minimum,
+                       double maximum,
+                       int levels) {
+        if (!(maximum > minimum)) {
+            return levels / 2;
+        }
+        
+        double fraction = (value - minimum) / (maximum - minimum);
+        fraction = Math.max(0.0, Math.min(1.0, fraction));
+        return (int) Math.round(fraction * levels);
+    }
+}
@@ -0,0 +1,437 @@
+package com.github.coderodde.ui;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class implements an append-only console on top of a
+ * {@link TextUIWindow}, meant for tailing logs at high rates. Any number of
+ * threads may append text concurrently:
+ * <ul>
+ *   <li>Each thread collects its text in a batch of its own; full batches of
+ *       complete lines are handed over to the render thread through a
+ *       lock-free multi-producer queue. Lines lingering in the batch of an
+ *       idle thread are collected by the render thread on its next frame.</li>
+ *   <li>The render thread wraps the lines to the width of the model and keeps
+ *       them in a bounded scrollback ring.</li>
+ *   <li>Once per frame, the render thread writes only the finally visible
+ *       rows into the model, skipping the rows that have not changed, and
+ *       requests a single repaint; intermediate states are never drawn.</li>
+ * </ul>
+ * The view is pinned to the bottom, following the newest lines, until it is
+ * scrolled up with {@link #scrollBy(int)}; scrolling back to the bottom pins it
+ * again.
+ * <p>
+ * A line is shown once it is terminated by a newline; unterminated text waits
+ * in the batch of its thread.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowConsole implements Closeable, Flushable {
+    
+    public static final int DEFAULT_SCROLLBACK_ROWS = 10_000;
+    
+    private static final int BATCH_LINES = 256;
+    private static final int BATCH_CHARS = 16 * 1024;
+    private static final int TAB_WIDTH = 8;
+    
+    /**
+     * The text appended by a single thread and not yet handed over.
+     */
+    private static final class Batch {
+        
+        private final Thread owner = Thread.currentThread();
+        private final StringBuilder text = new StringBuilder();
+        // The length of the text up to and including its last newline:
+        private int completeLength;
+        private int completeLines;
+    }
+    
+    private final TextUIWindow window;
+    private final TextUIWindowModel model;
+    private final ThreadLocal<Batch> batches =
+            ThreadLocal.withInitial(this::registerBatch);
+    
+    private final List<Batch> batchList = new CopyOnWriteArrayList<>();
+    private final Queue<String> chunks = new ConcurrentLinkedQueue<>();
+    private final AtomicLong appendedLines = new AtomicLong();
+    private final AtomicInteger pendingScroll = new AtomicInteger();
+    private final AtomicBoolean renderRequested = new AtomicBoolean();
+    private final Thread renderThread;
+    private volatile boolean doRun = true;
+    private volatile boolean pinnedToBottom = true;
+    private volatile long renderedFrames;
+    
+    // Accessed by the render thread only. The scrollback is a ring of rows;
+    // rows are numbered from the first row ever appended:
+    private final String[] rows;
+    private final int[] rowColumns;
+    private int firstRowIndex;
+    private int rowCount;
+    private long totalRows;
+    private long topRow;
+    private String[] shownRows = new String[0];
+    
+    public TextUIWindowConsole(TextUIWindow window) {
+        this(window, DEFAULT_SCROLLBACK_ROWS);
+    }
+    
+    public TextUIWindowConsole(TextUIWindow window, int scrollbackRows) {
+        this.window = Objects.requireNonNull(window, "The window is null.");
+        this.model = window.getModel();
+        
+        if (scrollbackRows < 1) {
+            throw new IllegalArgumentException(
+                    "Scrollback rows is invalid ("
+                            + scrollbackRows
+                            + "). Must be at least 1.");
+        }
+        
+        this.rows = new String[scrollbackRows];
+        this.rowColumns = new int[scrollbackRows];
+        this.renderThread = new Thread(this::renderFrames,
+                                       "TextUIWindowConsole");
+        this.renderThread.setDaemon(true);
+        this.renderThread.start();
+    }
+    
+    /**
+     * Appends {@code text}, which may contain any number of lines.
+     *
+     * @param text the text to append.
+     */
+    public void append(CharSequence text) {
+        Objects.requireNonNull(text, "The text is null.");
+        append(text, false);
+    }
+    
+    /**
+     * Appends {@code line} followed by a newline.
+     *
+     * @param line the line to append.
+     */
+    public void appendLine(CharSequence line) {
+        Objects.requireNonNull(line, "The line is null.");
+        append(line, true);
+    }
+    
+    /**
+     * Hands the complete lines appended by the calling thread over to the
+     * render thread right away.
+     */
+    @Override
+    public void flush() {
+        Batch batch = batches.get();
+        
+        synchronized (batch) {
+            publish(batch);
+        }
+        
+        LockSupport.unpark(renderThread);
+    }
+    
+    /**
+     * Scrolls the view by {@code rows} rows; negative values scroll towards
+     * the older lines. Scrolling up unpins the view from the bottom, reaching
+     * the bottom pins it again.
+     *
+     * @param rows the number of rows to scroll by.
+     */
+    public void scrollBy(int rows) {
+        pendingScroll.addAndGet(rows);
+        requestRender();
+    }
+    
+    public void scrollToBottom() {
+        pendingScroll.set(0);
+        pinnedToBottom = true;
+        requestRender();
+    }
+    
+    public boolean isPinnedToBottom() {
+        return pinnedToBottom;
+    }
+    
+    /**
+     * Returns the number of lines handed over to the render thread so far.
+     *
+     * @return the number of appended lines.
+     */
+    public long getAppendedLines() {
+        return appendedLines.get();
+    }
+    
+    /**
+     * Returns the number of frames written into the model. Many appended
+     * lines are usually collapsed into a single frame.
+     *
+     * @return the number of rendered frames.
+     */
+    public long getRenderedFrames() {
+        return renderedFrames;
+    }
+    
+    /**
+     * Stops the render thread. The lines not shown by now are discarded.
+     */
+    @Override
+    public void close() {
+        doRun = false;
+        LockSupport.unpark(renderThread);
+        
+        try {
+            renderThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private Batch registerBatch() {
+        Batch batch = new Batch();
+        batchList.add(batch);
+        return batch;
+    }
+    
+    private void append(CharSequence text, boolean terminate) {
+        Batch batch = batches.get();
+        
+        synchronized (batch) {
+            StringBuilder batchText = batch.text;
+            int start = batchText.length();
+            
+            batchText.append(text);
+            
+            if (terminate) {
+                batchText.append('\n');
+            }
+            
+            for (int i = start; i < batchText.length(); i++) {
+                if (batchText.charAt(i) == '\n') {
+                    batch.completeLength = i + 1;
+                    batch.completeLines++;
+                }
+            }
+            
+            if (batch.completeLines >= BATCH_LINES
+                    || batch.completeLength >= BATCH_CHARS) {
+                publish(batch);
+            }
+        }
+    }
+    
+    /**
+     * Moves the complete lines of {@code batch} to the queue of the render
+     * thread. The caller holds the lock of the batch.
+     */
+    private void publish(Batch batch) {
+        if (batch.completeLength == 0) {
+            return;
+        }
+        
+        chunks.add(batch.text.substring(0, batch.completeLength));
+        batch.text.delete(0, batch.completeLength);
+        appendedLines.addAndGet(batch.completeLines);
+        batch.completeLength = 0;
+        batch.completeLines = 0;
+    }
+    
+    private void requestRender() {
+        renderRequested.set(true);
+        LockSupport.unpark(renderThread);
+    }
+    
+    private void renderFrames() {
+        while (doRun) {
+            LockSupport.parkNanos(
+                    1_000_000_000L / window.getTargetFramesPerSecond());
+            
+            collectIdleBatches();
+            
+            boolean changed = drainChunks();
+            int scroll = pendingScroll.getAndSet(0);
+            
+            if (scroll != 0) {
+                scroll(scroll);
+                changed = true;
+            }
+            
+            if (renderRequested.getAndSet(false)) {
+                changed = true;
+            }
+            
+            if (changed) {
+                render();
+            }
+        }
+    }
+    
+    private void collectIdleBatches() {
+        for (Batch batch : batchList) {
+            synchronized (batch) {
+                publish(batch);
+                
+                if (batch.text.length() == 0 && !batch.owner.isAlive()) {
+                    batchList.remove(batch);
+                }
+            }
+        }
+    }
+    
+    private boolean drainChunks() {
+        boolean drained = false;
+        String chunk;
+        
+        while ((chunk = chunks.poll()) != null) {
+            int start = 0;
+            int end;
+            
+            while ((end = chunk.indexOf('\n', start)) >= 0) {
+                addLine(chunk, start, end);
+                start = end + 1;
+            }
+            
+            drained = true;
+        }
+        
+        return drained;
+    }
+    
+    /**
+     * Wraps {@code text.substring(start, end)} into rows of the model width.
+     */
+    private void addLine(String text, int start, int end) {
+        if (end > start && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        
+        String line = text.substring(start, end);
+        
+        if (line.indexOf('\t') >= 0) {
+            line = expandTabs(line);
+        }
+        
+        int width = model.getWidth();
+        int rowStart = 0;
+        int columns = 0;
+        int i = 0;
+        
+        while (i < line.length()) {
+            int codePoint = line.codePointAt(i);
+            int codePointColumns = 
+                    TextUIWindowGraphemes.getCodePointColumns(codePoint);
+            
+            if (columns + codePointColumns > width && columns > 0) {
+                addRow(line.substring(rowStart, i), columns);
+                rowStart = i;
+                columns = 0;
+            }
+            
+            columns += codePointColumns;
+            i += Character.charCount(codePoint);
+        }
+        
+        addRow(rowStart == 0 ? line : line.substring(rowStart), columns);
+    }
+    
+    private void addRow(String row, int columns) {
+        int capacity = rows.length;
+        int index;
+        
+        if (rowCount < capacity) {
+            index = (firstRowIndex + rowCount) % capacity;
+            rowCount++;
+        } else {
+            // Evict the oldest row:
+            index = firstRowIndex;
+            firstRowIndex = (firstRowIndex + 1) % capacity;
+        }
+        
+        rows[index] = row;
+        rowColumns[index] = columns;
+        totalRows++;
+    }
+    
+    private void scroll(int delta) {
+        int height = model.getHeight();
+        
+        if (pinnedToBottom) {
+            topRow = getBottomTopRow(height);
+        }
+        
+        topRow = clampTopRow(topRow + delta, height);
+        pinnedToBottom = topRow == getBottomTopRow(height);
+    }
+    
+    private void render() {
+        int height = model.getHeight();
+        
+        if (shownRows.length != height) {
+            shownRows = new String[height];
+        }
+        
+        long top = pinnedToBottom ?
+                getBottomTopRow(height) :
+                clampTopRow(topRow, height);
+        
+        for (int y = 0; y < height; y++) {
+            long rowNumber = top + y;
+            String row = "";
+            int columns = 0;
+            
+            if (rowNumber < totalRows) {
+                int index = (int) ((firstRowIndex + rowNumber
+                        - (totalRows - rowCount)) % rows.length);
+                
+                row = rows[index];
+                columns = rowColumns[index];
+            }
+            
+            if (row != shownRows[y]) {
+                model.printString(0, y, row);
+                model.clearToEndOfRow(columns, y);
+                shownRows[y] = row;
+            }
+        }
+        
+        renderedFrames++;
+        window.requestRepaint();
+    }
+    
+    private long getBottomTopRow(int height) {
+        return Math.max(totalRows - rowCount, totalRows - height);
+    }
+    
+    private long clampTopRow(long candidate, int height) {
+        return Math.max(totalRows - rowCount,
+                        Math.min(candidate, getBottomTopRow(height)));
+    }
+    
+    private static String expandTabs(String line) {
+        StringBuilder sb = new StringBuilder(line.length() + TAB_WIDTH);
+        
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            
+            if (ch == '\t') {
+                do {
+                    sb.append(' ');
+                } while (sb.length() % TAB_WIDTH != 0);
+            } else {
+                sb.append(ch);
+            }
+        }
+        
+        return sb.toString();
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.coderodde.ui;
+
+import java.util.Arrays;
+
+/**
+ * This class tracks the damaged (changed since the last repaint) cells of a
+ * view as one column span per row. Damage may be added from any thread; it is
+ * drained by the painting thread, which then reads the drained spans without
+ * locking until the next drain.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowDamage {
+    
+    private int columns;
+    private int rows;
+    private boolean damaged;
+    
+    // The spans collected since the last drain:
+    private int[] dirtyFrom;
+    private int[] dirtyTo;
+    
+    // The spans returned by the last drain:
+    private int[] drainedFrom;
+    private int[] drainedTo;
+    private int drainedColumns;
+    private int drainedRows;
+    
+    TextUIWindowDamage(int columns, int rows) {
+        resize(columns, rows);
+    }
+    
+    /**
+     * Resizes this damage tracker and marks everything as damaged.
+     */
+    synchronized void resize(int columns, int rows) {
+        this.columns = columns;
+        this.rows = rows;
+        
+        if (dirtyFrom == null || dirtyFrom.length < rows) {
+            dirtyFrom = new int[rows];
+            dirtyTo = new int[rows];
+            drainedFrom = new int[rows];
+            drainedTo = new int[rows];
+        }
+        
+        addAll();
+    }
+    
+    synchronized void addAll() {
+        Arrays.fill(dirtyFrom, 0, rows, 0);
+        Arrays.fill(dirtyTo, 0, rows, columns);
+        damaged = true;
+    }
+    
+    synchronized void add(int x, int y, int width, int height) {
+        int fromX = Math.max(0, x);
+        int toX = Math.min(columns, x + width);
+        int fromY = Math.max(0, y);
+        int toY = Math.min(rows, y + height);
+        
+        if (fromX >= toX || fromY >= toY) {
+            return;
+        }
+        
+        for (int row = fromY; row < toY; row++) {
+            if (dirtyFrom[row] >= dirtyTo[row]) {
+                dirtyFrom[row] = fromX;
+                dirtyTo[row] = toX;
+            } else {
+                dirtyFrom[row] = Math.min(dirtyFrom[row], fromX);
+                dirtyTo[row] = Math.max(dirtyTo[row], toX);
+            }
+        }
+        
+        damaged = true;
+    }
+    
+    synchronized boolean isDamaged() {
+        return damaged;
+    }
+    
+    /**
+     * Moves the collected damage to the drained spans and clears the
+     * collected damage.
+     *
+     * @return {@code true} if there was any damage.
+     */
+    synchronized boolean drain() {
+        if (!damaged) {
+            return false;
+        }
+        
+        int[] tmp = drainedFrom;
+        drainedFrom = dirtyFrom;
+        dirtyFrom = tmp;
+        
+        tmp = drainedTo;
+        drainedTo = dirtyTo;
+        dirtyTo = tmp;
+        
+        Arrays.fill(dirtyFrom, 0);
+        Arrays.fill(dirtyTo, 0);
+        drainedColumns = columns;
+        drainedRows = rows;
+        damaged = false;
+        return true;
+    }
+    
+    int getDrainedColumns() {
+        return drainedColumns;
+    }
+    
+    int getDrainedRows() {
+        return drainedRows;
+    }
+    
+    int getDrainedFrom(int row) {
+        return drainedFrom[row];
+    }
+    
+    int getDrainedTo(int row) {
+        return drainedTo[row];
+    }
+}
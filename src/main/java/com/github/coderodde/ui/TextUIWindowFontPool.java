@@ -0,0 +1,332 @@
+package com.github.coderodde.ui;
+
+import com.sun.javafx.tk.FontMetrics;
+import com.sun.javafx.tk.Toolkit;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+
+/**
+ * This class implements the process-wide pool of the fonts and font metrics
+ * used by {@link TextUIWindow}s. Loading a font and measuring it goes through
+ * the toolkit font loader, which is slow compared to a map lookup; with the
+ * pool, windows using the same font family, weight and size share one
+ * {@link Entry} and the work is done only once.
+ * <p>
+ * Entries are reference counted. An entry nobody holds stays in the pool as an
+ * idle entry, so that a window changing its font size back and forth does not
+ * reload the font; the least recently used idle entries are evicted once there
+ * are more than {@link #getMaximumIdleEntries()} of them.
+ * <p>
+ * All the methods are thread-safe. Loading happens outside the pool lock, so a
+ * slow load does not block the lookups of other fonts.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowFontPool {
+    
+    /**
+     * The default number of idle entries kept in the pool.
+     */
+    public static final int DEFAULT_MAXIMUM_IDLE_ENTRIES = 16;
+    
+    /**
+     * A font together with the metrics {@link TextUIWindow} needs.
+     */
+    public static final class Entry {
+        
+        private final String key;
+        private final String family;
+        private final FontWeight weight;
+        private final int size;
+        private int referenceCount;
+        private volatile boolean loaded;
+        private Font font;
+        private int charWidth;
+        private int lineHeight;
+        private int ascent;
+        
+        // The glyph masks of each cell geometry the font is rasterized into;
+        // guarded by this entry:
+        private final List<TextUIWindowGlyphMasks> glyphMasks =
+                new ArrayList<>(1);
+        
+        private Entry(String key, String family, FontWeight weight, int size) {
+            this.key = key;
+            this.family = family;
+            this.weight = weight;
+            this.size = size;
+        }
+        
+        public String getFamily() {
+            return family;
+        }
+        
+        public FontWeight getWeight() {
+            return weight;
+        }
+        
+        public int getSize() {
+            return size;
+        }
+        
+        public Font getFont() {
+            return font;
+        }
+        
+        /**
+         * Returns the advance width of a character, not including any gap
+         * between characters.
+         *
+         * @return the character width in pixels.
+         */
+        public int getCharWidth() {
+            return charWidth;
+        }
+        
+        public int getLineHeight() {
+            return lineHeight;
+        }
+        
+        public int getAscent() {
+            return ascent;
+        }
+        
+        /**
+         * Returns the glyph mask cache of the font rasterized into cells of
+         * the given geometry, shared by all the windows using this entry.
+         */
+        synchronized TextUIWindowGlyphMasks getGlyphMasks(int cellWidth,
+                                                          int cellHeight,
+                                                          int glyphX,
+                                                          int glyphBaselineY) {
+            for (TextUIWindowGlyphMasks masks : glyphMasks) {
+                if (masks.hasGeometry(cellWidth,
+                                      cellHeight,
+                                      glyphX,
+                                      glyphBaselineY)) {
+                    return masks;
+                }
+            }
+            
+            TextUIWindowGlyphMasks masks =
+                    new TextUIWindowGlyphMasks(cellWidth,
+                                               cellHeight,
+                                               glyphX,
+                                               glyphBaselineY);
+            
+            glyphMasks.add(masks);
+            return masks;
+        }
+        
+        private void load() {
+            if (loaded) {
+                return;
+            }
+            
+            synchronized (this) {
+                if (loaded) {
+                    return;
+                }
+                
+                Font font = Font.font(family, weight, size);
+                FontMetrics fontMetrics =
+                        Toolkit.getToolkit()
+                               .getFontLoader()
+                               .getFontMetrics(font);
+                
+                this.font = font;
+                this.charWidth = (int) fontMetrics.getCharWidth('C');
+                this.lineHeight = (int) fontMetrics.getLineHeight();
+                this.ascent = (int) fontMetrics.getMaxAscent();
+                this.loaded = true;
+            }
+        }
+    }
+    
+    // Access ordered, so that iteration visits the least recently used
+    // entries first:
+    private static final Map<String, Entry> ENTRIES =
+            new LinkedHashMap<>(16, 0.75f, true);
+    
+    private static int maximumIdleEntries = DEFAULT_MAXIMUM_IDLE_ENTRIES;
+    private static int idleEntries;
+    
+    private TextUIWindowFontPool() {
+        
+    }
+    
+    /**
+     * Returns the entry of the given font, loading it if it is not pooled yet,
+     * and increments its reference count. Each call must be matched by a call
+     * to {@link #release(Entry)}.
+     *
+     * @param family the font family.
+     * @param weight the font weight.
+     * @param size   the font size.
+     * @return the pooled entry.
+     */
+    public static Entry acquire(String family, FontWeight weight, int size) {
+        Objects.requireNonNull(family, "The font family is null.");
+        Objects.requireNonNull(weight, "The font weight is null.");
+        
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                    "Font size is invalid (" + size + "). Must be at least 1.");
+        }
+        
+        Entry entry;
+        
+        synchronized (ENTRIES) {
+            entry = getOrCreateEntry(family, weight, size);
+            
+            if (entry.referenceCount++ == 0) {
+                idleEntries--;
+            }
+        }
+        
+        try {
+            entry.load();
+        } catch (RuntimeException ex) {
+            release(entry);
+            throw ex;
+        }
+        
+        return entry;
+    }
+    
+    /**
+     * Decrements the reference count of {@code entry}. Once no one holds the
+     * entry, it becomes idle and may be evicted.
+     *
+     * @param entry the entry to release.
+     */
+    public static void release(Entry entry) {
+        Objects.requireNonNull(entry, "The entry is null.");
+        
+        synchronized (ENTRIES) {
+            if (entry.referenceCount == 0) {
+                throw new IllegalStateException(
+                        "The font entry " + entry.key + " is not acquired.");
+            }
+            
+            if (--entry.referenceCount == 0) {
+                idleEntries++;
+                evictIdleEntries();
+            }
+        }
+    }
+    
+    /**
+     * Loads the given font sizes in a background daemon thread, so that the
+     * windows created later find them in the pool. The loaded entries start
+     * out idle. Failures are ignored; a failed size is simply loaded again
+     * when first acquired.
+     *
+     * @param family the font family.
+     * @param weight the font weight.
+     * @param sizes  the font sizes to load.
+     */
+    public static void prewarm(String family, FontWeight weight, int... sizes) {
+        Objects.requireNonNull(family, "The font family is null.");
+        Objects.requireNonNull(weight, "The font weight is null.");
+        Objects.requireNonNull(sizes, "The font sizes are null.");
+        
+        int[] sizesCopy = sizes.clone();
+        
+        Thread thread = new Thread(() -> {
+            for (int size : sizesCopy) {
+                try {
+                    release(acquire(family, weight, size));
+                } catch (RuntimeException ex) {
+                    // Prewarming is best effort only.
+                }
+            }
+        }, "TextUIWindowFontPool-prewarm");
+        
+        thread.setDaemon(true);
+        thread.start();
+    }
+    
+    public static int getMaximumIdleEntries() {
+        synchronized (ENTRIES) {
+            return maximumIdleEntries;
+        }
+    }
+    
+    public static void setMaximumIdleEntries(int maximumIdleEntries) {
+        if (maximumIdleEntries < 0) {
+            throw new IllegalArgumentException(
+                    "Maximum idle entries is negative ("
+                            + maximumIdleEntries
+                            + "). Must be at least 0.");
+        }
+        
+        synchronized (ENTRIES) {
+            TextUIWindowFontPool.maximumIdleEntries = maximumIdleEntries;
+            evictIdleEntries();
+        }
+    }
+    
+    /**
+     * Returns the number of pooled entries, including the idle ones.
+     *
+     * @return the number of entries.
+     */
+    public static int getEntryCount() {
+        synchronized (ENTRIES) {
+            return ENTRIES.size();
+        }
+    }
+    
+    public static int getIdleEntryCount() {
+        synchronized (ENTRIES) {
+            return idleEntries;
+        }
+    }
+    
+    /**
+     * Returns the keys of the pooled entries, least recently used first.
+     * Meant for diagnostics.
+     *
+     * @return the entry keys.
+     */
+    public static List<String> getEntryKeys() {
+        synchronized (ENTRIES) {
+            return new ArrayList<>(ENTRIES.keySet());
+        }
+    }
+    
+    private static Entry getOrCreateEntry(String family,
+                                          FontWeight weight,
+                                          int size) {
+        String key = family + "/" + weight + "/" + size;
+        Entry entry = ENTRIES.get(key);
+        
+        if (entry == null) {
+            entry = new Entry(key, family, weight, size);
+            ENTRIES.put(key, entry);
+            idleEntries++;
+        }
+        
+        return entry;
+    }
+    
+    private static void evictIdleEntries() {
+        Iterator<Entry> iterator = ENTRIES.values().iterator();
+        
+        while (idleEntries > maximumIdleEntries && iterator.hasNext()) {
+            if (iterator.next().referenceCount == 0) {
+                iterator.remove();
+                idleEntries--;
+            }
+        }
+    }
+}
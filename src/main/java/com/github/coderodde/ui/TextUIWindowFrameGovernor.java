@@ -0,0 +1,114 @@
+package com.github.coderodde.ui;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+
+/**
+ * This class paces the repaints of a {@link TextUIWindow}. Repaint requests
+ * may come from any thread at any rate; they are coalesced so that at most one
+ * frame is pending, and the pending frame is painted on the next JavaFX pulse
+ * at least one frame interval after the previous frame. A producer updating
+ * the model faster than the target frame rate thus never floods the JavaFX
+ * event queue. The timer runs only while a frame is pending.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowFrameGovernor {
+    
+    private final TextUIWindow window;
+    private final TextUIWindowRenderTimings renderTimings;
+    private final AtomicBoolean framePending = new AtomicBoolean();
+    private final AtomicBoolean timerRunning = new AtomicBoolean();
+    private final AtomicLong frameRequestNanos = new AtomicLong();
+    private final Runnable startTimer = this::startTimer;
+    private volatile long frameIntervalNanos;
+    private long lastFrameNanos;
+    
+    private final AnimationTimer timer = new AnimationTimer() {
+        
+        @Override
+        public void handle(long now) {
+            paintFrame(now);
+        }
+    };
+    
+    TextUIWindowFrameGovernor(TextUIWindow window, 
+                              TextUIWindowRenderTimings renderTimings,
+                              int targetFramesPerSecond) {
+        this.window = window;
+        this.renderTimings = renderTimings;
+        setTargetFramesPerSecond(targetFramesPerSecond);
+    }
+    
+    void setTargetFramesPerSecond(int targetFramesPerSecond) {
+        frameIntervalNanos = 1_000_000_000L / targetFramesPerSecond;
+    }
+    
+    long getFrameIntervalNanos() {
+        return frameIntervalNanos;
+    }
+    
+    /**
+     * Requests a frame. May be called from any thread. A request made while a
+     * frame is already pending is merged into it and counted as a dropped 
+     * frame.
+     */
+    void requestFrame() {
+        if (framePending.getAndSet(true)) {
+            renderTimings.recordDroppedFrame();
+            return;
+        }
+        
+        frameRequestNanos.set(System.nanoTime());
+        
+        if (timerRunning.compareAndSet(false, true)) {
+            Platform.runLater(startTimer);
+        }
+    }
+    
+    void stop() {
+        timer.stop();
+        timerRunning.set(false);
+    }
+    
+    private void startTimer() {
+        timer.start();
+    }
+    
+    private void paintFrame(long now) {
+        long frameIntervalNanos = this.frameIntervalNanos;
+        
+        if (now - lastFrameNanos < frameIntervalNanos) {
+            // Too early; wait for a later pulse:
+            return;
+        }
+        
+        if (framePending.getAndSet(false)) {
+            // The frame was due on its request, or one interval after the
+            // previous frame, whichever is later:
+            long dueNanos = Math.max(frameRequestNanos.get(), 
+                                     lastFrameNanos + frameIntervalNanos);
+            
+            if (now - dueNanos > frameIntervalNanos) {
+                renderTimings.recordLateFrame();
+            }
+            
+            lastFrameNanos = now;
+            window.repaint();
+        }
+        
+        if (!framePending.get()) {
+            timer.stop();
+            timerRunning.set(false);
+            
+            // A request may have slipped in before the timer was stopped:
+            if (framePending.get() && timerRunning.compareAndSet(false, true)) {
+                timer.start();
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.coderodde.ui;
+
+/**
+ * This class implements a horizontal gauge showing the newest bucket of its
+ * buffer as a bar drawn with the left block elements, at a resolution of
+ * eighths of a cell. The gauge may also print the value as a percentage of
+ * the scale at its right end.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowGauge extends TextUIWindowChart {
+    
+    // U+258F is the left one eighth block, U+2588 the full block:
+    private static final int LEFT_BLOCK = 0x2590;
+    private static final int EIGHTHS = 8;
+    
+    // The width of "100%":
+    private static final int PERCENTAGE_COLUMNS = 4;
+    
+    private boolean percentageVisible;
+    
+    public TextUIWindowGauge(TextUIWindow window,
+                             int charX,
+                             int charY,
+                             int columns,
+                             int rows,
+                             TextUIWindowSampleBuffer buffer) {
+        super(window, charX, charY, columns, rows, buffer);
+    }
+    
+    public boolean isPercentageVisible() {
+        return percentageVisible;
+    }
+    
+    /**
+     * Selects whether the percentage is printed over the right end of the
+     * middle row. The gauge must be wider than the percentage.
+     *
+     * @param percentageVisible whether to print the percentage.
+     */
+    public void setPercentageVisible(boolean percentageVisible) {
+        this.percentageVisible = percentageVisible;
+        invalidate();
+    }
+    
+    @Override
+    int cellAt(int x, int y, double minimum, double maximum) {
+        double value = buffer.getLast();
+        
+        if (Double.isNaN(value)) {
+            return ' ';
+        }
+        
+        int labelX = x - (columns - PERCENTAGE_COLUMNS);
+        
+        if (percentageVisible
+                && columns > PERCENTAGE_COLUMNS
+                && y == rows / 2
+                && labelX >= 0) {
+            return percentageCharAt(labelX,
+                                    levelOf(value, minimum, maximum, 100));
+        }
+        
+        int level = levelOf(value, minimum, maximum, columns * EIGHTHS);
+        int eighths = level - x * EIGHTHS;
+        
+        if (eighths <= 0) {
+            return ' ';
+        }
+        
+        return LEFT_BLOCK - Math.min(eighths, EIGHTHS);
+    }
+    
+    /**
+     * Returns the character at {@code index} of the percentage right-aligned
+     * in {@link #PERCENTAGE_COLUMNS} cells.
+     */
+    private static int percentageCharAt(int index, int percentage) {
+        switch (index) {
+            case 3:
+                return '%';
+            
+            case 2:
+                return '0' + percentage % 10;
+            
+            case 1:
+                return percentage >= 10 ? '0' + percentage / 10 % 10 : ' ';
+            
+            default:
+                return percentage >= 100 ? '0' + percentage / 100 : ' ';
+        }
+    }
+}
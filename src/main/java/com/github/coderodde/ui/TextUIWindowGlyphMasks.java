@@ -0,0 +1,153 @@
+package com.github.coderodde.ui;
+
+import java.util.Arrays;
+
+/**
+ * This class implements the cache of the glyph alpha masks of a font
+ * rasterized into cells of one geometry. It is owned by a
+ * {@link TextUIWindowFontPool.Entry}, so all the windows of the same font and
+ * cell geometry share the masks and snapshot each glyph only once.
+ * <p>
+ * The masks are kept in an open addressing table keyed by the {@code int}
+ * cell values, so a lookup neither boxes its key nor takes a lock. The masks
+ * are added on the JavaFX application thread, which alone may snapshot the
+ * glyphs; they may be looked up from any thread. A mask added before a
+ * rasterization task is submitted is visible to the task.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowGlyphMasks {
+    
+    // Never a key, as a wide continuation has no glyph of its own:
+    private static final int EMPTY_KEY =
+            TextUIWindowGraphemes.WIDE_CONTINUATION;
+    
+    private static final int INITIAL_CAPACITY = 256;
+    
+    private final int cellWidth;
+    private final int cellHeight;
+    private final int glyphX;
+    private final int glyphBaselineY;
+    
+    // Replaced as a whole when growing, so a lookup always probes a table
+    // whose keys and masks match:
+    private volatile Table table = new Table(INITIAL_CAPACITY);
+    
+    // Guarded by this object:
+    private int size;
+    
+    TextUIWindowGlyphMasks(int cellWidth,
+                           int cellHeight,
+                           int glyphX,
+                           int glyphBaselineY) {
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.glyphX = glyphX;
+        this.glyphBaselineY = glyphBaselineY;
+    }
+    
+    boolean hasGeometry(int cellWidth,
+                        int cellHeight,
+                        int glyphX,
+                        int glyphBaselineY) {
+        return cellWidth == this.cellWidth
+                && cellHeight == this.cellHeight
+                && glyphX == this.glyphX
+                && glyphBaselineY == this.glyphBaselineY;
+    }
+    
+    /**
+     * Returns the mask of {@code cellValue}, or {@code null} if it is not
+     * cached.
+     *
+     * @param cellValue the cell value.
+     * @return the mask or {@code null}.
+     */
+    byte[] get(int cellValue) {
+        Table table = this.table;
+        int indexMask = table.keys.length - 1;
+        
+        for (int index = indexOf(cellValue, indexMask);;
+                index = (index + 1) & indexMask) {
+            int key = table.keys[index];
+            
+            if (key == cellValue) {
+                return table.masks[index];
+            }
+            
+            if (key == EMPTY_KEY) {
+                return null;
+            }
+        }
+    }
+    
+    synchronized void put(int cellValue, byte[] glyphMask) {
+        Table table = this.table;
+        
+        if (2 * (size + 1) > table.keys.length) {
+            table = grow(table);
+        }
+        
+        if (insert(table, cellValue, glyphMask)) {
+            size++;
+        }
+    }
+    
+    private Table grow(Table table) {
+        Table grown = new Table(2 * table.keys.length);
+        
+        for (int i = 0; i < table.keys.length; i++) {
+            if (table.keys[i] != EMPTY_KEY) {
+                insert(grown, table.keys[i], table.masks[i]);
+            }
+        }
+        
+        this.table = grown;
+        return grown;
+    }
+    
+    /**
+     * Stores the mask before the key, so that a lookup finding the key on
+     * another thread sees either the mask or {@code null}.
+     */
+    private static boolean insert(Table table,
+                                  int cellValue,
+                                  byte[] glyphMask) {
+        int indexMask = table.keys.length - 1;
+        
+        for (int index = indexOf(cellValue, indexMask);;
+                index = (index + 1) & indexMask) {
+            int key = table.keys[index];
+            
+            if (key == cellValue) {
+                table.masks[index] = glyphMask;
+                return false;
+            }
+            
+            if (key == EMPTY_KEY) {
+                table.masks[index] = glyphMask;
+                table.keys[index] = cellValue;
+                return true;
+            }
+        }
+    }
+    
+    private static int indexOf(int cellValue, int indexMask) {
+        int hash = cellValue * 0x9e3779b9;
+        return (hash ^ hash >>> 16) & indexMask;
+    }
+    
+    private static final class Table {
+        
+        final int[] keys;
+        final byte[][] masks;
+        
+        Table(int capacity) {
+            this.keys = new int[capacity];
+            this.masks = new byte[capacity][];
+            Arrays.fill(keys, EMPTY_KEY);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.github.coderodde.ui;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class implements the process-wide grapheme cluster table and the cell
+ * value encoding of {@link TextUIWindowModel}.
+ * <p>
+ * A cell holds a single {@code int}:
+ * <ul>
+ *   <li>a non-negative value is a Unicode code point,</li>
+ *   <li>{@link #WIDE_CONTINUATION} marks the right half of a wide (two column)
+ *       character whose left half is in the cell to the left,</li>
+ *   <li>any other negative value {@code v} refers to the interned grapheme
+ *       cluster (for example, a base character with combining marks, or an
+ *       emoji sequence) with the ID {@code -1 - v}.</li>
+ * </ul>
+ * This keeps the cell storage a primitive array and no cell ever allocates an
+ * object of its own.
+ * <p>
+ * The table holds at most {@link #MAXIMUM_GRAPHEMES} clusters and never
+ * forgets one; once it is full, new clusters are stored as
+ * {@link #REPLACEMENT_CHARACTER}. Reading the text of a cell takes no lock.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowGraphemes {
+    
+    /**
+     * The cell value of the right half of a wide character.
+     */
+    public static final int WIDE_CONTINUATION = Integer.MIN_VALUE;
+    
+    /**
+     * The code point shown for the clusters that do not fit into the table.
+     */
+    public static final int REPLACEMENT_CHARACTER = 0xfffd;
+    
+    /**
+     * The maximum number of interned grapheme clusters.
+     */
+    public static final int MAXIMUM_GRAPHEMES = 1 << 16;
+    
+    private static final int EMOJI_PRESENTATION_SELECTOR = 0xfe0f;
+    
+    // Sorted, inclusive ranges of the code points occupying two columns
+    // (East Asian Wide and Fullwidth, and the most common emoji blocks):
+    private static final int[] WIDE_RANGES = {
+        0x1100,  0x115f,
+        0x231a,  0x231b,
+        0x2329,  0x232a,
+        0x23e9,  0x23ec,
+        0x2e80,  0x303e,
+        0x3041,  0x33ff,
+        0x3400,  0x4dbf,
+        0x4e00,  0x9fff,
+        0xa000,  0xa4cf,
+        0xa960,  0xa97f,
+        0xac00,  0xd7a3,
+        0xf900,  0xfaff,
+        0xfe10,  0xfe19,
+        0xfe30,  0xfe6f,
+        0xff00,  0xff60,
+        0xffe0,  0xffe6,
+        0x1f004, 0x1f004,
+        0x1f0cf, 0x1f0cf,
+        0x1f18e, 0x1f18e,
+        0x1f191, 0x1f19a,
+        0x1f200, 0x1f251,
+        0x1f300, 0x1f64f,
+        0x1f680, 0x1f6ff,
+        0x1f900, 0x1f9ff,
+        0x1fa70, 0x1faff,
+        0x20000, 0x2fffd,
+        0x30000, 0x3fffd,
+    };
+    
+    private static final Map<String, Integer> GRAPHEME_ID_MAP =
+            new ConcurrentHashMap<>();
+    
+    // Guards the appends to the table:
+    private static final Object GRAPHEMES_LOCK = new Object();
+    
+    // The interned clusters by their IDs. Appended to in place and published
+    // again after each append, so that the readers need no lock:
+    private static volatile String[] graphemes = new String[64];
+    
+    // Guarded by GRAPHEMES_LOCK:
+    private static int graphemeCount;
+    
+    // Lazily created strings of the Basic Multilingual Plane code points, so
+    // that rendering does not allocate a string per painted cell:
+    private static final String[] BMP_STRINGS = new String[0x10000];
+    
+    private static final Map<Integer, String> SUPPLEMENTARY_STRINGS =
+            new ConcurrentHashMap<>();
+    
+    private TextUIWindowGraphemes() {
+        
+    }
+    
+    /**
+     * Returns the cell value representing {@code grapheme}. A single code
+     * point is stored as is, longer clusters are interned, or replaced by
+     * {@link #REPLACEMENT_CHARACTER} once the table is full.
+     *
+     * @param grapheme a single grapheme cluster.
+     * @return the cell value.
+     */
+    public static int toCellValue(String grapheme) {
+        if (grapheme.isEmpty()) {
+            throw new IllegalArgumentException("The grapheme is empty.");
+        }
+        
+        int codePoint = grapheme.codePointAt(0);
+        
+        if (Character.charCount(codePoint) == grapheme.length()) {
+            return codePoint;
+        }
+        
+        int id = intern(grapheme);
+        return id < 0 ? REPLACEMENT_CHARACTER : -1 - id;
+    }
+    
+    /**
+     * Returns the text of the cell value {@code cellValue}. The returned
+     * strings are cached; this method does not allocate for the code points
+     * of the Basic Multilingual Plane after their first use.
+     *
+     * @param cellValue the cell value.
+     * @return the text of the cell.
+     */
+    public static String toString(int cellValue) {
+        if (cellValue == WIDE_CONTINUATION) {
+            return "";
+        }
+        
+        if (cellValue < 0) {
+            return graphemeOf(-1 - cellValue);
+        }
+        
+        if (cellValue < BMP_STRINGS.length) {
+            String string = BMP_STRINGS[cellValue];
+            
+            if (string == null) {
+                string = String.valueOf((char) cellValue);
+                BMP_STRINGS[cellValue] = string;
+            }
+            
+            return string;
+        }
+        
+        return SUPPLEMENTARY_STRINGS.computeIfAbsent(
+                cellValue,
+                (codePoint) -> new String(Character.toChars(codePoint)));
+    }
+    
+    /**
+     * Returns the number of columns (1 or 2) the cell value occupies.
+     *
+     * @param cellValue the cell value.
+     * @return the number of columns.
+     */
+    public static int getColumns(int cellValue) {
+        if (cellValue == WIDE_CONTINUATION) {
+            return 0;
+        }
+        
+        if (cellValue >= 0) {
+            return isWide(cellValue) ? 2 : 1;
+        }
+        
+        String grapheme = toString(cellValue);
+        
+        if (grapheme.indexOf(EMOJI_PRESENTATION_SELECTOR) >= 0) {
+            return 2;
+        }
+        
+        return isWide(grapheme.codePointAt(0)) ? 2 : 1;
+    }
+    
+    public static int getColumns(String grapheme) {
+        return getColumns(toCellValue(grapheme));
+    }
+    
+    /**
+     * Returns the number of columns a single code point advances the text by
+     * when it is measured outside a grapheme cluster: 0 for combining marks 
+     * and format characters, 2 for wide characters and 1 otherwise.
+     */
+    static int getCodePointColumns(int codePoint) {
+        switch (Character.getType(codePoint)) {
+            case Character.NON_SPACING_MARK:
+            case Character.ENCLOSING_MARK:
+            case Character.FORMAT:
+                return 0;
+                
+            default:
+                return isWide(codePoint) ? 2 : 1;
+        }
+    }
+    
+    public static boolean isWide(int codePoint) {
+        // Binary search over the range start points:
+        int low = 0;
+        int high = WIDE_RANGES.length / 2 - 1;
+        
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            
+            if (codePoint < WIDE_RANGES[2 * middle]) {
+                high = middle - 1;
+            } else if (codePoint > WIDE_RANGES[2 * middle + 1]) {
+                low = middle + 1;
+            } else {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    private static String graphemeOf(int id) {
+        String[] graphemes = TextUIWindowGraphemes.graphemes;
+        String grapheme = id < graphemes.length ? graphemes[id] : null;
+        
+        if (grapheme != null) {
+            return grapheme;
+        }
+        
+        // The cell was read before this thread saw the table with the
+        // cluster; the lock makes the append visible:
+        synchronized (GRAPHEMES_LOCK) {
+            return TextUIWindowGraphemes.graphemes[id];
+        }
+    }
+    
+    /**
+     * Returns the ID of {@code grapheme}, or -1 if the table is full.
+     */
+    private static int intern(String grapheme) {
+        Integer id = GRAPHEME_ID_MAP.get(grapheme);
+        
+        if (id != null) {
+            return id;
+        }
+        
+        synchronized (GRAPHEMES_LOCK) {
+            id = GRAPHEME_ID_MAP.get(grapheme);
+            
+            if (id != null) {
+                return id;
+            }
+            
+            if (graphemeCount == MAXIMUM_GRAPHEMES) {
+                return -1;
+            }
+            
+            String[] newGraphemes = graphemes;
+            
+            if (graphemeCount == newGraphemes.length) {
+                newGraphemes = Arrays.copyOf(newGraphemes,
+                                             2 * newGraphemes.length);
+            }
+            
+            newGraphemes[graphemeCount] = grapheme;
+            graphemes = newGraphemes;
+            GRAPHEME_ID_MAP.put(grapheme, graphemeCount);
+            return graphemeCount++;
+        }
+    }
+}
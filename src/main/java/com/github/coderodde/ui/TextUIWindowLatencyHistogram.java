@@ -0,0 +1,145 @@
+package com.github.coderodde.ui;
+
+import java.util.Arrays;
+
+/**
+ * This class implements a histogram of latencies with a bounded relative
+ * error. Latencies below 16 microseconds have a bucket per microsecond; above
+ * that, each power of two is split into 8 buckets, so a percentile is
+ * reported within 12.5 % of the recorded value. Recording takes constant time
+ * and allocates nothing.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowLatencyHistogram {
+    
+    private static final int LINEAR_BUCKETS = 16;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    
+    // The linear buckets cover the magnitudes below 4; up to 2^40 us:
+    private static final int FIRST_MAGNITUDE = 4;
+    private static final int LAST_MAGNITUDE = 40;
+    private static final int BUCKETS =
+            LINEAR_BUCKETS
+                    + (LAST_MAGNITUDE - FIRST_MAGNITUDE + 1) * SUB_BUCKETS;
+    
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long totalNanos;
+    private long maximumNanos;
+    
+    synchronized void record(long nanos) {
+        nanos = Math.max(0L, nanos);
+        counts[bucketOf(nanos / 1000L)]++;
+        count++;
+        totalNanos += nanos;
+        maximumNanos = Math.max(maximumNanos, nanos);
+    }
+    
+    public synchronized long getCount() {
+        return count;
+    }
+    
+    public synchronized long getMeanNanos() {
+        return count == 0L ? 0L : totalNanos / count;
+    }
+    
+    public synchronized long getMaximumNanos() {
+        return maximumNanos;
+    }
+    
+    /**
+     * Returns the latency not exceeded by {@code percentile} percent of the
+     * recorded latencies, rounded up to the end of its bucket.
+     *
+     * @param percentile the percentile between 0 and 100.
+     * @return the latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    public synchronized long getPercentileNanos(double percentile) {
+        if (!(percentile >= 0.0 && percentile <= 100.0)) {
+            throw new IllegalArgumentException(
+                    "Percentile is invalid ("
+                            + percentile
+                            + "). Must be between 0 and 100.");
+        }
+        
+        if (count == 0L) {
+            return 0L;
+        }
+        
+        long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+        long seen = 0L;
+        
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += counts[bucket];
+            
+            if (seen >= rank) {
+                return Math.min(maximumNanos,
+                                upperBoundMicrosOf(bucket) * 1000L + 999L);
+            }
+        }
+        
+        return maximumNanos;
+    }
+    
+    public synchronized void reset() {
+        Arrays.fill(counts, 0L);
+        count = 0L;
+        totalNanos = 0L;
+        maximumNanos = 0L;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "[count: "
+                + count
+                + ", mean: "
+                + getMeanNanos() / 1000L
+                + " us, p50: "
+                + getPercentileNanos(50.0) / 1000L
+                + " us, p90: "
+                + getPercentileNanos(90.0) / 1000L
+                + " us, p99: "
+                + getPercentileNanos(99.0) / 1000L
+                + " us, max: "
+                + maximumNanos / 1000L
+                + " us]";
+    }
+    
+    private static int bucketOf(long micros) {
+        if (micros < LINEAR_BUCKETS) {
+            return (int) micros;
+        }
+        
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros);
+        
+        if (magnitude > LAST_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        
+        int subBucket =
+                (int) (micros >>> (magnitude - SUB_BUCKET_BITS))
+                        & (SUB_BUCKETS - 1);
+        
+        return LINEAR_BUCKETS
+                + (magnitude - FIRST_MAGNITUDE) * SUB_BUCKETS
+                + subBucket;
+    }
+    
+    private static long upperBoundMicrosOf(int bucket) {
+        if (bucket < LINEAR_BUCKETS) {
+            return bucket;
+        }
+        
+        int magnitude = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS
+                + FIRST_MAGNITUDE;
+        int subBucket = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+        int shift = magnitude - SUB_BUCKET_BITS;
+        long lowerBound = (long) (SUB_BUCKETS + subBucket) << shift;
+        
+        return lowerBound + (1L << shift) - 1L;
+    }
+}
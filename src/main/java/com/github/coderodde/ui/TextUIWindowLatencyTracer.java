@@ -0,0 +1,302 @@
+package com.github.coderodde.ui;
+
+/**
+ * This class traces the latency from an input event to the frame showing its
+ * effect. The {@link TextUIWindow} stamps a sampled {@code KeyEvent} or
+ * {@code MouseEvent} as it dispatches the event to its listeners, follows the
+ * model writes the listeners make, and completes the trace once the frame
+ * containing the written cells is painted. Each completed trace is split into
+ * the following stages, each with a histogram of its own:
+ * <ul>
+ *   <li>dispatch: from the start of the dispatch to the first model write,
+ *       that is, the work of the listeners before they change a cell,</li>
+ *   <li>model update: from the first model write to the end of the
+ *       dispatch,</li>
+ *   <li>queue: from the end of the dispatch to the start of the frame,
+ *       including the pacing of the frame governor,</li>
+ *   <li>render: from the start of the frame to the end of its painting,
+ *       including the wait for the JavaFX application thread if the window
+ *       renders off-thread.</li>
+ * </ul>
+ * The {@link #getTotalHistogram() total} spans all the stages. Events whose
+ * listeners change no cell are not traced any further; only the writes made
+ * on the dispatching thread during the dispatch are followed.
+ * <p>
+ * Tracing is off by default. While it is off, the window pays a single
+ * volatile read per event, per model write and per frame.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowLatencyTracer {
+    
+    // The maximum number of traces waiting for their frames:
+    private static final int MAXIMUM_PENDING_TRACES = 256;
+    
+    private final TextUIWindowLatencyHistogram dispatchHistogram =
+            new TextUIWindowLatencyHistogram();
+    
+    private final TextUIWindowLatencyHistogram modelUpdateHistogram =
+            new TextUIWindowLatencyHistogram();
+    
+    private final TextUIWindowLatencyHistogram queueHistogram =
+            new TextUIWindowLatencyHistogram();
+    
+    private final TextUIWindowLatencyHistogram renderHistogram =
+            new TextUIWindowLatencyHistogram();
+    
+    private final TextUIWindowLatencyHistogram totalHistogram =
+            new TextUIWindowLatencyHistogram();
+    
+    private volatile int samplingInterval;
+    
+    // Accessed by the dispatching thread only:
+    private int eventCounter;
+    private long dispatchStartNanos;
+    private long firstWriteNanos;
+    
+    // The thread dispatching a traced event, or null if there is none:
+    private volatile Thread tracedThread;
+    
+    // The number of pending traces not yet assigned to a frame:
+    private volatile int unassignedTraces;
+    
+    // The pending traces, in the order of dispatch, as a ring of parallel
+    // arrays:
+    private final long[] pendingDispatchStarts =
+            new long[MAXIMUM_PENDING_TRACES];
+    
+    private final long[] pendingFirstWrites = new long[MAXIMUM_PENDING_TRACES];
+    private final long[] pendingDispatchEnds = new long[MAXIMUM_PENDING_TRACES];
+    private final long[] pendingFrameStarts = new long[MAXIMUM_PENDING_TRACES];
+    private final long[] pendingFrames = new long[MAXIMUM_PENDING_TRACES];
+    private int pendingHead;
+    private int pendingLength;
+    private long frameCounter;
+    private long tracedEvents;
+    private long discardedTraces;
+    
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+    
+    /**
+     * Traces every {@code samplingInterval}th input event. The interval 0
+     * turns the tracing off; the interval 1 traces every event.
+     *
+     * @param samplingInterval the sampling interval.
+     */
+    public void setSamplingInterval(int samplingInterval) {
+        if (samplingInterval < 0) {
+            throw new IllegalArgumentException(
+                    "Sampling interval is invalid ("
+                            + samplingInterval
+                            + "). Must be at least 0.");
+        }
+        
+        this.samplingInterval = samplingInterval;
+    }
+    
+    public TextUIWindowLatencyHistogram getDispatchHistogram() {
+        return dispatchHistogram;
+    }
+    
+    public TextUIWindowLatencyHistogram getModelUpdateHistogram() {
+        return modelUpdateHistogram;
+    }
+    
+    public TextUIWindowLatencyHistogram getQueueHistogram() {
+        return queueHistogram;
+    }
+    
+    public TextUIWindowLatencyHistogram getRenderHistogram() {
+        return renderHistogram;
+    }
+    
+    public TextUIWindowLatencyHistogram getTotalHistogram() {
+        return totalHistogram;
+    }
+    
+    /**
+     * Returns the number of sampled events.
+     *
+     * @return the number of sampled events.
+     */
+    public synchronized long getTracedEvents() {
+        return tracedEvents;
+    }
+    
+    /**
+     * Returns the number of sampled events whose listeners changed no cell,
+     * plus the traces dropped because too many were waiting for a frame.
+     *
+     * @return the number of discarded traces.
+     */
+    public synchronized long getDiscardedTraces() {
+        return discardedTraces;
+    }
+    
+    public synchronized void reset() {
+        dispatchHistogram.reset();
+        modelUpdateHistogram.reset();
+        queueHistogram.reset();
+        renderHistogram.reset();
+        totalHistogram.reset();
+        tracedEvents = 0L;
+        discardedTraces = 0L;
+    }
+    
+    @Override
+    public String toString() {
+        return "[total: "
+                + totalHistogram
+                + ", dispatch: "
+                + dispatchHistogram
+                + ", model update: "
+                + modelUpdateHistogram
+                + ", queue: "
+                + queueHistogram
+                + ", render: "
+                + renderHistogram
+                + ", discarded: "
+                + getDiscardedTraces()
+                + "]";
+    }
+    
+    /**
+     * Called by the window before dispatching an input event. A trace left
+     * open by a listener that threw is replaced by the new one.
+     *
+     * @return {@code true} if the event is traced and
+     *         {@link #endDispatch()} must be called after the dispatch.
+     */
+    boolean beginDispatch() {
+        int interval = samplingInterval;
+        
+        if (interval == 0) {
+            return false;
+        }
+        
+        if (++eventCounter < interval) {
+            return false;
+        }
+        
+        eventCounter = 0;
+        firstWriteNanos = 0L;
+        dispatchStartNanos = System.nanoTime();
+        tracedThread = Thread.currentThread();
+        return true;
+    }
+    
+    /**
+     * Called by the window on each change of its model or planes.
+     */
+    void onModelWrite() {
+        if (tracedThread == Thread.currentThread() && firstWriteNanos == 0L) {
+            firstWriteNanos = System.nanoTime();
+        }
+    }
+    
+    void endDispatch() {
+        long endNanos = System.nanoTime();
+        tracedThread = null;
+        
+        synchronized (this) {
+            tracedEvents++;
+            
+            if (firstWriteNanos == 0L) {
+                discardedTraces++;
+                return;
+            }
+            
+            if (pendingLength == MAXIMUM_PENDING_TRACES) {
+                // No frame came for a long time; give up the oldest trace:
+                if (pendingFrames[pendingHead] == 0L) {
+                    unassignedTraces--;
+                }
+                
+                pendingHead = (pendingHead + 1) % MAXIMUM_PENDING_TRACES;
+                pendingLength--;
+                discardedTraces++;
+            }
+            
+            int index = (pendingHead + pendingLength) % MAXIMUM_PENDING_TRACES;
+            pendingDispatchStarts[index] = dispatchStartNanos;
+            pendingFirstWrites[index] = firstWriteNanos;
+            pendingDispatchEnds[index] = endNanos;
+            pendingFrames[index] = 0L;
+            pendingLength++;
+            unassignedTraces++;
+        }
+    }
+    
+    /**
+     * Called when a frame starts building. Assigns the traces whose dispatch
+     * has ended to the frame.
+     *
+     * @return the frame number to pass to {@link #onFramePainted(long)}, or
+     *         0 if no trace waits for the frame.
+     */
+    long onFrameStart() {
+        if (unassignedTraces == 0) {
+            return 0L;
+        }
+        
+        long startNanos = System.nanoTime();
+        
+        synchronized (this) {
+            long frame = ++frameCounter;
+            
+            for (int i = pendingLength - unassignedTraces;
+                    i < pendingLength;
+                    i++) {
+                int index = (pendingHead + i) % MAXIMUM_PENDING_TRACES;
+                pendingFrameStarts[index] = startNanos;
+                pendingFrames[index] = frame;
+            }
+            
+            unassignedTraces = 0;
+            return frame;
+        }
+    }
+    
+    /**
+     * Called once the frame {@code frame} is painted, or found to have
+     * nothing to paint. Completes the traces assigned to it and to the
+     * earlier frames.
+     *
+     * @param frame the frame number returned by {@link #onFrameStart()}.
+     */
+    void onFramePainted(long frame) {
+        if (frame == 0L) {
+            return;
+        }
+        
+        long endNanos = System.nanoTime();
+        
+        synchronized (this) {
+            while (pendingLength > 0) {
+                long pendingFrame = pendingFrames[pendingHead];
+                
+                if (pendingFrame == 0L || pendingFrame > frame) {
+                    break;
+                }
+                
+                long dispatchStart = pendingDispatchStarts[pendingHead];
+                long firstWrite = pendingFirstWrites[pendingHead];
+                long dispatchEnd = pendingDispatchEnds[pendingHead];
+                long frameStart = pendingFrameStarts[pendingHead];
+                
+                dispatchHistogram.record(firstWrite - dispatchStart);
+                modelUpdateHistogram.record(dispatchEnd - firstWrite);
+                queueHistogram.record(frameStart - dispatchEnd);
+                renderHistogram.record(endNanos - frameStart);
+                totalHistogram.record(endNanos - dispatchStart);
+                
+                pendingHead = (pendingHead + 1) % MAXIMUM_PENDING_TRACES;
+                pendingLength--;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.coderodde.ui;
+
+/**
+ * This enumeration lists the layers a {@link TextUIWindow} is rendered in, 
+ * from the bottom to the top. Each layer is invalidated and repainted 
+ * separately.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public enum TextUIWindowLayer {
+    
+    /**
+     * The background colors of the cells.
+     */
+    BACKGROUND,
+    
+    /**
+     * The glyphs of the cells, drawn on a transparent canvas.
+     */
+    TEXT,
+    
+    /**
+     * The blink cursor and other decorations drawn over the text.
+     */
+    OVERLAY;
+}
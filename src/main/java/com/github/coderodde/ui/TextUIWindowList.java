@@ -0,0 +1,48 @@
+package com.github.coderodde.ui;
+
+import java.util.Objects;
+
+/**
+ * This class implements a virtualized list: a {@link TextUIWindowTable} of a 
+ * single column spanning its whole width, without a header.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class TextUIWindowList extends TextUIWindowTable {
+    
+    public TextUIWindowList(TextUIWindow window,
+                            int charX,
+                            int charY,
+                            int columns,
+                            int rows,
+                            TextUIWindowListDataProvider provider) {
+        super(window, charX, charY, columns, rows, toTableProvider(provider));
+        setHeaderVisible(false);
+        setColumnWidth(0, columns);
+    }
+    
+    private static TextUIWindowTableDataProvider toTableProvider(
+            TextUIWindowListDataProvider provider) {
+        Objects.requireNonNull(provider, "The provider is null.");
+        
+        return new TextUIWindowTableDataProvider() {
+            
+            @Override
+            public int getRowCount() {
+                return provider.getSize();
+            }
+            
+            @Override
+            public int getColumnCount() {
+                return 1;
+            }
+            
+            @Override
+            public Object getValue(int row, int column) {
+                return provider.getElement(row);
+            }
+        };
+    }
+}
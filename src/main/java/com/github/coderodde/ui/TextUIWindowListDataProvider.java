@@ -0,0 +1,16 @@
+package com.github.coderodde.ui;
+
+/**
+ * This interface defines the source of the elements of a 
+ * {@link TextUIWindowList}. The list asks only for the elements it shows.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public interface TextUIWindowListDataProvider {
+    
+    int getSize();
+    
+    Object getElement(int index);
+}
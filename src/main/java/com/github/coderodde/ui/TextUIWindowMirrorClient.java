@@ -0,0 +1,272 @@
+package com.github.coderodde.ui;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.scene.paint.Color;
+import static com.github.coderodde.ui.TextUIWindowMirrorProtocol.*;
+
+/**
+ * This class receives the frames of a {@link TextUIWindowMirrorServer} and
+ * applies them to the model of a local {@link TextUIWindow}. After each frame,
+ * a repaint of the window is requested through its frame governor, so a fast
+ * server never floods the JavaFX event queue.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowMirrorClient implements Closeable {
+    
+    private static final int SOCKET_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_PALETTE_CAPACITY = 64;
+    
+    private final TextUIWindow window;
+    private final TextUIWindowModel model;
+    private final Socket socket;
+    private final Thread readerThread;
+    private final AtomicLong receivedFrames = new AtomicLong();
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private volatile boolean doRun = true;
+    private volatile IOException error;
+    private Color[] palette = new Color[INITIAL_PALETTE_CAPACITY];
+    private byte[] frameBuffer = new byte[0];
+    
+    // The cell values of the grapheme clusters received so far:
+    private final Map<String, Integer> graphemes = new HashMap<>();
+    
+    public TextUIWindowMirrorClient(TextUIWindow window, String host, int port)
+            throws IOException {
+        this.window = Objects.requireNonNull(window, "The window is null.");
+        this.model = window.getModel();
+        this.socket = new Socket(host, port);
+        this.socket.setTcpNoDelay(true);
+        this.readerThread = new Thread(this::readFrames,
+                                       "TextUIWindowMirrorClient");
+        this.readerThread.setDaemon(true);
+    }
+    
+    public void start() {
+        readerThread.start();
+    }
+    
+    public long getReceivedFrames() {
+        return receivedFrames.get();
+    }
+    
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+    
+    /**
+     * Returns the error that terminated the connection, or {@code null} if the
+     * connection is still alive or was closed normally.
+     *
+     * @return the terminating error or {@code null}.
+     */
+    public IOException getError() {
+        return error;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        doRun = false;
+        socket.close();
+    }
+    
+    private void readFrames() {
+        try (DataInputStream in =
+                new DataInputStream(
+                        new BufferedInputStream(socket.getInputStream(),
+                                                SOCKET_BUFFER_SIZE))) {
+            int magic = in.readInt();
+            
+            if (magic != MAGIC) {
+                throw new IOException(
+                        "Not a TextUIWindow mirror stream: bad magic number "
+                                + Integer.toHexString(magic)
+                                + ".");
+            }
+            
+            byte version = in.readByte();
+            
+            if (version != VERSION) {
+                throw new IOException(
+                        "Unsupported mirror protocol version: "
+                                + version
+                                + ".");
+            }
+            
+            while (doRun) {
+                int frameLength = in.readInt();
+                
+                if (frameLength < 0 || frameLength > MAXIMUM_FRAME_LENGTH) {
+                    throw new IOException(
+                            "Invalid frame length: " + frameLength + ".");
+                }
+                
+                if (frameBuffer.length < frameLength) {
+                    frameBuffer = new byte[frameLength];
+                }
+                
+                in.readFully(frameBuffer, 0, frameLength);
+                
+                ByteArrayInputStream frameBytes =
+                        new ByteArrayInputStream(frameBuffer, 0, frameLength);
+                
+                applyFrame(new DataInputStream(frameBytes));
+                
+                // A frame must consist of exactly its declared payload:
+                if (frameBytes.available() != 0) {
+                    throw new IOException(
+                            "Frame length mismatch: "
+                                    + frameLength
+                                    + " bytes declared, "
+                                    + (frameLength - frameBytes.available())
+                                    + " bytes consumed.");
+                }
+                
+                receivedFrames.incrementAndGet();
+                receivedBytes.addAndGet(Integer.BYTES + frameLength);
+                window.requestRepaint();
+            }
+        } catch (IOException ex) {
+            if (doRun) {
+                error = ex;
+            }
+        }
+    }
+    
+    private void applyFrame(DataInputStream in) throws IOException {
+        byte frameType = in.readByte();
+        
+        if (frameType != FRAME_KEY && frameType != FRAME_DELTA) {
+            throw new IOException("Unknown frame type: " + frameType + ".");
+        }
+        
+        int width = readVarInt(in);
+        int height = readVarInt(in);
+        int cursorForegroundIndex = readVarInt(in);
+        int cursorBackgroundIndex = readVarInt(in);
+        
+        if (width != model.getWidth() || height != model.getHeight()) {
+            model.resize(width, height);
+        }
+        
+        while (true) {
+            byte recordType = in.readByte();
+            
+            switch (recordType) {
+                case RECORD_END:
+                    applyCursorColors(cursorForegroundIndex,
+                                      cursorBackgroundIndex);
+                    return;
+                
+                case RECORD_PALETTE_RESET:
+                    Arrays.fill(palette, null);
+                    break;
+                
+                case RECORD_COLOR:
+                    readColor(in, width, height);
+                    break;
+                
+                case RECORD_RUN:
+                    applyRun(in);
+                    break;
+                
+                default:
+                    throw new IOException(
+                            "Unknown record type: " + recordType + ".");
+            }
+        }
+    }
+    
+    private void readColor(DataInputStream in, int width, int height) 
+            throws IOException {
+        int index = readVarInt(in);
+        int argb = in.readInt();
+        
+        // A frame adds at most the foreground and the background color of 
+        // each cell plus the cursor colors to a palette of at most 
+        // MAXIMUM_PALETTE_SIZE colors:
+        long limit = MAXIMUM_PALETTE_SIZE + 2L * width * height + 2L;
+        
+        if (index < 0 || index >= limit) {
+            throw new IOException("Invalid palette index: " + index + ".");
+        }
+        
+        if (index >= palette.length) {
+            palette = Arrays.copyOf(palette,
+                                    Math.max(index + 1, 2 * palette.length));
+        }
+        
+        palette[index] = Color.rgb((argb >>> 16) & 0xff,
+                                   (argb >>> 8)  & 0xff,
+                                    argb         & 0xff,
+                                   ((argb >>> 24) & 0xff) / 255.0);
+    }
+    
+    private void applyRun(DataInputStream in) throws IOException {
+        int y = readVarInt(in);
+        int fromX = readVarInt(in);
+        int length = readVarInt(in);
+        int x = fromX;
+        int toX = fromX + length;
+        
+        while (x < toX) {
+            int repeat = readVarInt(in);
+            int flags = in.readUnsignedByte();
+            int cellValue = readCell(in, flags, graphemes);
+            Color foregroundColor = getPaletteColor(readVarInt(in));
+            Color backgroundColor = getPaletteColor(readVarInt(in));
+            boolean cursor = (flags & CELL_FLAG_CURSOR) != 0;
+            
+            if (repeat < 1 || x + repeat > toX) {
+                throw new IOException("Invalid run length: " + repeat + ".");
+            }
+            
+            for (int i = 0; i < repeat; i++, x++) {
+                model.putCell(x,
+                              y,
+                              cellValue,
+                              foregroundColor,
+                              backgroundColor,
+                              cursor);
+            }
+        }
+        
+        model.fireCellsChanged(fromX, y, length, 1);
+    }
+    
+    private void applyCursorColors(int foregroundIndex, int backgroundIndex)
+            throws IOException {
+        Color foregroundColor = getPaletteColor(foregroundIndex);
+        Color backgroundColor = getPaletteColor(backgroundIndex);
+        
+        if (!foregroundColor.equals(model.getBlinkCursorForegroundColor())) {
+            model.setBlinkCursorForegroundColor(foregroundColor);
+        }
+        
+        if (!backgroundColor.equals(model.getBlinkCursorBackgroundColor())) {
+            model.setBlinkCursorBackgroundColor(backgroundColor);
+        }
+    }
+    
+    private Color getPaletteColor(int index) throws IOException {
+        Color color = index < palette.length ? palette[index] : null;
+        
+        if (color == null) {
+            throw new IOException("Undefined palette index: " + index + ".");
+        }
+        
+        return color;
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.coderodde.ui;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * This class defines the wire format shared by {@link TextUIWindowMirrorServer}
+ * and {@link TextUIWindowMirrorClient}.
+ * <p>
+ * The stream starts with {@link #MAGIC} and {@link #VERSION}, and is followed
+ * by frames. Each frame is prefixed by its payload length (a 4-byte integer).
+ * The payload starts with the frame type, the grid width and height, and the
+ * palette indices of the blink cursor colors, and is followed by records
+ * terminated by {@link #RECORD_END}:
+ * <ul>
+ *   <li>{@link #RECORD_PALETTE_RESET}: forget all palette entries,</li>
+ *   <li>{@link #RECORD_COLOR}: palette index, ARGB color,</li>
+ *   <li>{@link #RECORD_RUN}: row, start column, number of cells, followed by
+ *       run-length encoded groups (repeat count, cell flags, cell content,
+ *       foreground index, background index) covering the cells. The cell
+ *       content is a code point, or a length-prefixed UTF-16 grapheme cluster
+ *       if {@link #CELL_FLAG_GRAPHEME} is set, or absent if
+ *       {@link #CELL_FLAG_WIDE_CONTINUATION} is set.</li>
+ * </ul>
+ * All numbers except the frame length and colors are unsigned variable length
+ * integers.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowMirrorProtocol {
+    
+    static final int MAGIC = 0x5455494d; // "TUIM"
+    static final byte VERSION = 2;
+    
+    static final byte FRAME_KEY = 1;
+    static final byte FRAME_DELTA = 2;
+    
+    static final byte RECORD_END = 0;
+    static final byte RECORD_PALETTE_RESET = 1;
+    static final byte RECORD_COLOR = 2;
+    static final byte RECORD_RUN = 3;
+    
+    static final int CELL_FLAG_CURSOR = 1;
+    static final int CELL_FLAG_GRAPHEME = 1 << 1;
+    static final int CELL_FLAG_WIDE_CONTINUATION = 1 << 2;
+    
+    static final int MAXIMUM_FRAME_LENGTH = 64 * 1024 * 1024;
+    static final int MAXIMUM_GRAPHEME_LENGTH = 256;
+    
+    // The maximum number of distinct grapheme clusters a connection may
+    // bring in:
+    static final int MAXIMUM_CONNECTION_GRAPHEMES = 4096;
+    
+    // The server starts over with a fresh palette at a frame boundary once
+    // its palette grows past this size:
+    static final int MAXIMUM_PALETTE_SIZE = 4096;
+    
+    private TextUIWindowMirrorProtocol() {
+        
+    }
+    
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        
+        out.writeByte(value);
+    }
+    
+    static void writeCell(DataOutput out, int flags, int cellValue) 
+            throws IOException {
+        if ((flags & CELL_FLAG_WIDE_CONTINUATION) != 0) {
+            return;
+        }
+        
+        if ((flags & CELL_FLAG_GRAPHEME) == 0) {
+            writeVarInt(out, cellValue);
+            return;
+        }
+        
+        String grapheme = TextUIWindowGraphemes.toString(cellValue);
+        writeVarInt(out, grapheme.length());
+        
+        for (int i = 0; i < grapheme.length(); i++) {
+            writeVarInt(out, grapheme.charAt(i));
+        }
+    }
+    
+    /**
+     * Reads a cell value. The grapheme clusters are looked up in
+     * {@code graphemes}, the table of the connection, so that a peer cannot
+     * fill the process-wide table; the clusters beyond
+     * {@link #MAXIMUM_CONNECTION_GRAPHEMES} are replaced by
+     * {@link TextUIWindowGraphemes#REPLACEMENT_CHARACTER}.
+     */
+    static int readCell(DataInput in, int flags, Map<String, Integer> graphemes)
+            throws IOException {
+        if ((flags & CELL_FLAG_WIDE_CONTINUATION) != 0) {
+            return TextUIWindowGraphemes.WIDE_CONTINUATION;
+        }
+        
+        if ((flags & CELL_FLAG_GRAPHEME) == 0) {
+            int codePoint = readVarInt(in);
+            
+            if (!Character.isValidCodePoint(codePoint)) {
+                throw new IOException(
+                        "Invalid code point: " + codePoint + ".");
+            }
+            
+            return codePoint;
+        }
+        
+        int length = readVarInt(in);
+        
+        if (length < 1 || length > MAXIMUM_GRAPHEME_LENGTH) {
+            throw new IOException(
+                    "Invalid grapheme cluster length: " + length + ".");
+        }
+        
+        char[] chars = new char[length];
+        
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) readVarInt(in);
+        }
+        
+        String grapheme = new String(chars);
+        Integer cellValue = graphemes.get(grapheme);
+        
+        if (cellValue != null) {
+            return cellValue;
+        }
+        
+        if (graphemes.size() == MAXIMUM_CONNECTION_GRAPHEMES) {
+            return TextUIWindowGraphemes.REPLACEMENT_CHARACTER;
+        }
+        
+        cellValue = TextUIWindowGraphemes.toCellValue(grapheme);
+        graphemes.put(grapheme, cellValue);
+        return cellValue;
+    }
+    
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        
+        throw new IOException("Malformed variable length integer.");
+    }
+}
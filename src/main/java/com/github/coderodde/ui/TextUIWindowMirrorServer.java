@@ -0,0 +1,513 @@
+package com.github.coderodde.ui;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import javafx.scene.paint.Color;
+import static com.github.coderodde.ui.TextUIWindowMirrorProtocol.*;
+
+/**
+ * This class mirrors a {@link TextUIWindowModel} to any number of
+ * {@link TextUIWindowMirrorClient}s over TCP.
+ * <p>
+ * Model changes are collected as damage and coalesced into at most one frame
+ * per frame interval. A frame carries only the damaged cell runs, encoded with
+ * palette-indexed colors and run-length encoding (see
+ * {@link TextUIWindowMirrorProtocol}), and is encoded once for all clients.
+ * Each client has a bounded queue of outgoing frames; when a slow client lets
+ * its queue fill up, its pending frames are dropped and it is resynchronized
+ * with a single key frame holding the entire grid.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowMirrorServer implements Closeable {
+    
+    private static final long DEFAULT_FRAME_INTERVAL_MILLIS = 33L;
+    private static final int DEFAULT_MAXIMUM_QUEUED_FRAMES = 8;
+    private static final int SOCKET_BUFFER_SIZE = 64 * 1024;
+    private static final System.Logger LOGGER =
+            System.getLogger(TextUIWindowMirrorServer.class.getName());
+    
+    private final TextUIWindowModel model;
+    private final ServerSocket serverSocket;
+    private final TextUIWindowDamage damage;
+    private final List<Client> clients = new CopyOnWriteArrayList<>();
+    private final TextUIWindowModelListener modelListener =
+            new TextUIWindowModelListener() {
+                
+        @Override
+        public void onCellsChanged(int charX,
+                                   int charY,
+                                   int width,
+                                   int height) {
+            damage.add(charX, charY, width, height);
+        }
+        
+        @Override
+        public void onCursorChanged(int charX,
+                                    int charY,
+                                    int width,
+                                    int height) {
+            damage.add(charX, charY, width, height);
+        }
+        
+        @Override
+        public void onModelResized(int width, int height) {
+            damage.resize(width, height);
+        }
+    };
+    
+    // Accessed by the frame thread only:
+    private final Map<Color, Integer> paletteIndexMap = new HashMap<>();
+    private final List<Color> palette = new ArrayList<>();
+    private final ByteArrayOutputStream frameBytes =
+            new ByteArrayOutputStream();
+    private final DataOutputStream frameOut =
+            new DataOutputStream(frameBytes);
+    
+    // The palette entries below this index have been sent in delta frames:
+    private int deltaColorWatermark;
+    private int nextColorToEmit;
+    private int[] runCellValues = new int[0];
+    private int[] runForegroundIndices = new int[0];
+    private int[] runBackgroundIndices = new int[0];
+    private boolean[] runCursors = new boolean[0];
+    
+    private final AtomicLong sentFrames = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+    private final AtomicLong droppedFrames = new AtomicLong();
+    private final AtomicLong keyFrames = new AtomicLong();
+    
+    private volatile long frameIntervalMillis = DEFAULT_FRAME_INTERVAL_MILLIS;
+    private volatile int maximumQueuedFrames = DEFAULT_MAXIMUM_QUEUED_FRAMES;
+    private volatile boolean doRun = true;
+    private final Thread acceptThread;
+    private final Thread frameThread;
+    
+    /**
+     * Constructs a mirror server for {@code model} listening on {@code port}.
+     * Pass {@code 0} as the port in order to use any free port.
+     *
+     * @param model the model to mirror.
+     * @param port  the port to listen on.
+     * @throws IOException if the server socket cannot be opened.
+     */
+    public TextUIWindowMirrorServer(TextUIWindowModel model, int port)
+            throws IOException {
+        this.model = Objects.requireNonNull(model, "The model is null.");
+        this.serverSocket = new ServerSocket(port);
+        this.damage = new TextUIWindowDamage(model.getWidth(),
+                                             model.getHeight());
+        
+        this.acceptThread = new Thread(this::acceptClients,
+                                       "TextUIWindowMirrorServer-accept");
+        
+        this.frameThread = new Thread(this::sendFrames,
+                                      "TextUIWindowMirrorServer-frames");
+        
+        acceptThread.setDaemon(true);
+        frameThread.setDaemon(true);
+    }
+    
+    public void start() {
+        model.addModelListener(modelListener);
+        acceptThread.start();
+        frameThread.start();
+    }
+    
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+    
+    public void setFrameIntervalMillis(long frameIntervalMillis) {
+        if (frameIntervalMillis < 1L) {
+            throw new IllegalArgumentException(
+                    "Frame interval too small: ("
+                            + frameIntervalMillis
+                            + "). Must be at least 1.");
+        }
+        
+        this.frameIntervalMillis = frameIntervalMillis;
+    }
+    
+    /**
+     * Sets the number of frames that may wait for a client before the client
+     * is considered slow and gets resynchronized with a key frame.
+     *
+     * @param maximumQueuedFrames the maximum number of queued frames.
+     */
+    public void setMaximumQueuedFrames(int maximumQueuedFrames) {
+        if (maximumQueuedFrames < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum queued frames too small: ("
+                            + maximumQueuedFrames
+                            + "). Must be at least 1.");
+        }
+        
+        this.maximumQueuedFrames = maximumQueuedFrames;
+    }
+    
+    public int getClientCount() {
+        return clients.size();
+    }
+    
+    public long getSentFrames() {
+        return sentFrames.get();
+    }
+    
+    public long getSentBytes() {
+        return sentBytes.get();
+    }
+    
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+    
+    public long getKeyFrames() {
+        return keyFrames.get();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        doRun = false;
+        model.removeModelListener(modelListener);
+        serverSocket.close();
+        frameThread.interrupt();
+        
+        for (Client client : clients) {
+            client.close();
+        }
+        
+        clients.clear();
+    }
+    
+    private void acceptClients() {
+        while (doRun) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                Client client = new Client(socket, maximumQueuedFrames);
+                clients.add(client);
+                client.start();
+            } catch (IOException ex) {
+                if (doRun) {
+                    LOGGER.log(System.Logger.Level.WARNING,
+                               "Could not accept a mirror client.",
+                               ex);
+                }
+            }
+        }
+    }
+    
+    private void sendFrames() {
+        while (doRun) {
+            try {
+                Thread.sleep(frameIntervalMillis);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            
+            try {
+                sendFrame();
+            } catch (IOException | RuntimeException ex) {
+                // Keep serving the clients, and resynchronize all of them
+                // from scratch, as the failed frame was never sent:
+                LOGGER.log(System.Logger.Level.WARNING,
+                           "Could not encode a mirror frame.",
+                           ex);
+                
+                resetPalette();
+            }
+        }
+    }
+    
+    private void sendFrame() throws IOException {
+        if (palette.size() > MAXIMUM_PALETTE_SIZE) {
+            resetPalette();
+        }
+        
+        byte[] deltaFrame = null;
+        
+        if (damage.drain()) {
+            deltaFrame = encodeDeltaFrame();
+        }
+        
+        // Encoded once the first client needing it shows up, so that a client
+        // accepted while this frame is being sent gets a key frame as well:
+        byte[] keyFrame = null;
+        
+        for (Client client : clients) {
+            if (client.needsKeyFrame) {
+                if (keyFrame == null) {
+                    keyFrame = encodeKeyFrame();
+                }
+                
+                client.needsKeyFrame = false;
+                keyFrames.incrementAndGet();
+                enqueue(client, keyFrame);
+            } else if (deltaFrame != null) {
+                enqueue(client, deltaFrame);
+            }
+        }
+    }
+    
+    /**
+     * Starts over with a fresh palette. Everyone needs to learn it, so all the
+     * clients get a key frame next.
+     */
+    private void resetPalette() {
+        palette.clear();
+        paletteIndexMap.clear();
+        deltaColorWatermark = 0;
+        
+        for (Client client : clients) {
+            client.needsKeyFrame = true;
+        }
+    }
+    
+    private void enqueue(Client client, byte[] frame) {
+        if (!client.queue.offer(frame)) {
+            // The client cannot keep up. Drop whatever it has not consumed
+            // yet and resynchronize it with a key frame on the next round:
+            droppedFrames.addAndGet(client.queue.size() + 1);
+            client.queue.clear();
+            client.needsKeyFrame = true;
+        }
+    }
+    
+    private byte[] encodeDeltaFrame() throws IOException {
+        int width = Math.min(model.getWidth(), damage.getDrainedColumns());
+        int height = Math.min(model.getHeight(), damage.getDrainedRows());
+        
+        beginFrame(FRAME_DELTA, width, height, deltaColorWatermark);
+        
+        for (int y = 0; y < height; y++) {
+            int fromX = damage.getDrainedFrom(y);
+            int toX = Math.min(width, damage.getDrainedTo(y));
+            
+            if (fromX < toX) {
+                writeRun(y, fromX, toX);
+            }
+        }
+        
+        deltaColorWatermark = nextColorToEmit;
+        return endFrame();
+    }
+    
+    private byte[] encodeKeyFrame() throws IOException {
+        int width = model.getWidth();
+        int height = model.getHeight();
+        
+        beginFrame(FRAME_KEY, width, height, 0);
+        
+        for (int y = 0; y < height; y++) {
+            writeRun(y, 0, width);
+        }
+        
+        return endFrame();
+    }
+    
+    /**
+     * Starts a frame and emits the palette entries from index
+     * {@code firstColorToEmit} on. A key frame starts from a clean palette.
+     */
+    private void beginFrame(byte frameType,
+                            int width,
+                            int height,
+                            int firstColorToEmit) throws IOException {
+        frameBytes.reset();
+        frameOut.writeInt(0); // Placeholder for the frame length.
+        frameOut.writeByte(frameType);
+        writeVarInt(frameOut, width);
+        writeVarInt(frameOut, height);
+        writeVarInt(frameOut,
+                    registerColor(model.getBlinkCursorForegroundColor()));
+        
+        writeVarInt(frameOut,
+                    registerColor(model.getBlinkCursorBackgroundColor()));
+        
+        if (frameType == FRAME_KEY) {
+            frameOut.writeByte(RECORD_PALETTE_RESET);
+        }
+        
+        nextColorToEmit = firstColorToEmit;
+        emitNewColors();
+    }
+    
+    private void emitNewColors() throws IOException {
+        while (nextColorToEmit < palette.size()) {
+            frameOut.writeByte(RECORD_COLOR);
+            writeVarInt(frameOut, nextColorToEmit);
+            frameOut.writeInt(TextUIWindowSessionRecorder.toArgb(
+                    palette.get(nextColorToEmit)));
+            
+            nextColorToEmit++;
+        }
+    }
+    
+    private byte[] endFrame() throws IOException {
+        frameOut.writeByte(RECORD_END);
+        frameOut.flush();
+        
+        byte[] frame = frameBytes.toByteArray();
+        int payloadLength = frame.length - Integer.BYTES;
+        frame[0] = (byte) (payloadLength >>> 24);
+        frame[1] = (byte) (payloadLength >>> 16);
+        frame[2] = (byte) (payloadLength >>> 8);
+        frame[3] = (byte)  payloadLength;
+        return frame;
+    }
+    
+    private void writeRun(int y, int fromX, int toX) throws IOException {
+        int length = toX - fromX;
+        
+        if (runCellValues.length < length) {
+            runCellValues = new int[length];
+            runForegroundIndices = new int[length];
+            runBackgroundIndices = new int[length];
+            runCursors = new boolean[length];
+        }
+        
+        // Snapshot the run first. Concurrent writers may change the model
+        // while we encode, and the colors we refer to must all be emitted
+        // before the run record:
+        for (int i = 0; i < length; i++) {
+            runCellValues[i] = model.charAt(fromX + i, y);
+            runForegroundIndices[i] =
+                    registerColor(model.foregroundColorAt(fromX + i, y));
+            
+            runBackgroundIndices[i] =
+                    registerColor(model.backgroundColorAt(fromX + i, y));
+            
+            runCursors[i] = model.cursorAt(fromX + i, y);
+        }
+        
+        emitNewColors();
+        
+        frameOut.writeByte(RECORD_RUN);
+        writeVarInt(frameOut, y);
+        writeVarInt(frameOut, fromX);
+        writeVarInt(frameOut, length);
+        
+        int i = 0;
+        
+        while (i < length) {
+            int repeat = 1;
+            
+            while (i + repeat < length
+                    && runCellValues[i + repeat] == runCellValues[i]
+                    && runForegroundIndices[i + repeat]
+                            == runForegroundIndices[i]
+                    && runBackgroundIndices[i + repeat]
+                            == runBackgroundIndices[i]
+                    && runCursors[i + repeat] == runCursors[i]) {
+                repeat++;
+            }
+            
+            int cellValue = runCellValues[i];
+            int flags = runCursors[i] ? CELL_FLAG_CURSOR : 0;
+            
+            if (cellValue == TextUIWindowGraphemes.WIDE_CONTINUATION) {
+                flags |= CELL_FLAG_WIDE_CONTINUATION;
+            } else if (cellValue < 0) {
+                flags |= CELL_FLAG_GRAPHEME;
+            }
+            
+            writeVarInt(frameOut, repeat);
+            frameOut.writeByte(flags);
+            writeCell(frameOut, flags, cellValue);
+            writeVarInt(frameOut, runForegroundIndices[i]);
+            writeVarInt(frameOut, runBackgroundIndices[i]);
+            i += repeat;
+        }
+    }
+    
+    private int registerColor(Color color) {
+        Integer index = paletteIndexMap.get(color);
+        
+        if (index != null) {
+            return index;
+        }
+        
+        int newIndex = palette.size();
+        palette.add(color);
+        paletteIndexMap.put(color, newIndex);
+        return newIndex;
+    }
+    
+    private final class Client {
+        
+        private final Socket socket;
+        private final BlockingQueue<byte[]> queue;
+        private final Thread writerThread;
+        private volatile boolean needsKeyFrame = true;
+        
+        Client(Socket socket, int maximumQueuedFrames) {
+            this.socket = socket;
+            this.queue = new ArrayBlockingQueue<>(maximumQueuedFrames);
+            this.writerThread = new Thread(this::writeFrames,
+                                           "TextUIWindowMirrorServer-client-"
+                                                   + socket.getPort());
+            this.writerThread.setDaemon(true);
+        }
+        
+        void start() {
+            writerThread.start();
+        }
+        
+        void close() {
+            writerThread.interrupt();
+            
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                
+            }
+        }
+        
+        private void writeFrames() {
+            try (OutputStream out =
+                    new BufferedOutputStream(socket.getOutputStream(),
+                                             SOCKET_BUFFER_SIZE)) {
+                DataOutputStream dataOut = new DataOutputStream(out);
+                dataOut.writeInt(MAGIC);
+                dataOut.writeByte(VERSION);
+                dataOut.flush();
+                
+                while (doRun) {
+                    byte[] frame = queue.take();
+                    
+                    // Batch whatever else is queued into the same flush:
+                    do {
+                        out.write(frame);
+                        sentFrames.incrementAndGet();
+                        sentBytes.addAndGet(frame.length);
+                    } while ((frame = queue.poll()) != null);
+                    
+                    out.flush();
+                }
+            } catch (IOException | InterruptedException ex) {
+                // The client went away or we are shutting down.
+            } finally {
+                clients.remove(this);
+                close();
+            }
+        }
+    }
+}
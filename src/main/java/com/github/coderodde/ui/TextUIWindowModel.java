@@ -0,0 +1,1389 @@
+package com.github.coderodde.ui;
+
+import java.io.IOException;
+import java.text.BreakIterator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javafx.scene.paint.Color;
+import static com.github.coderodde.ui.TextUIWindowGraphemes.WIDE_CONTINUATION;
+
+/**
+ * This class implements the character cell model of a text UI window. A single
+ * model may be shown by several {@link TextUIWindow} views at the same time,
+ * each of which renders its own region of the model and repaints only the
+ * cells that have changed since its previous repaint.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class TextUIWindowModel {
+    
+    private static final int MINIMUM_WIDTH = 1;
+    private static final int MINIMUM_HEIGHT = 1;
+    static final Color DEFAULT_TEXT_BACKGROUND_COLOR = Color.BLACK;
+    static final Color DEFAULT_TEXT_FOREGROUND_COLOR = Color.WHITE;
+    private static final Color DEFAULT_BLINK_BACKGROUND_COLOR = Color.WHITE;
+    private static final Color DEFAULT_BLINK_FOREGROUND_COLOR = Color.BLACK;
+    static final char DEFAULT_CHAR = ' ';
+    private static final int CAPACITY_GROWTH_NUMERATOR = 3;
+    private static final int CAPACITY_GROWTH_DENOMINATOR = 2;
+    private static final char REPLACEMENT_CHAR = '\ufffd';
+    private static final int SLOT_MASK_WORDS = TextUIWindowPalette.SIZE / 64;
+    private static final int FOREGROUND_SLOT_BITS = 0xffff;
+    private static final int BACKGROUND_SLOT_SHIFT = 16;
+    
+    // Strings consisting only of chars below this one may be printed char by 
+    // char without grapheme cluster segmentation: there are no combining 
+    // marks, surrogates or wide characters in them:
+    private static final char SIMPLE_CHAR_LIMIT = '\u0300';
+    
+    private volatile int width;
+    private volatile int height;
+    private final List<TextUIWindowModelListener> modelListeners =
+            new CopyOnWriteArrayList<>();
+    
+    // The grids below may be larger than width x height. Rows beyond 'height'
+    // and columns beyond 'width' are spare capacity kept around so that
+    // resizing does not need to reallocate on every call:
+    private Color[][] backgroundColorGrid;
+    private Color[][] foregroundColorGrid;
+    private boolean[][] cursorGrid;
+    
+    // Holds the cell values as described in TextUIWindowGraphemes:
+    private int[][] charGrid;
+    
+    // The palette slots the cells refer to: the foreground slot plus one in 
+    // the low 16 bits, and the background slot plus one in the high 16 bits.
+    // Zero stands for the color held by the cell itself:
+    private int[][] slotGrid;
+    
+    // rowSlotMasks[y] has the bit 's' set if a cell of the row 'y' may refer 
+    // to the slot 's'. The bits are cleared only when the row is cleared or 
+    // rebuilt, so a palette change may repaint a few rows needlessly, but 
+    // never misses one:
+    private long[][] rowSlotMasks;
+    private int textSlots;
+    private volatile TextUIWindowPalette palette;
+    
+    private final TextUIWindowPaletteListener paletteListener = 
+            new TextUIWindowPaletteListener() {
+        
+        @Override
+        public void onPaletteChanged(BitSet changedSlots) {
+            fireSlotsChanged(changedSlots.toLongArray());
+            recordPaletteColors(palette, changedSlots);
+        }
+    };
+    
+    // wrappedRows[y] is true if the row 'y' continues on the row 'y + 1'. Used
+    // for reflowing the text on resizing:
+    private boolean[] wrappedRows;
+    
+    // The rows the text is reflown into. They trade places with the current
+    // rows afterwards, so the storage is allocated by the first reflow only
+    // and again after the capacity grows:
+    private Color[][] spareBackgroundColorGrid;
+    private Color[][] spareForegroundColorGrid;
+    private boolean[][] spareCursorGrid;
+    private int[][] spareCharGrid;
+    private int[][] spareSlotGrid;
+    private boolean[] spareWrappedRows;
+    private Color textBackgroundColor = DEFAULT_TEXT_BACKGROUND_COLOR;
+    private Color textForegroundColor = DEFAULT_TEXT_FOREGROUND_COLOR;
+    private Color blinkCursorBackgroundColor = DEFAULT_BLINK_BACKGROUND_COLOR;
+    private Color blinkCursorForegroundColor = DEFAULT_BLINK_FOREGROUND_COLOR;
+    private volatile TextUIWindowSessionRecorder sessionRecorder;
+    
+    public TextUIWindowModel(int width, int height) {
+        this.width = checkWidth(width);
+        this.height = checkHeight(height);
+        
+        backgroundColorGrid = new Color[height][width];
+        foregroundColorGrid = new Color[height][width];
+        charGrid = new int[height][width];
+        slotGrid = new int[height][width];
+        rowSlotMasks = new long[height][SLOT_MASK_WORDS];
+        cursorGrid = new boolean[height][width];
+        wrappedRows = new boolean[height];
+        
+        setDefaultForegroundColors();
+        setDefaultBackgroundColors();
+        setChars();
+    }
+    
+    public void addModelListener(TextUIWindowModelListener listener) {
+        modelListeners.add(
+                Objects.requireNonNull(listener, "The listener is null."));
+    }
+    
+    public void removeModelListener(TextUIWindowModelListener listener) {
+        modelListeners.remove(listener);
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public Color getTextForegroundColor() {
+        return textForegroundColor;
+    }
+    
+    public Color getTextBackgroundColor() {
+        return textBackgroundColor;
+    }
+    
+    public Color getBlinkCursorForegroundColor() {
+        return blinkCursorForegroundColor;
+    }
+    
+    public Color getBlinkCursorBackgroundColor() {
+        return blinkCursorBackgroundColor;
+    }
+    
+    public void turnOffBlink(int charX, int charY) {
+        if (checkXandY(charX, charY)) {
+            cursorGrid[charY][charX] = false;
+            fireCursorChanged(charX, charY, 1, 1);
+        }
+        
+        record(TextUIWindowSessionRecorder.EVENT_TURN_OFF_BLINK, charX, charY);
+    }
+    
+    public void setBlinkCursorBackgroundColor(Color backgroundColor) {
+        this.blinkCursorBackgroundColor =
+                Objects.requireNonNull(
+                        backgroundColor,
+                        "backgroundColor is null.");
+        
+        fireCursorChanged(0, 0, width, height);
+        record(TextUIWindowSessionRecorder
+                .EVENT_SET_BLINK_CURSOR_BACKGROUND_COLOR,
+               backgroundColor);
+    }
+    
+    public void setBlinkCursorForegroundColor(Color foregroundColor) {
+        this.blinkCursorForegroundColor =
+                Objects.requireNonNull(
+                        foregroundColor,
+                        "foregroundColor is null.");
+        
+        fireCursorChanged(0, 0, width, height);
+        record(TextUIWindowSessionRecorder
+                .EVENT_SET_BLINK_CURSOR_FOREGROUND_COLOR,
+               foregroundColor);
+    }
+    
+    public void setTextBackgroundColor(Color backgroundColor) {
+        this.textBackgroundColor =
+                Objects.requireNonNull(backgroundColor,
+                                       "The input color is null.");
+        
+        textSlots &= FOREGROUND_SLOT_BITS;
+        record(TextUIWindowSessionRecorder.EVENT_SET_TEXT_BACKGROUND_COLOR,
+               backgroundColor);
+    }
+    
+    public void setTextForegroundColor(Color foregroundColor) {
+        this.textForegroundColor =
+                Objects.requireNonNull(foregroundColor,
+                                       "The input color is null.");
+        
+        textSlots &= ~FOREGROUND_SLOT_BITS;
+        record(TextUIWindowSessionRecorder.EVENT_SET_TEXT_FOREGROUND_COLOR,
+               foregroundColor);
+    }
+    
+    /**
+     * Returns the palette the cells of this model refer to. Unless set, each
+     * model has a palette of its own, created on the first use.
+     * 
+     * @return the palette.
+     */
+    public TextUIWindowPalette getPalette() {
+        TextUIWindowPalette currentPalette = palette;
+        
+        if (currentPalette == null) {
+            synchronized (paletteListener) {
+                currentPalette = palette;
+                
+                if (currentPalette == null) {
+                    currentPalette = new TextUIWindowPalette();
+                    currentPalette.addPaletteListener(paletteListener);
+                    palette = currentPalette;
+                }
+            }
+        }
+        
+        return currentPalette;
+    }
+    
+    /**
+     * Makes the cells referring to palette slots use {@code palette}. A 
+     * palette may be shared by many models; the model stays registered with
+     * the palette until another palette is set or {@link #detachPalette()} is
+     * called.
+     * 
+     * @param palette the new palette.
+     */
+    public void setPalette(TextUIWindowPalette palette) {
+        Objects.requireNonNull(palette, "The palette is null.");
+        
+        synchronized (paletteListener) {
+            TextUIWindowPalette previousPalette = this.palette;
+            
+            if (previousPalette == palette) {
+                return;
+            }
+            
+            if (previousPalette != null) {
+                previousPalette.removePaletteListener(paletteListener);
+            }
+            
+            palette.addPaletteListener(paletteListener);
+            this.palette = palette;
+        }
+        
+        // Any slot may have changed its color:
+        BitSet allSlots = new BitSet(TextUIWindowPalette.SIZE);
+        allSlots.set(0, TextUIWindowPalette.SIZE);
+        fireSlotsChanged(allSlots.toLongArray());
+        recordPaletteColors(palette, allSlots);
+    }
+    
+    /**
+     * Unregisters this model from its palette, so that a palette shared with
+     * longer-lived models no longer keeps this one reachable. The model goes
+     * on with a private copy of the palette, so its cells keep their colors.
+     */
+    public void detachPalette() {
+        synchronized (paletteListener) {
+            TextUIWindowPalette currentPalette = palette;
+            
+            if (currentPalette == null) {
+                return;
+            }
+            
+            currentPalette.removePaletteListener(paletteListener);
+            
+            TextUIWindowPalette copy = 
+                    new TextUIWindowPalette(currentPalette.getColors());
+            
+            copy.addPaletteListener(paletteListener);
+            palette = copy;
+        }
+    }
+    
+    /**
+     * Makes the text printed from now on use the palette slot {@code slot} as
+     * its foreground color, so that it follows the changes of the slot.
+     * 
+     * @param slot the palette slot.
+     */
+    public void setTextForegroundSlot(int slot) {
+        TextUIWindowPalette.checkSlot(slot);
+        textForegroundColor = getPalette().getColor(slot);
+        textSlots = (textSlots & ~FOREGROUND_SLOT_BITS) | (slot + 1);
+        recordSlot(TextUIWindowSessionRecorder.EVENT_SET_TEXT_FOREGROUND_SLOT,
+                   slot);
+    }
+    
+    /**
+     * Makes the text printed from now on use the palette slot {@code slot} as
+     * its background color, so that it follows the changes of the slot.
+     * 
+     * @param slot the palette slot.
+     */
+    public void setTextBackgroundSlot(int slot) {
+        TextUIWindowPalette.checkSlot(slot);
+        textBackgroundColor = getPalette().getColor(slot);
+        textSlots = (textSlots & FOREGROUND_SLOT_BITS) 
+                  | ((slot + 1) << BACKGROUND_SLOT_SHIFT);
+        
+        recordSlot(TextUIWindowSessionRecorder.EVENT_SET_TEXT_BACKGROUND_SLOT,
+                   slot);
+    }
+    
+    /**
+     * Returns the palette slot of the text foreground color, or -1 if the 
+     * text foreground color is not taken from the palette.
+     * 
+     * @return the palette slot or -1.
+     */
+    public int getTextForegroundSlot() {
+        return (textSlots & FOREGROUND_SLOT_BITS) - 1;
+    }
+    
+    public int getTextBackgroundSlot() {
+        return (textSlots >>> BACKGROUND_SLOT_SHIFT) - 1;
+    }
+    
+    /**
+     * Attaches a session recorder to this model. Every subsequent model
+     * mutation and every keyboard/mouse event dispatched by the views of this
+     * model will be appended to the recorder's log. Pass {@code null} in order
+     * to stop recording.
+     *
+     * @param sessionRecorder the recorder to attach, or {@code null}.
+     */
+    public void setSessionRecorder(
+            TextUIWindowSessionRecorder sessionRecorder) {
+        this.sessionRecorder = sessionRecorder;
+    }
+    
+    public TextUIWindowSessionRecorder getSessionRecorder() {
+        return sessionRecorder;
+    }
+    
+    public void toggleBlinkCursor(int charX, int charY) {
+        if (checkXandY(charX, charY)) {
+            cursorGrid[charY][charX] = !cursorGrid[charY][charX];
+            fireCursorChanged(charX, charY, 1, 1);
+        }
+        
+        record(TextUIWindowSessionRecorder.EVENT_TOGGLE_BLINK_CURSOR,
+               charX,
+               charY);
+    }
+    
+    public boolean readCursorStatus(int charX, int charY) {
+        if (!checkX(charX)) {
+            throw charXToException(charX);
+        }
+        
+        if (!checkY(charY)) {
+            throw charYToException(charY);
+        }
+        
+        return cursorGrid[charY][charX];
+    }
+    
+    public void printString(int charX, int charY, String text) {
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordPrintString(charX, charY, text);
+        }
+        
+        if (!checkY(charY)) {
+            return;
+        }
+        
+        int x = isSimple(text) ? 
+                printSimpleString(charX, charY, text) :
+                printGraphemes(charX, charY, text);
+        
+        // Include the neighbours, whose wide characters may have been broken:
+        fireCellsChanged(charX - 1, charY, x - charX + 2, 1);
+    }
+    
+    /**
+     * Blanks the row {@code charY} from the column {@code charX} to its end
+     * using the current text colors.
+     * 
+     * @param charX the first column to blank.
+     * @param charY the row.
+     */
+    public void clearToEndOfRow(int charX, int charY) {
+        int rowWidth = width;
+        int fromX = Math.max(0, charX);
+        
+        if (!checkY(charY) || fromX >= rowWidth) {
+            return;
+        }
+        
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordPrintString(fromX, 
+                                       charY, 
+                                       " ".repeat(rowWidth - fromX));
+        }
+        
+        for (int x = fromX; x < rowWidth; x++) {
+            writeCell(x, charY, DEFAULT_CHAR, 1);
+        }
+        
+        fireCellsChanged(fromX - 1, charY, rowWidth - fromX + 1, 1);
+    }
+    
+    private int printSimpleString(int charX, int charY, String text) {
+        int x = charX;
+        
+        for (int i = 0; i < text.length(); ++i, ++x) {
+            if (x >= width) {
+                // Once here, the input text string proceeds beyond the right
+                // border. Nothing to print, can exit.
+                break;
+            }
+            
+            if (x >= 0) {
+                writeCell(x, charY, text.charAt(i), 1);
+            }
+        }
+        
+        return x;
+    }
+    
+    private int printGraphemes(int charX, int charY, String text) {
+        BreakIterator breakIterator = BreakIterator.getCharacterInstance();
+        breakIterator.setText(text);
+        
+        int x = charX;
+        int start = breakIterator.first();
+        
+        for (int end = breakIterator.next(); 
+                end != BreakIterator.DONE; 
+                start = end, end = breakIterator.next()) {
+            if (x >= width) {
+                break;
+            }
+            
+            int cellValue = 
+                    TextUIWindowGraphemes.toCellValue(
+                            text.substring(start, end));
+            
+            int columns = TextUIWindowGraphemes.getColumns(cellValue);
+            
+            if (x >= 0) {
+                writeCell(x, charY, cellValue, columns);
+            } else if (x + columns > 0) {
+                // Only the right half of a wide grapheme would be visible:
+                writeCell(0, charY, DEFAULT_CHAR, 1);
+            }
+            
+            x += columns;
+        }
+        
+        return x;
+    }
+    
+    private static boolean isSimple(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= SIMPLE_CHAR_LIMIT) {
+                return false;
+            }
+        }
+        
+        return true;
+    }
+    
+    public Color getForegroundColor(int charX, int charY) {
+        if (!checkX(charX)) {
+            throw charXToException(charX);
+        }
+        
+        if (!checkY(charY)) {
+            throw charYToException(charY);
+        }
+        
+        return foregroundColorAt(charX, charY);
+    }
+    
+    public Color getBackgroundColor(int charX, int charY) {
+        if (!checkX(charX)) {
+            throw charXToException(charX);
+        }
+        
+        if (!checkY(charY)) {
+            throw charYToException(charY);
+        }
+        
+        return backgroundColorAt(charX, charY);
+    }
+    
+    public void setForegroundColor(int charX, int charY, Color color) {
+        if (checkXandY(charX, charY)) {
+            foregroundColorGrid[charY][charX] =
+                    Objects.requireNonNull(color, "The color is null.");
+            
+            slotGrid[charY][charX] &= ~FOREGROUND_SLOT_BITS;
+            fireCellsChanged(charX, charY, 1, 1);
+        }
+        
+        record(TextUIWindowSessionRecorder.EVENT_SET_FOREGROUND_COLOR,
+               charX,
+               charY,
+               color);
+    }
+    
+    public void setBackgroundColor(int x, int y, Color color) {
+        if (checkXandY(x, y)) {
+            backgroundColorGrid[y][x] =
+                    Objects.requireNonNull(color, "The color is null.");
+            
+            slotGrid[y][x] &= FOREGROUND_SLOT_BITS;
+            fireCellsChanged(x, y, 1, 1);
+        }
+        
+        record(TextUIWindowSessionRecorder.EVENT_SET_BACKGROUND_COLOR,
+               x,
+               y,
+               color);
+    }
+    
+    /**
+     * Makes the foreground color of the given cell follow the palette slot 
+     * {@code slot}.
+     * 
+     * @param x    the X coordinate of the cell.
+     * @param y    the Y coordinate of the cell.
+     * @param slot the palette slot.
+     */
+    public void setForegroundSlot(int x, int y, int slot) {
+        TextUIWindowPalette.checkSlot(slot);
+        Color color = getPalette().getColor(slot);
+        
+        if (checkXandY(x, y)) {
+            foregroundColorGrid[y][x] = color;
+            slotGrid[y][x] = (slotGrid[y][x] & ~FOREGROUND_SLOT_BITS) 
+                           | (slot + 1);
+            
+            markSlots(y, slot + 1);
+            fireCellsChanged(x, y, 1, 1);
+        }
+        
+        recordSlot(TextUIWindowSessionRecorder.EVENT_SET_FOREGROUND_SLOT,
+                   x,
+                   y,
+                   slot);
+    }
+    
+    /**
+     * Makes the background color of the given cell follow the palette slot 
+     * {@code slot}.
+     * 
+     * @param x    the X coordinate of the cell.
+     * @param y    the Y coordinate of the cell.
+     * @param slot the palette slot.
+     */
+    public void setBackgroundSlot(int x, int y, int slot) {
+        TextUIWindowPalette.checkSlot(slot);
+        Color color = getPalette().getColor(slot);
+        
+        if (checkXandY(x, y)) {
+            int slots = (slot + 1) << BACKGROUND_SLOT_SHIFT;
+            
+            backgroundColorGrid[y][x] = color;
+            slotGrid[y][x] = (slotGrid[y][x] & FOREGROUND_SLOT_BITS) | slots;
+            markSlots(y, slots);
+            fireCellsChanged(x, y, 1, 1);
+        }
+        
+        recordSlot(TextUIWindowSessionRecorder.EVENT_SET_BACKGROUND_SLOT,
+                   x,
+                   y,
+                   slot);
+    }
+    
+    /**
+     * Returns the palette slot of the foreground color of the given cell, or
+     * -1 if the cell holds a color of its own.
+     * 
+     * @param x the X coordinate of the cell.
+     * @param y the Y coordinate of the cell.
+     * @return the palette slot or -1.
+     */
+    public int getForegroundSlot(int x, int y) {
+        if (!checkXandY(x, y)) {
+            throw checkX(x) ? charYToException(y) : charXToException(x);
+        }
+        
+        return (slotGrid[y][x] & FOREGROUND_SLOT_BITS) - 1;
+    }
+    
+    public int getBackgroundSlot(int x, int y) {
+        if (!checkXandY(x, y)) {
+            throw checkX(x) ? charYToException(y) : charXToException(x);
+        }
+        
+        return (slotGrid[y][x] >>> BACKGROUND_SLOT_SHIFT) - 1;
+    }
+    
+    /**
+     * Returns the character of the given cell, or U+FFFD if the cell does not
+     * hold a single character of the Basic Multilingual Plane. Use 
+     * {@link #getGrapheme(int, int)} for full Unicode support.
+     * 
+     * @param charX the X coordinate of the cell.
+     * @param charY the Y coordinate of the cell.
+     * @return the character of the cell.
+     */
+    public char getChar(int charX, int charY) {
+        if (!checkX(charX)) {
+            throw charXToException(charX);
+        }
+        
+        if (!checkY(charY)) {
+            throw charYToException(charY);
+        }
+        
+        int cellValue = charGrid[charY][charX];
+        
+        if (cellValue >= 0 && cellValue <= Character.MAX_VALUE) {
+            return (char) cellValue;
+        }
+        
+        return REPLACEMENT_CHAR;
+    }
+    
+    /**
+     * Returns the grapheme cluster of the given cell. The right half of a wide
+     * character is returned as an empty string.
+     * 
+     * @param charX the X coordinate of the cell.
+     * @param charY the Y coordinate of the cell.
+     * @return the grapheme cluster of the cell.
+     */
+    public String getGrapheme(int charX, int charY) {
+        if (!checkX(charX)) {
+            throw charXToException(charX);
+        }
+        
+        if (!checkY(charY)) {
+            throw charYToException(charY);
+        }
+        
+        return TextUIWindowGraphemes.toString(charGrid[charY][charX]);
+    }
+    
+    public void setChar(int x, int y, char ch) {
+        if (checkXandY(x, y)) {
+            writeCell(x, y, ch, 1);
+            fireCellsChanged(x - 1, y, 3, 1);
+        }
+        
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordSetChar(x, y, ch);
+        }
+    }
+    
+    public void setCodePoint(int x, int y, int codePoint) {
+        if (!Character.isValidCodePoint(codePoint)) {
+            throw new IllegalArgumentException(
+                    "Invalid code point: " + codePoint + ".");
+        }
+        
+        setCellValue(x, y, codePoint);
+    }
+    
+    /**
+     * Sets the given cell to a single grapheme cluster, such as a character
+     * followed by combining marks or an emoji sequence. A wide grapheme also
+     * occupies the cell to the right.
+     * 
+     * @param x        the X coordinate of the cell.
+     * @param y        the Y coordinate of the cell.
+     * @param grapheme the grapheme cluster.
+     */
+    public void setGrapheme(int x, int y, String grapheme) {
+        Objects.requireNonNull(grapheme, "The grapheme is null.");
+        setCellValue(x, y, TextUIWindowGraphemes.toCellValue(grapheme));
+    }
+    
+    private void setCellValue(int x, int y, int cellValue) {
+        int columns = TextUIWindowGraphemes.getColumns(cellValue);
+        
+        if (checkXandY(x, y)) {
+            writeCell(x, y, cellValue, columns);
+            fireCellsChanged(x - 1, y, columns + 2, 1);
+        }
+        
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordSetGrapheme(
+                    x, 
+                    y, 
+                    TextUIWindowGraphemes.toString(cellValue));
+        }
+    }
+    
+    /**
+     * Resizes the character grid without reflowing the text. Cells that stay
+     * within the new bounds keep their content.
+     *
+     * @param width  the new width in characters.
+     * @param height the new height in characters.
+     */
+    public void resize(int width, int height) {
+        resize(width, height, false);
+    }
+    
+    /**
+     * Resizes the character grid. The underlying cell storage grows
+     * geometrically and is never shrunk, so that frequent resizing does not
+     * reallocate on each call.
+     * <p>
+     * If {@code reflow} is {@code true}, the text is rewrapped to the new
+     * width: rows that were cut by a narrower width are joined again, and rows
+     * that do not fit the new width continue on the next row. If the
+     * rewrapped text does not fit into the new height, the topmost rows are
+     * dropped.
+     *
+     * @param width  the new width in characters.
+     * @param height the new height in characters.
+     * @param reflow whether to rewrap the text.
+     */
+    public void resize(int width, int height, boolean reflow) {
+        checkWidth(width);
+        checkHeight(height);
+        
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        
+        ensureCapacity(width, height);
+        
+        if (reflow) {
+            reflow(width, height);
+        } else {
+            if (width > this.width) {
+                clearCells(this.width, 0, width, Math.min(height, this.height));
+            }
+            
+            clearCells(0, this.height, width, height);
+            
+            if (width != this.width) {
+                // The soft line breaks are not valid for the new width:
+                Arrays.fill(wrappedRows, false);
+            }
+        }
+        
+        // Publish the new dimensions only after the storage is in place, so
+        // that concurrent writers never index beyond it:
+        this.width = width;
+        this.height = height;
+        
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordResize(width, height, reflow);
+        }
+        
+        for (TextUIWindowModelListener listener : modelListeners) {
+            listener.onModelResized(width, height);
+        }
+    }
+    
+    // The following accessors skip the bounds checks and are used by the
+    // renderers, which iterate only over valid coordinates.
+    
+    int charAt(int charX, int charY) {
+        return charGrid[charY][charX];
+    }
+    
+    Color foregroundColorAt(int charX, int charY) {
+        int slot = slotGrid[charY][charX] & FOREGROUND_SLOT_BITS;
+        
+        return slot == 0 ? 
+                foregroundColorGrid[charY][charX] : 
+                palette.colorAt(slot - 1);
+    }
+    
+    Color backgroundColorAt(int charX, int charY) {
+        int slot = slotGrid[charY][charX] >>> BACKGROUND_SLOT_SHIFT;
+        
+        return slot == 0 ? 
+                backgroundColorGrid[charY][charX] : 
+                palette.colorAt(slot - 1);
+    }
+    
+    boolean cursorAt(int charX, int charY) {
+        return cursorGrid[charY][charX];
+    }
+    
+    /**
+     * Appends the text of the cells {@code fromX, ..., toX - 1} of the row 
+     * {@code charY} to {@code out}, without the trailing blanks. The cells are
+     * read straight from the row array and appended as characters, so no 
+     * string is created per cell.
+     */
+    void appendRowText(Appendable out, int charY, int fromX, int toX) 
+            throws IOException {
+        if (charY < 0 || charY >= height) {
+            return;
+        }
+        
+        int[] charRow = charGrid[charY];
+        fromX = Math.max(0, fromX);
+        toX = Math.min(width, toX);
+        
+        while (toX > fromX && charRow[toX - 1] == DEFAULT_CHAR) {
+            toX--;
+        }
+        
+        for (int x = fromX; x < toX; x++) {
+            int cellValue = charRow[x];
+            
+            if (cellValue == WIDE_CONTINUATION) {
+                continue;
+            }
+            
+            if (cellValue < 0) {
+                out.append(TextUIWindowGraphemes.toString(cellValue));
+            } else if (cellValue < Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+                out.append((char) cellValue);
+            } else {
+                out.append(Character.highSurrogate(cellValue));
+                out.append(Character.lowSurrogate(cellValue));
+            }
+        }
+    }
+    
+    /**
+     * Overwrites a cell without notifying the listeners or the session 
+     * recorder. Used by bulk updates which report the damage themselves.
+     */
+    void putCell(int charX, 
+                 int charY, 
+                 int cellValue, 
+                 Color foregroundColor, 
+                 Color backgroundColor, 
+                 boolean cursor) {
+        if (checkXandY(charX, charY)) {
+            charGrid[charY][charX] = cellValue;
+            foregroundColorGrid[charY][charX] = foregroundColor;
+            backgroundColorGrid[charY][charX] = backgroundColor;
+            slotGrid[charY][charX] = 0;
+            cursorGrid[charY][charX] = cursor;
+        }
+    }
+    
+    void fireCellsChanged(int charX, int charY, int width, int height) {
+        for (TextUIWindowModelListener listener : modelListeners) {
+            listener.onCellsChanged(charX, charY, width, height);
+        }
+    }
+    
+    void fireCursorChanged(int charX, int charY, int width, int height) {
+        for (TextUIWindowModelListener listener : modelListeners) {
+            listener.onCursorChanged(charX, charY, width, height);
+        }
+    }
+    
+    /**
+     * Writes a cell value spanning {@code columns} cells at the valid 
+     * coordinates {@code (x, y)}. Wide characters partially overwritten by
+     * this write are replaced by the default character.
+     */
+    private void writeCell(int x, int y, int cellValue, int columns) {
+        int[] charRow = charGrid[y];
+        int rowWidth = width;
+        
+        if (columns == 2 && x + 1 >= rowWidth) {
+            // No room for the right half:
+            cellValue = DEFAULT_CHAR;
+            columns = 1;
+        }
+        
+        if (x > 0 && charRow[x] == WIDE_CONTINUATION) {
+            charRow[x - 1] = DEFAULT_CHAR;
+        }
+        
+        int lastX = x + columns - 1;
+        
+        if (lastX + 1 < rowWidth && charRow[lastX + 1] == WIDE_CONTINUATION) {
+            charRow[lastX + 1] = DEFAULT_CHAR;
+        }
+        
+        int slots = textSlots;
+        
+        charRow[x] = cellValue;
+        foregroundColorGrid[y][x] = textForegroundColor;
+        backgroundColorGrid[y][x] = textBackgroundColor;
+        slotGrid[y][x] = slots;
+        
+        if (columns == 2) {
+            charRow[x + 1] = WIDE_CONTINUATION;
+            foregroundColorGrid[y][x + 1] = textForegroundColor;
+            backgroundColorGrid[y][x + 1] = textBackgroundColor;
+            slotGrid[y][x + 1] = slots;
+        }
+        
+        if (slots != 0) {
+            markSlots(y, slots);
+        }
+    }
+    
+    /**
+     * Records that the row {@code y} refers to the palette slots packed in
+     * {@code slots}.
+     */
+    private void markSlots(int y, int slots) {
+        long[] mask = rowSlotMasks[y];
+        int foregroundSlot = (slots & FOREGROUND_SLOT_BITS) - 1;
+        int backgroundSlot = (slots >>> BACKGROUND_SLOT_SHIFT) - 1;
+        
+        if (foregroundSlot >= 0) {
+            mask[foregroundSlot >>> 6] |= 1L << foregroundSlot;
+        }
+        
+        if (backgroundSlot >= 0) {
+            mask[backgroundSlot >>> 6] |= 1L << backgroundSlot;
+        }
+    }
+    
+    /**
+     * Reports the rows referring to any of the changed palette slots as 
+     * changed, merging adjacent rows into a single report. Only the row masks
+     * are scanned, never the cells.
+     */
+    private void fireSlotsChanged(long[] changedSlots) {
+        int rowWidth = width;
+        int rows = height;
+        int fromY = -1;
+        
+        for (int y = 0; y <= rows; y++) {
+            boolean changed = y < rows 
+                    && intersects(rowSlotMasks[y], changedSlots);
+            
+            if (changed && fromY < 0) {
+                fromY = y;
+            } else if (!changed && fromY >= 0) {
+                fireCellsChanged(0, fromY, rowWidth, y - fromY);
+                fromY = -1;
+            }
+        }
+    }
+    
+    private static boolean intersects(long[] mask, long[] changedSlots) {
+        for (int i = 0; i < changedSlots.length; i++) {
+            if ((mask[i] & changedSlots[i]) != 0) {
+                return true;
+            }
+        }
+        
+        return false;
+    }
+    
+    private void record(byte eventType, Color color) {
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordColor(eventType, color);
+        }
+    }
+    
+    private void record(byte eventType, int charX, int charY) {
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordCell(eventType, charX, charY);
+        }
+    }
+    
+    private void record(byte eventType, int charX, int charY, Color color) {
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordCellColor(eventType, charX, charY, color);
+        }
+    }
+    
+    private void recordSlot(byte eventType, int slot) {
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordSlot(eventType, slot);
+        }
+    }
+    
+    private void recordSlot(byte eventType, int charX, int charY, int slot) {
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder != null) {
+            recorder.recordCellSlot(eventType, charX, charY, slot);
+        }
+    }
+    
+    private void recordPaletteColors(TextUIWindowPalette palette, 
+                                     BitSet slots) {
+        TextUIWindowSessionRecorder recorder = sessionRecorder;
+        
+        if (recorder == null || palette == null) {
+            return;
+        }
+        
+        for (int slot = slots.nextSetBit(0); 
+                slot >= 0; 
+                slot = slots.nextSetBit(slot + 1)) {
+            recorder.recordPaletteColor(slot, palette.getColor(slot));
+        }
+    }
+    
+    private void ensureCapacity(int requestedWidth, int requestedHeight) {
+        int rowCapacity = charGrid.length;
+        int columnCapacity = charGrid[0].length;
+        
+        if (requestedWidth <= columnCapacity
+                && requestedHeight <= rowCapacity) {
+            return;
+        }
+        
+        int newColumnCapacity = grow(columnCapacity, requestedWidth);
+        int newRowCapacity = grow(rowCapacity, requestedHeight);
+        
+        Color[][] newBackgroundColorGrid = new Color[newRowCapacity][];
+        Color[][] newForegroundColorGrid = new Color[newRowCapacity][];
+        int[][] newCharGrid = new int[newRowCapacity][];
+        int[][] newSlotGrid = new int[newRowCapacity][];
+        boolean[][] newCursorGrid = new boolean[newRowCapacity][];
+        
+        for (int y = 0; y < newRowCapacity; y++) {
+            if (y < rowCapacity && newColumnCapacity == columnCapacity) {
+                // Reuse the existing row storage as is:
+                newBackgroundColorGrid[y] = backgroundColorGrid[y];
+                newForegroundColorGrid[y] = foregroundColorGrid[y];
+                newCharGrid[y] = charGrid[y];
+                newSlotGrid[y] = slotGrid[y];
+                newCursorGrid[y] = cursorGrid[y];
+            } else if (y < rowCapacity) {
+                newBackgroundColorGrid[y] =
+                        Arrays.copyOf(backgroundColorGrid[y],
+                                      newColumnCapacity);
+                
+                newForegroundColorGrid[y] =
+                        Arrays.copyOf(foregroundColorGrid[y],
+                                      newColumnCapacity);
+                
+                newCharGrid[y] = Arrays.copyOf(charGrid[y], newColumnCapacity);
+                newSlotGrid[y] = Arrays.copyOf(slotGrid[y], newColumnCapacity);
+                newCursorGrid[y] = Arrays.copyOf(cursorGrid[y],
+                                                 newColumnCapacity);
+            } else {
+                newBackgroundColorGrid[y] = new Color[newColumnCapacity];
+                newForegroundColorGrid[y] = new Color[newColumnCapacity];
+                newCharGrid[y] = new int[newColumnCapacity];
+                newSlotGrid[y] = new int[newColumnCapacity];
+                newCursorGrid[y] = new boolean[newColumnCapacity];
+            }
+        }
+        
+        backgroundColorGrid = newBackgroundColorGrid;
+        foregroundColorGrid = newForegroundColorGrid;
+        charGrid = newCharGrid;
+        slotGrid = newSlotGrid;
+        cursorGrid = newCursorGrid;
+        wrappedRows = Arrays.copyOf(wrappedRows, newRowCapacity);
+        rowSlotMasks = Arrays.copyOf(rowSlotMasks, newRowCapacity);
+        
+        for (int y = rowCapacity; y < newRowCapacity; y++) {
+            rowSlotMasks[y] = new long[SLOT_MASK_WORDS];
+        }
+        
+        // The spare rows are too small now; the next reflow reallocates them:
+        spareCharGrid = null;
+    }
+    
+    private static int grow(int capacity, int requestedCapacity) {
+        if (requestedCapacity <= capacity) {
+            return capacity;
+        }
+        
+        return Math.max(requestedCapacity,
+                        capacity * CAPACITY_GROWTH_NUMERATOR
+                                 / CAPACITY_GROWTH_DENOMINATOR);
+    }
+    
+    private void clearCells(int fromX, int fromY, int toX, int toY) {
+        for (int y = fromY; y < toY; y++) {
+            Arrays.fill(charGrid[y], fromX, toX, DEFAULT_CHAR);
+            Arrays.fill(foregroundColorGrid[y],
+                        fromX,
+                        toX,
+                        DEFAULT_TEXT_FOREGROUND_COLOR);
+            
+            Arrays.fill(backgroundColorGrid[y],
+                        fromX,
+                        toX,
+                        DEFAULT_TEXT_BACKGROUND_COLOR);
+            
+            Arrays.fill(slotGrid[y], fromX, toX, 0);
+            Arrays.fill(cursorGrid[y], fromX, toX, false);
+            
+            if (fromX == 0) {
+                wrappedRows[y] = false;
+                Arrays.fill(rowSlotMasks[y], 0L);
+            }
+        }
+    }
+    
+    /**
+     * Rewraps the current content to {@code newWidth} columns. The reflown
+     * rows are written into the spare rows, which then trade places with the
+     * current ones. The cursors move along with their cells.
+     */
+    private void reflow(int newWidth, int newHeight) {
+        int oldWidth = width;
+        int oldHeight = height;
+        
+        // First pass: count the reflown rows so that we know how many of the
+        // topmost ones to drop:
+        int totalRows = 0;
+        int logicalLineLength = 0;
+        
+        for (int y = 0; y < oldHeight; y++) {
+            if (wrappedRows[y] && y < oldHeight - 1) {
+                logicalLineLength += oldWidth;
+                continue;
+            }
+            
+            logicalLineLength += getTrimmedRowLength(y, oldWidth);
+            totalRows += Math.max(1, (logicalLineLength + newWidth - 1)
+                                     / newWidth);
+            logicalLineLength = 0;
+        }
+        
+        int rowsToSkip = Math.max(0, totalRows - newHeight);
+        
+        if (spareCharGrid == null) {
+            allocateSpareRows();
+        }
+        
+        Color[][] newBackgroundColorGrid = spareBackgroundColorGrid;
+        Color[][] newForegroundColorGrid = spareForegroundColorGrid;
+        boolean[][] newCursorGrid = spareCursorGrid;
+        int[][] newCharGrid = spareCharGrid;
+        int[][] newSlotGrid = spareSlotGrid;
+        boolean[] newWrappedRows = spareWrappedRows;
+        
+        // The cells beyond the new bounds are cleared once a later resize
+        // exposes them:
+        for (int y = 0; y < newHeight; y++) {
+            Arrays.fill(newCharGrid[y], 0, newWidth, DEFAULT_CHAR);
+            Arrays.fill(newForegroundColorGrid[y], 
+                        0, 
+                        newWidth,
+                        DEFAULT_TEXT_FOREGROUND_COLOR);
+            
+            Arrays.fill(newBackgroundColorGrid[y],
+                        0, 
+                        newWidth,
+                        DEFAULT_TEXT_BACKGROUND_COLOR);
+            
+            Arrays.fill(newSlotGrid[y], 0, newWidth, 0);
+            Arrays.fill(newCursorGrid[y], 0, newWidth, false);
+        }
+        
+        Arrays.fill(newWrappedRows, false);
+        
+        // Second pass: copy the cells:
+        int targetX = 0;
+        int targetY = -rowsToSkip;
+        
+        for (int y = 0; y < oldHeight; y++) {
+            boolean continues = wrappedRows[y] && y < oldHeight - 1;
+            int length = continues ? oldWidth : getTrimmedRowLength(y,
+                                                                    oldWidth);
+            
+            for (int x = 0; x < length; x++) {
+                if (targetX == newWidth - 1 
+                        && newWidth > 1
+                        && x + 1 < oldWidth
+                        && charGrid[y][x + 1] == WIDE_CONTINUATION) {
+                    // Do not split a wide character, move it to the next row
+                    // as a whole:
+                    targetX = newWidth;
+                }
+                
+                if (targetX == newWidth) {
+                    if (targetY >= 0 && targetY < newHeight) {
+                        newWrappedRows[targetY] = true;
+                    }
+                    
+                    targetX = 0;
+                    targetY++;
+                }
+                
+                if (targetY >= 0 && targetY < newHeight) {
+                    newCharGrid[targetY][targetX] = charGrid[y][x];
+                    newForegroundColorGrid[targetY][targetX] =
+                            foregroundColorGrid[y][x];
+                    
+                    newBackgroundColorGrid[targetY][targetX] =
+                            backgroundColorGrid[y][x];
+                    
+                    newSlotGrid[targetY][targetX] = slotGrid[y][x];
+                    newCursorGrid[targetY][targetX] = cursorGrid[y][x];
+                }
+                
+                targetX++;
+            }
+            
+            if (!continues) {
+                targetX = 0;
+                targetY++;
+            }
+        }
+        
+        // The current rows become the spare ones for the next reflow:
+        spareBackgroundColorGrid = backgroundColorGrid;
+        spareForegroundColorGrid = foregroundColorGrid;
+        spareCursorGrid = cursorGrid;
+        spareCharGrid = charGrid;
+        spareSlotGrid = slotGrid;
+        spareWrappedRows = wrappedRows;
+        
+        backgroundColorGrid = newBackgroundColorGrid;
+        foregroundColorGrid = newForegroundColorGrid;
+        cursorGrid = newCursorGrid;
+        charGrid = newCharGrid;
+        slotGrid = newSlotGrid;
+        wrappedRows = newWrappedRows;
+        
+        for (int y = 0; y < rowSlotMasks.length; y++) {
+            Arrays.fill(rowSlotMasks[y], 0L);
+        }
+        
+        for (int y = 0; y < newHeight; y++) {
+            int[] slotRow = newSlotGrid[y];
+            
+            for (int x = 0; x < newWidth; x++) {
+                if (slotRow[x] != 0) {
+                    markSlots(y, slotRow[x]);
+                }
+            }
+        }
+    }
+    
+    private void allocateSpareRows() {
+        int rowCapacity = charGrid.length;
+        int columnCapacity = charGrid[0].length;
+        
+        spareBackgroundColorGrid = new Color[rowCapacity][columnCapacity];
+        spareForegroundColorGrid = new Color[rowCapacity][columnCapacity];
+        spareCursorGrid = new boolean[rowCapacity][columnCapacity];
+        spareCharGrid = new int[rowCapacity][columnCapacity];
+        spareSlotGrid = new int[rowCapacity][columnCapacity];
+        spareWrappedRows = new boolean[rowCapacity];
+    }
+    
+    /**
+     * Returns the length of the row {@code y} without its trailing blank cells.
+     * A cell showing a cursor is not blank, so that the cursor is reflown.
+     */
+    private int getTrimmedRowLength(int y, int rowWidth) {
+        int[] charRow = charGrid[y];
+        Color[] backgroundColorRow = backgroundColorGrid[y];
+        boolean[] cursorRow = cursorGrid[y];
+        int length = rowWidth;
+        
+        while (length > 0
+                && charRow[length - 1] == DEFAULT_CHAR
+                && backgroundColorRow[length - 1]
+                        == DEFAULT_TEXT_BACKGROUND_COLOR
+                && !cursorRow[length - 1]) {
+            length--;
+        }
+        
+        return length;
+    }
+    
+    private static int checkWidth(int widthCandidate) {
+        if (widthCandidate < MINIMUM_WIDTH) {
+            throw new IllegalArgumentException(
+                    "Width candidate is invalid ("
+                            + widthCandidate
+                            + "). Must be at least "
+                            + MINIMUM_WIDTH
+                            + ".");
+        }
+        
+        return widthCandidate;
+    }
+    
+    private static int checkHeight(int heightCandidate) {
+        if (heightCandidate < MINIMUM_WIDTH) {
+            throw new IllegalArgumentException(
+                    "Height candidate is invalid ("
+                            + heightCandidate
+                            + "). Must be at least "
+                            + MINIMUM_HEIGHT
+                            + ".");
+        }
+        
+        return heightCandidate;
+    }
+    
+    private IndexOutOfBoundsException charXToException(int charX) {
+        if (charX < 0) {
+            return new IndexOutOfBoundsException(
+                    "Character X coordinate is negative: " + charX);
+        }
+        
+        if (charX >= width) {
+            return new IndexOutOfBoundsException(
+                    "Character X coordinate is too large: "
+                            + charX
+                            + ". Must be at most "
+                            + (width - 1)
+                            + ".");
+        }
+        
+        throw new IllegalStateException("Should not get here.");
+    }
+    
+    private IndexOutOfBoundsException charYToException(int charY) {
+        if (charY < 0) {
+            throw new IndexOutOfBoundsException(
+                    "Character Y coordinate is negative: " + charY);
+        }
+        
+        if (charY >= height) {
+            throw new IndexOutOfBoundsException(
+                    "Character Y coordinate is too large: "
+                            + charY
+                            + ". Must be at most "
+                            + (height - 1)
+                            + ".");
+        }
+        
+        throw new IllegalStateException("Should not get here.");
+    }
+    
+    private boolean checkX(int x) {
+        return x >= 0 && x < width;
+    }
+    
+    private boolean checkY(int y) {
+        return y >= 0 && y < height;
+    }
+    
+    private boolean checkXandY(int x, int y) {
+        return checkX(x) && checkY(y);
+    }
+    
+    private void setDefaultForegroundColors() {
+        for (Color[] colors : foregroundColorGrid) {
+            for (int i = 0; i < width; i++) {
+                colors[i] = DEFAULT_TEXT_FOREGROUND_COLOR;
+            }
+        }
+    }
+    
+    private void setDefaultBackgroundColors() {
+        for (Color[] colors : backgroundColorGrid) {
+            for (int i = 0; i < width; i++) {
+                colors[i] = DEFAULT_TEXT_BACKGROUND_COLOR;
+            }
+        }
+    }
+    
+    private void setChars() {
+        for (int[] charRow : charGrid) {
+            for (int i = 0; i < width; i++) {
+                charRow[i] = DEFAULT_CHAR;
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.github.coderodde.ui;
+
+/**
+ * This interface defines the callbacks a {@link TextUIWindowModel} issues to
+ * its views. The callbacks are invoked on the thread that mutated the model.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public interface TextUIWindowModelListener {
+    
+    default void onCellsChanged(int charX, int charY, int width, int height) {
+        
+    }
+    
+    /**
+     * Called when only the blink cursor state or the blink cursor colors of 
+     * the given cells changed; their contents and colors are unchanged.
+     * 
+     * @param charX  the leftmost changed column.
+     * @param charY  the topmost changed row.
+     * @param width  the number of changed columns.
+     * @param height the number of changed rows.
+     */
+    default void onCursorChanged(int charX, int charY, int width, int height) {
+        
+    }
+    
+    default void onModelResized(int width, int height) {
+        
+    }
+}
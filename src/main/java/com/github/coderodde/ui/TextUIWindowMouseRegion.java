@@ -0,0 +1,65 @@
+package com.github.coderodde.ui;
+
+/**
+ * This class describes an interactive rectangle of cells registered with
+ * {@link TextUIWindow#addMouseRegion(int, int, int, int,
+ * TextUIWindowMouseListener)}, such as a button, a link or a table cell. The
+ * listener of a region receives only the mouse events over the region, plus
+ * the entered and exited events synthesized as the pointer crosses the region
+ * border. Where regions overlap, the one registered last is on top.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowMouseRegion {
+    
+    private final int charX;
+    private final int charY;
+    private final int columns;
+    private final int rows;
+    private final TextUIWindowMouseListener listener;
+    
+    TextUIWindowMouseRegion(int charX,
+                            int charY,
+                            int columns,
+                            int rows,
+                            TextUIWindowMouseListener listener) {
+        this.charX = charX;
+        this.charY = charY;
+        this.columns = columns;
+        this.rows = rows;
+        this.listener = listener;
+    }
+    
+    public int getCharX() {
+        return charX;
+    }
+    
+    public int getCharY() {
+        return charY;
+    }
+    
+    public int getColumns() {
+        return columns;
+    }
+    
+    public int getRows() {
+        return rows;
+    }
+    
+    public TextUIWindowMouseListener getListener() {
+        return listener;
+    }
+    
+    public boolean contains(int x, int y) {
+        // Subtracting does not overflow, as the coordinates are not negative:
+        return x >= charX && x - charX < columns
+            && y >= charY && y - charY < rows;
+    }
+    
+    @Override
+    public String toString() {
+        return "[" + charX + ", " + charY + ", " + columns + "x" + rows + "]";
+    }
+}
@@ -0,0 +1,176 @@
+package com.github.coderodde.ui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * This class implements a spatial index of {@link TextUIWindowMouseRegion}s.
+ * The model is cut into square buckets held in a dense array; each region is
+ * listed in every bucket it overlaps within the model bounds. Finding the
+ * region under the pointer indexes a single bucket, whose few regions are
+ * scanned from the most recently added one, so the cost does not depend on
+ * the total number of regions, and no key object is created.
+ * <p>
+ * The buckets are rebuilt from the regions once the model is resized, so a
+ * region reaching beyond the model is found again after the model grows.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowMouseRegionIndex {
+    
+    // Buckets of 8 x 8 cells:
+    private static final int BUCKET_SHIFT = 3;
+    private static final int BUCKET_SIZE = 1 << BUCKET_SHIFT;
+    
+    private final TextUIWindowModel model;
+    
+    // All the regions in the order of addition:
+    private final Set<TextUIWindowMouseRegion> regions = new LinkedHashSet<>();
+    
+    // The buckets of the model, row by row; null where a bucket is empty:
+    private ArrayList<TextUIWindowMouseRegion>[] buckets;
+    private int bucketColumns;
+    
+    // The model size the buckets were built for:
+    private int width = -1;
+    private int height = -1;
+    
+    TextUIWindowMouseRegionIndex(TextUIWindowModel model) {
+        this.model = model;
+    }
+    
+    void add(TextUIWindowMouseRegion region) {
+        fitBuckets();
+        
+        if (regions.add(region)) {
+            updateBuckets(region, true);
+        }
+    }
+    
+    boolean remove(TextUIWindowMouseRegion region) {
+        fitBuckets();
+        
+        if (!regions.remove(region)) {
+            return false;
+        }
+        
+        updateBuckets(region, false);
+        return true;
+    }
+    
+    void clear() {
+        regions.clear();
+        
+        if (buckets != null) {
+            Arrays.fill(buckets, null);
+        }
+    }
+    
+    int size() {
+        return regions.size();
+    }
+    
+    /**
+     * Returns the topmost region containing the cell {@code (x, y)}, or
+     * {@code null} if there is none.
+     */
+    TextUIWindowMouseRegion find(int x, int y) {
+        if (regions.isEmpty() || x < 0 || y < 0) {
+            return null;
+        }
+        
+        fitBuckets();
+        
+        if (x >= width || y >= height) {
+            return null;
+        }
+        
+        ArrayList<TextUIWindowMouseRegion> bucket =
+                buckets[(y >> BUCKET_SHIFT) * bucketColumns
+                        + (x >> BUCKET_SHIFT)];
+        
+        if (bucket == null) {
+            return null;
+        }
+        
+        // The regions of a bucket are kept in the order of addition:
+        for (int i = bucket.size() - 1; i >= 0; i--) {
+            TextUIWindowMouseRegion region = bucket.get(i);
+            
+            if (region.contains(x, y)) {
+                return region;
+            }
+        }
+        
+        return null;
+    }
+    
+    /**
+     * Rebuilds the buckets if the model has been resized since they were
+     * built.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void fitBuckets() {
+        int width = model.getWidth();
+        int height = model.getHeight();
+        
+        if (width == this.width && height == this.height) {
+            return;
+        }
+        
+        this.width = width;
+        this.height = height;
+        this.bucketColumns = (width + BUCKET_SIZE - 1) >> BUCKET_SHIFT;
+        
+        int bucketRows = (height + BUCKET_SIZE - 1) >> BUCKET_SHIFT;
+        
+        buckets = new ArrayList[bucketColumns * bucketRows];
+        
+        for (TextUIWindowMouseRegion region : regions) {
+            updateBuckets(region, true);
+        }
+    }
+    
+    private void updateBuckets(TextUIWindowMouseRegion region,
+                               boolean add) {
+        // Clamp the region to the model; the sums may exceed an int:
+        int fromX = region.getCharX();
+        int fromY = region.getCharY();
+        int toX = (int) Math.min((long) fromX + region.getColumns(), width);
+        int toY = (int) Math.min((long) fromY + region.getRows(), height);
+        
+        if (fromX >= toX || fromY >= toY) {
+            return;
+        }
+        
+        for (int bucketY = fromY >> BUCKET_SHIFT;
+                bucketY <= (toY - 1) >> BUCKET_SHIFT;
+                bucketY++) {
+            for (int bucketX = fromX >> BUCKET_SHIFT;
+                    bucketX <= (toX - 1) >> BUCKET_SHIFT;
+                    bucketX++) {
+                int index = bucketY * bucketColumns + bucketX;
+                ArrayList<TextUIWindowMouseRegion> bucket = buckets[index];
+                
+                if (add) {
+                    if (bucket == null) {
+                        bucket = new ArrayList<>();
+                        buckets[index] = bucket;
+                    }
+                    
+                    bucket.add(region);
+                } else if (bucket != null) {
+                    bucket.remove(region);
+                    
+                    if (bucket.isEmpty()) {
+                        buckets[index] = null;
+                    }
+                }
+            }
+        }
+    }
+}
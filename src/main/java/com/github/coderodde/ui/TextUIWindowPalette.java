@@ -0,0 +1,197 @@
+package com.github.coderodde.ui;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javafx.scene.paint.Color;
+
+/**
+ * This class implements an indexed palette of {@link #SIZE} color slots. Cells
+ * of a {@link TextUIWindowModel} may refer to a slot instead of holding a 
+ * color of their own; such cells are recolored by changing the slot, without
+ * touching the cells. A palette may be shared by any number of models, so 
+ * switching the theme of many windows is a single call to 
+ * {@link #setColors(Color[])}.
+ * <p>
+ * A new palette holds the 256 colors of xterm: the 16 system colors, a 6 x 6 x
+ * 6 color cube and a 24 step gray ramp.
+ * <p>
+ * The colors are kept in an array replaced on every change, so reading a 
+ * color never locks and the renderers may read on any thread.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowPalette {
+    
+    /**
+     * The number of slots in a palette.
+     */
+    public static final int SIZE = 256;
+    
+    private static final int[] SYSTEM_COLORS = {
+        0x000000, 0x800000, 0x008000, 0x808000,
+        0x000080, 0x800080, 0x008080, 0xc0c0c0,
+        0x808080, 0xff0000, 0x00ff00, 0xffff00,
+        0x0000ff, 0xff00ff, 0x00ffff, 0xffffff,
+    };
+    
+    private static final int[] CUBE_LEVELS = { 0, 95, 135, 175, 215, 255 };
+    
+    private volatile Color[] colors;
+    private final List<TextUIWindowPaletteListener> paletteListeners = 
+            new CopyOnWriteArrayList<>();
+    
+    public TextUIWindowPalette() {
+        this.colors = createDefaultColors();
+    }
+    
+    public TextUIWindowPalette(Color[] colors) {
+        this.colors = checkColors(colors).clone();
+    }
+    
+    public void addPaletteListener(TextUIWindowPaletteListener listener) {
+        paletteListeners.add(
+                Objects.requireNonNull(listener, "The listener is null."));
+    }
+    
+    public void removePaletteListener(TextUIWindowPaletteListener listener) {
+        paletteListeners.remove(listener);
+    }
+    
+    public Color getColor(int slot) {
+        return colors[checkSlot(slot)];
+    }
+    
+    /**
+     * Returns the color of a valid slot without checking it. Used by the 
+     * renderers.
+     */
+    Color colorAt(int slot) {
+        return colors[slot];
+    }
+    
+    /**
+     * Returns a copy of the colors of all the slots.
+     * 
+     * @return the colors.
+     */
+    public Color[] getColors() {
+        return colors.clone();
+    }
+    
+    public void setColor(int slot, Color color) {
+        checkSlot(slot);
+        Objects.requireNonNull(color, "The color is null.");
+        
+        synchronized (this) {
+            if (colors[slot].equals(color)) {
+                return;
+            }
+            
+            Color[] newColors = colors.clone();
+            newColors[slot] = color;
+            colors = newColors;
+        }
+        
+        BitSet changedSlots = new BitSet(SIZE);
+        changedSlots.set(slot);
+        firePaletteChanged(changedSlots);
+    }
+    
+    /**
+     * Replaces the colors of all the slots at once, for example to switch the
+     * theme. The listeners are notified once, of the slots whose color 
+     * actually changed.
+     * 
+     * @param colors the new colors, {@link #SIZE} of them.
+     */
+    public void setColors(Color[] colors) {
+        Color[] newColors = checkColors(colors).clone();
+        BitSet changedSlots = new BitSet(SIZE);
+        
+        synchronized (this) {
+            Color[] oldColors = this.colors;
+            
+            for (int slot = 0; slot < SIZE; slot++) {
+                if (!oldColors[slot].equals(newColors[slot])) {
+                    changedSlots.set(slot);
+                }
+            }
+            
+            this.colors = newColors;
+        }
+        
+        if (!changedSlots.isEmpty()) {
+            firePaletteChanged(changedSlots);
+        }
+    }
+    
+    private void firePaletteChanged(BitSet changedSlots) {
+        for (TextUIWindowPaletteListener listener : paletteListeners) {
+            listener.onPaletteChanged(changedSlots);
+        }
+    }
+    
+    static int checkSlot(int slot) {
+        if (slot < 0 || slot >= SIZE) {
+            throw new IllegalArgumentException(
+                    "Palette slot is invalid (" 
+                            + slot 
+                            + "). Must be between 0 and " 
+                            + (SIZE - 1) 
+                            + ".");
+        }
+        
+        return slot;
+    }
+    
+    private static Color[] checkColors(Color[] colors) {
+        Objects.requireNonNull(colors, "The colors are null.");
+        
+        if (colors.length != SIZE) {
+            throw new IllegalArgumentException(
+                    "Number of colors is invalid (" 
+                            + colors.length 
+                            + "). Must be " 
+                            + SIZE 
+                            + ".");
+        }
+        
+        for (Color color : colors) {
+            Objects.requireNonNull(color, "A color is null.");
+        }
+        
+        return colors;
+    }
+    
+    private static Color[] createDefaultColors() {
+        Color[] colors = new Color[SIZE];
+        int slot = 0;
+        
+        for (int rgb : SYSTEM_COLORS) {
+            colors[slot++] = toColor(rgb);
+        }
+        
+        for (int red : CUBE_LEVELS) {
+            for (int green : CUBE_LEVELS) {
+                for (int blue : CUBE_LEVELS) {
+                    colors[slot++] = Color.rgb(red, green, blue);
+                }
+            }
+        }
+        
+        for (int i = 0; i < 24; i++) {
+            int level = 8 + 10 * i;
+            colors[slot++] = Color.rgb(level, level, level);
+        }
+        
+        return colors;
+    }
+    
+    private static Color toColor(int rgb) {
+        return Color.rgb((rgb >>> 16) & 0xff, (rgb >>> 8) & 0xff, rgb & 0xff);
+    }
+}
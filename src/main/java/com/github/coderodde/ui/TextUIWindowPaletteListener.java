@@ -0,0 +1,23 @@
+package com.github.coderodde.ui;
+
+import java.util.BitSet;
+
+/**
+ * This interface defines the listener of the changes of a 
+ * {@link TextUIWindowPalette}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public interface TextUIWindowPaletteListener {
+    
+    /**
+     * Called after the colors of one or more slots have changed.
+     * 
+     * @param changedSlots the indices of the changed slots.
+     */
+    default void onPaletteChanged(BitSet changedSlots) {
+        
+    }
+}
@@ -0,0 +1,557 @@
+package com.github.coderodde.ui;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javafx.application.Platform;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.ImageView;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * This class implements the {@link TextUIWindowRenderMode#PIXEL_BUFFER}
+ * rendering of a {@link TextUIWindow}. The cells are rasterized into an
+ * {@code int} array: each cell is filled with its background color, and the
+ * alpha mask of its glyph is blended on top in the foreground color. The
+ * rasterized rectangles are then copied into a {@link PixelBuffer} backed by a
+ * direct buffer and published with {@link PixelBuffer#updateBuffer}, so only
+ * the dirty rectangle is uploaded to the texture.
+ * <p>
+ * Glyph masks are obtained once per font, cell geometry and cell value by
+ * snapshotting a scratch canvas, which JavaFX allows on its application thread
+ * only. They are cached in the {@link TextUIWindowFontPool.Entry} of the font,
+ * so the windows sharing a font share the masks as well.
+ * Rasterization itself needs no toolkit access and may run on a background
+ * thread; the application thread then merely copies the finished rectangle
+ * into the pixel buffer.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowPixelRenderer {
+    
+    // The mask of a glyph without any visible pixels:
+    private static final byte[] BLANK_MASK = new byte[0];
+    
+    private final TextUIWindow window;
+    private final TextUIWindowModel model;
+    private final ImageView imageView = new ImageView();
+    private ExecutorService rasterizer;
+    
+    // Accessed by the JavaFX application thread only:
+    private final Canvas glyphCanvas = new Canvas();
+    private final SnapshotParameters snapshotParameters =
+            new SnapshotParameters();
+    private Font font;
+    private int glyphX;
+    private int glyphBaselineY;
+    private PixelBuffer<IntBuffer> pixelBuffer;
+    private IntBuffer buffer;
+    
+    // Guarded by this object:
+    private int columns;
+    private int rows;
+    private int cellWidth;
+    private int cellHeight;
+    private int pixelWidth;
+    private int pixelHeight;
+    private int[] pixels = new int[0];
+    private int generation;
+    private int dirtyMinX = Integer.MAX_VALUE;
+    private int dirtyMinY = Integer.MAX_VALUE;
+    private int dirtyMaxX;
+    private int dirtyMaxY;
+    private Color lastColor;
+    private int lastArgb;
+    private TextUIWindowGlyphMasks glyphMasks;
+    
+    // The selection of the current rasterization pass:
+    private TextUIWindowSelection selection;
+    private int selectionArgb;
+    
+    TextUIWindowPixelRenderer(TextUIWindow window) {
+        this.window = window;
+        this.model = window.getModel();
+        this.snapshotParameters.setFill(Color.TRANSPARENT);
+    }
+    
+    ImageView getImageView() {
+        return imageView;
+    }
+    
+    boolean isRasterizingOffThread() {
+        return rasterizer != null;
+    }
+    
+    void setRasterizingOffThread(boolean offThread) {
+        if (offThread && rasterizer == null) {
+            rasterizer = Executors.newSingleThreadExecutor((runnable) -> {
+                Thread thread =
+                        new Thread(runnable, "TextUIWindowPixelRenderer");
+                
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else if (!offThread && rasterizer != null) {
+            rasterizer.shutdown();
+            rasterizer = null;
+        }
+    }
+    
+    void dispose() {
+        setRasterizingOffThread(false);
+    }
+    
+    /**
+     * Sets the geometry of the rendered grid. Must be called on the JavaFX
+     * application thread.
+     *
+     * @return {@code true} if the pixels were reallocated and must all be
+     *         rasterized again.
+     */
+    boolean configure(TextUIWindowFontPool.Entry fontEntry,
+                      int cellWidth,
+                      int cellHeight,
+                      int glyphX,
+                      int glyphBaselineY,
+                      int columns,
+                      int rows) {
+        synchronized (this) {
+            if (glyphMasks == null
+                    || fontEntry.getFont() != font
+                    || !glyphMasks.hasGeometry(cellWidth,
+                                               cellHeight,
+                                               glyphX,
+                                               glyphBaselineY)) {
+                font = fontEntry.getFont();
+                this.glyphX = glyphX;
+                this.glyphBaselineY = glyphBaselineY;
+                glyphMasks = fontEntry.getGlyphMasks(cellWidth,
+                                                     cellHeight,
+                                                     glyphX,
+                                                     glyphBaselineY);
+            }
+            
+            if (cellWidth == this.cellWidth
+                    && cellHeight == this.cellHeight
+                    && columns == this.columns
+                    && rows == this.rows) {
+                return false;
+            }
+            
+            this.cellWidth = cellWidth;
+            this.cellHeight = cellHeight;
+            this.columns = columns;
+            this.rows = rows;
+            this.pixelWidth = Math.max(1, columns * cellWidth);
+            this.pixelHeight = Math.max(1, rows * cellHeight);
+            this.pixels = new int[pixelWidth * pixelHeight];
+            this.generation++;
+            clearDirtyRectangle();
+        }
+        
+        glyphCanvas.setWidth(2 * cellWidth);
+        glyphCanvas.setHeight(cellHeight);
+        buffer = ByteBuffer.allocateDirect(4 * pixelWidth * pixelHeight)
+                           .order(ByteOrder.nativeOrder())
+                           .asIntBuffer();
+        
+        pixelBuffer = new PixelBuffer<>(pixelWidth,
+                                        pixelHeight,
+                                        buffer,
+                                        PixelFormat.getIntArgbPreInstance());
+        
+        imageView.setImage(new WritableImage(pixelBuffer));
+        return true;
+    }
+    
+    /**
+     * Rasterizes the given viewport spans and publishes them. Completes the
+     * latency traces of {@code traceFrame} once the pixels are published. Must
+     * be called on the JavaFX application thread.
+     */
+    void render(int viewportX,
+                int viewportY,
+                int spanRows,
+                int[] spanFrom,
+                int[] spanTo,
+                long traceFrame) {
+        prepareGlyphMasks(viewportX, viewportY, spanRows, spanFrom, spanTo);
+        
+        if (rasterizer == null) {
+            rasterize(viewportX,
+                      viewportY,
+                      spanRows,
+                      spanFrom,
+                      spanTo,
+                      getGeneration());
+            publish(traceFrame);
+            return;
+        }
+        
+        int[] from = Arrays.copyOf(spanFrom, spanRows);
+        int[] to = Arrays.copyOf(spanTo, spanRows);
+        int taskGeneration = getGeneration();
+        
+        rasterizer.execute(() -> {
+            rasterize(viewportX, viewportY, spanRows, from, to, taskGeneration);
+            Platform.runLater(() -> publish(traceFrame));
+        });
+    }
+    
+    /**
+     * Completes the latency traces of a frame with nothing to rasterize, after
+     * the frames still being rasterized are published. Must be called on the
+     * JavaFX application thread.
+     */
+    void skip(long traceFrame) {
+        if (traceFrame == 0L) {
+            return;
+        }
+        
+        if (rasterizer == null) {
+            window.getLatencyTracer().onFramePainted(traceFrame);
+            return;
+        }
+        
+        rasterizer.execute(() -> Platform.runLater(() -> {
+            window.getLatencyTracer().onFramePainted(traceFrame);
+        }));
+    }
+    
+    private synchronized int getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Snapshots the glyphs of the damaged cells that are not cached yet.
+     */
+    private void prepareGlyphMasks(int viewportX,
+                                   int viewportY,
+                                   int spanRows,
+                                   int[] spanFrom,
+                                   int[] spanTo) {
+        int modelWidth = model.getWidth();
+        int modelHeight = model.getHeight();
+        
+        for (int y = 0; y < spanRows; y++) {
+            int modelY = viewportY + y;
+            
+            if (modelY >= modelHeight) {
+                break;
+            }
+            
+            int toX = Math.min(spanTo[y], modelWidth - viewportX);
+            
+            // Include the left half of a wide character cut by the span:
+            for (int x = Math.max(0, spanFrom[y] - 1); x < toX; x++) {
+                int cellValue = window.compositeCharAt(viewportX + x, modelY);
+                
+                if (cellValue != TextUIWindowGraphemes.WIDE_CONTINUATION
+                        && glyphMasks.get(cellValue) == null) {
+                    glyphMasks.put(cellValue, snapshotGlyph(cellValue));
+                }
+            }
+        }
+    }
+    
+    private byte[] snapshotGlyph(int cellValue) {
+        int width = TextUIWindowGraphemes.getColumns(cellValue) * cellWidth;
+        int height = cellHeight;
+        GraphicsContext gc = glyphCanvas.getGraphicsContext2D();
+        
+        gc.clearRect(0, 0, glyphCanvas.getWidth(), glyphCanvas.getHeight());
+        gc.setFont(font);
+        gc.setFill(Color.WHITE);
+        gc.fillText(TextUIWindowGraphemes.toString(cellValue),
+                    glyphX,
+                    glyphBaselineY);
+        
+        WritableImage image = new WritableImage(width, height);
+        glyphCanvas.snapshot(snapshotParameters, image);
+        
+        int[] argb = new int[width * height];
+        image.getPixelReader().getPixels(0,
+                                         0,
+                                         width,
+                                         height,
+                                         PixelFormat.getIntArgbInstance(),
+                                         argb,
+                                         0,
+                                         width);
+        
+        byte[] mask = new byte[width * height];
+        boolean blank = true;
+        
+        for (int i = 0; i < argb.length; i++) {
+            int alpha = argb[i] >>> 24;
+            mask[i] = (byte) alpha;
+            blank &= alpha == 0;
+        }
+        
+        return blank ? BLANK_MASK : mask;
+    }
+    
+    private synchronized void rasterize(int viewportX,
+                                        int viewportY,
+                                        int spanRows,
+                                        int[] spanFrom,
+                                        int[] spanTo,
+                                        int taskGeneration) {
+        if (taskGeneration != generation) {
+            // The geometry changed, and the whole grid is damaged anew:
+            return;
+        }
+        
+        selection = window.getSelection();
+        
+        if (selection != null) {
+            selectionArgb = toArgb(window.getSelectionColor());
+        }
+        
+        for (int y = 0; y < Math.min(spanRows, rows); y++) {
+            int fromX = spanFrom[y];
+            int toX = Math.min(spanTo[y], columns);
+            
+            if (fromX < toX) {
+                rasterizeRow(viewportX, viewportY, y, fromX, toX);
+            }
+        }
+    }
+    
+    private void rasterizeRow(int viewportX,
+                              int viewportY,
+                              int y,
+                              int fromX,
+                              int toX) {
+        int modelY = viewportY + y;
+        
+        // A wide character is rasterized from its left half:
+        if (fromX > 0 && cellValueAt(viewportX + fromX, modelY)
+                == TextUIWindowGraphemes.WIDE_CONTINUATION) {
+            fromX--;
+        }
+        
+        if (toX < columns && TextUIWindowGraphemes.getColumns(
+                cellValueAt(viewportX + toX - 1, modelY)) == 2) {
+            toX++;
+        }
+        
+        for (int x = fromX; x < toX; x++) {
+            rasterizeCell(x, y, viewportX + x, modelY);
+        }
+        
+        dirtyMinX = Math.min(dirtyMinX, fromX * cellWidth);
+        dirtyMaxX = Math.max(dirtyMaxX, toX * cellWidth);
+        dirtyMinY = Math.min(dirtyMinY, y * cellHeight);
+        dirtyMaxY = Math.max(dirtyMaxY, (y + 1) * cellHeight);
+    }
+    
+    private int cellValueAt(int modelX, int modelY) {
+        if (modelX < model.getWidth() && modelY < model.getHeight()) {
+            return window.compositeCharAt(modelX, modelY);
+        }
+        
+        return TextUIWindowModel.DEFAULT_CHAR;
+    }
+    
+    private void rasterizeCell(int x, int y, int modelX, int modelY) {
+        if (modelX >= model.getWidth() || modelY >= model.getHeight()) {
+            fillRectangle(x * cellWidth,
+                          y * cellHeight,
+                          cellWidth,
+                          toArgb(TextUIWindowModel
+                                  .DEFAULT_TEXT_BACKGROUND_COLOR));
+            return;
+        }
+        
+        int cellValue = window.compositeCharAt(modelX, modelY);
+        boolean cursor = window.compositeCursorAt(modelX, modelY);
+        int backgroundArgb =
+                toArgb(cursor ? model.getBlinkCursorBackgroundColor() :
+                                window.compositeBackgroundAt(modelX, modelY));
+        
+        if (!cursor 
+                && selection != null 
+                && selection.contains(modelX, modelY)) {
+            backgroundArgb = blendOver(selectionArgb, backgroundArgb);
+        }
+        
+        if (cellValue == TextUIWindowGraphemes.WIDE_CONTINUATION) {
+            if (x == 0) {
+                // The left half is out of the viewport:
+                fillRectangle(0, y * cellHeight, cellWidth, backgroundArgb);
+            }
+            
+            return;
+        }
+        
+        int foregroundArgb =
+                toArgb(cursor ? model.getBlinkCursorForegroundColor() :
+                                window.compositeForegroundAt(modelX, modelY));
+        
+        int glyphColumns = TextUIWindowGraphemes.getColumns(cellValue);
+        int maskWidth = glyphColumns * cellWidth;
+        int width = Math.min(glyphColumns, columns - x) * cellWidth;
+        byte[] mask = glyphMasks.get(cellValue);
+        
+        fillRectangle(x * cellWidth, y * cellHeight, width, backgroundArgb);
+        
+        if (mask == null) {
+            // The cell changed after the masks were prepared; rasterize it
+            // once more on the next repaint:
+            window.invalidate(TextUIWindowLayer.TEXT, x, y, glyphColumns, 1);
+            window.requestRepaint();
+            return;
+        }
+        
+        if (mask == BLANK_MASK) {
+            return;
+        }
+        
+        int offset = y * cellHeight * pixelWidth + x * cellWidth;
+        
+        for (int row = 0; row < cellHeight; row++) {
+            int maskOffset = row * maskWidth;
+            
+            for (int column = 0; column < width; column++) {
+                int alpha = mask[maskOffset + column] & 0xff;
+                
+                if (alpha == 0xff) {
+                    pixels[offset + column] = foregroundArgb;
+                } else if (alpha != 0) {
+                    pixels[offset + column] = blend(foregroundArgb,
+                                                    pixels[offset + column],
+                                                    alpha);
+                }
+            }
+            
+            offset += pixelWidth;
+        }
+    }
+    
+    private void fillRectangle(int pixelX, int pixelY, int width, int argb) {
+        int offset = pixelY * pixelWidth + pixelX;
+        
+        for (int row = 0; row < cellHeight; row++) {
+            Arrays.fill(pixels, offset, offset + width, argb);
+            offset += pixelWidth;
+        }
+    }
+    
+    /**
+     * Copies the dirty rectangle into the pixel buffer and marks it for
+     * uploading. Runs on the JavaFX application thread.
+     */
+    private void publish() {
+        PixelBuffer<IntBuffer> pixelBuffer = this.pixelBuffer;
+        
+        if (pixelBuffer == null) {
+            return;
+        }
+        
+        pixelBuffer.updateBuffer((unused) -> {
+            synchronized (this) {
+                if (dirtyMinX >= dirtyMaxX
+                        || pixelBuffer != this.pixelBuffer) {
+                    return Rectangle2D.EMPTY;
+                }
+                
+                int width = dirtyMaxX - dirtyMinX;
+                
+                for (int y = dirtyMinY; y < dirtyMaxY; y++) {
+                    int offset = y * pixelWidth + dirtyMinX;
+                    buffer.put(offset, pixels, offset, width);
+                }
+                
+                Rectangle2D dirtyRectangle =
+                        new Rectangle2D(dirtyMinX,
+                                        dirtyMinY,
+                                        width,
+                                        dirtyMaxY - dirtyMinY);
+                
+                clearDirtyRectangle();
+                return dirtyRectangle;
+            }
+        });
+    }
+    
+    private void publish(long traceFrame) {
+        publish();
+        window.getLatencyTracer().onFramePainted(traceFrame);
+    }
+    
+    private void clearDirtyRectangle() {
+        dirtyMinX = Integer.MAX_VALUE;
+        dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = 0;
+        dirtyMaxY = 0;
+    }
+    
+    /**
+     * Composes the premultiplied {@code topArgb} over {@code bottomArgb}.
+     */
+    private static int blendOver(int topArgb, int bottomArgb) {
+        int inverseAlpha = 255 - (topArgb >>> 24);
+        int result = 0;
+        
+        for (int shift = 0; shift < 32; shift += 8) {
+            int top = (topArgb >>> shift) & 0xff;
+            int bottom = (bottomArgb >>> shift) & 0xff;
+            int channel = top + (bottom * inverseAlpha + 127) / 255;
+            result |= Math.min(255, channel) << shift;
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Converts {@code color} to a premultiplied ARGB value. The most recent
+     * conversion is cached, since runs of cells usually share their colors.
+     */
+    private int toArgb(Color color) {
+        if (color == lastColor) {
+            return lastArgb;
+        }
+        
+        double opacity = color.getOpacity();
+        int alpha = (int) Math.round(opacity * 255);
+        int red = (int) Math.round(color.getRed() * opacity * 255);
+        int green = (int) Math.round(color.getGreen() * opacity * 255);
+        int blue = (int) Math.round(color.getBlue() * opacity * 255);
+        
+        lastColor = color;
+        lastArgb = (alpha << 24) | (red << 16) | (green << 8) | blue;
+        return lastArgb;
+    }
+    
+    /**
+     * Blends the premultiplied {@code source} with coverage {@code alpha} over
+     * the premultiplied {@code destination}.
+     */
+    private static int blend(int source, int destination, int alpha) {
+        int inverse = 255 - alpha;
+        int result = 0;
+        
+        for (int shift = 0; shift < 32; shift += 8) {
+            int channel = (((source >>> shift) & 0xff) * alpha
+                    + ((destination >>> shift) & 0xff) * inverse
+                    + 127) / 255;
+            
+            result |= channel << shift;
+        }
+        
+        return result;
+    }
+}
@@ -0,0 +1,244 @@
+package com.github.coderodde.ui;
+
+import javafx.scene.paint.Color;
+
+/**
+ * This class implements a cell plane floating over the model of a
+ * {@link TextUIWindow}, such as a popup, a menu or a toast. A plane has its
+ * own {@link TextUIWindowModel}, a position in the model of the window, and a
+ * z-order; planes with a greater z-order cover the ones with a smaller one,
+ * and all planes cover the window model. The cells of the window model are
+ * never modified, so a plane needs no restoring once it moves or goes away.
+ * <p>
+ * A plane cell is transparent if its background color is fully transparent;
+ * the cell under it then shows through. A new plane is entirely transparent
+ * and its text background color is {@link Color#TRANSPARENT}, so set an opaque
+ * text background color before printing into it.
+ * <p>
+ * Changing the cells of a plane, or moving, resizing, showing or hiding it,
+ * damages only the cells the plane covers, so moving a popup costs in
+ * proportion to its area and not to the area of the window.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowPlane {
+    
+    private final TextUIWindow window;
+    private final TextUIWindowModel model;
+    private final int z;
+    
+    // The column in the high and the row in the low 32 bits, so that the
+    // renderers never see a position moved along one axis only:
+    private volatile long position;
+    
+    private volatile boolean visible = true;
+    
+    // The size of the plane model as of its last resize; accessed by the
+    // thread resizing the plane model only:
+    private int coveredColumns;
+    private int coveredRows;
+    
+    TextUIWindowPlane(TextUIWindow window,
+                      int charX,
+                      int charY,
+                      int columns,
+                      int rows,
+                      int z) {
+        this.window = window;
+        this.model = new TextUIWindowModel(columns, rows);
+        this.position = toPosition(charX, charY);
+        this.z = z;
+        this.coveredColumns = columns;
+        this.coveredRows = rows;
+        
+        model.setTextBackgroundColor(Color.TRANSPARENT);
+        
+        for (int y = 0; y < rows; y++) {
+            model.clearToEndOfRow(0, y);
+        }
+        
+        model.addModelListener(new TextUIWindowModelListener() {
+            
+            @Override
+            public void onCellsChanged(int x, int y, int width, int height) {
+                if (visible) {
+                    long position = TextUIWindowPlane.this.position;
+                    
+                    window.damagePlaneArea(charXOf(position) + x,
+                                           charYOf(position) + y,
+                                           width,
+                                           height);
+                }
+            }
+            
+            @Override
+            public void onModelResized(int width, int height) {
+                int oldColumns = coveredColumns;
+                int oldRows = coveredRows;
+                
+                coveredColumns = width;
+                coveredRows = height;
+                
+                if (visible) {
+                    // Damage the area the plane uncovered and the one it
+                    // covers now:
+                    long position = TextUIWindowPlane.this.position;
+                    int charX = charXOf(position);
+                    int charY = charYOf(position);
+                    
+                    window.damagePlaneArea(charX, charY, oldColumns, oldRows);
+                    window.damagePlaneArea(charX, charY, width, height);
+                    window.requestRepaint();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Returns the model holding the cells of this plane. Its coordinates are
+     * relative to the top left corner of the plane.
+     *
+     * @return the plane model.
+     */
+    public TextUIWindowModel getModel() {
+        return model;
+    }
+    
+    public int getCharX() {
+        return charXOf(position);
+    }
+    
+    public int getCharY() {
+        return charYOf(position);
+    }
+    
+    public int getColumns() {
+        return model.getWidth();
+    }
+    
+    public int getRows() {
+        return model.getHeight();
+    }
+    
+    public int getZ() {
+        return z;
+    }
+    
+    public boolean isVisible() {
+        return visible;
+    }
+    
+    /**
+     * Moves the top left corner of this plane to the model cell
+     * {@code (charX, charY)} of the window. Only the cells the plane covered
+     * before and covers now are repainted.
+     *
+     * @param charX the new leftmost column.
+     * @param charY the new topmost row.
+     */
+    public void setPosition(int charX, int charY) {
+        long oldPosition = position;
+        long newPosition = toPosition(charX, charY);
+        
+        if (newPosition == oldPosition) {
+            return;
+        }
+        
+        int oldCharX = charXOf(oldPosition);
+        int oldCharY = charYOf(oldPosition);
+        
+        position = newPosition;
+        
+        if (visible) {
+            window.damagePlaneArea(oldCharX,
+                                   oldCharY,
+                                   getColumns(),
+                                   getRows());
+            
+            window.damagePlaneArea(charX, charY, getColumns(), getRows());
+            window.requestRepaint();
+        }
+    }
+    
+    public void setVisible(boolean visible) {
+        if (this.visible == visible) {
+            return;
+        }
+        
+        this.visible = visible;
+        
+        long position = this.position;
+        
+        window.damagePlaneArea(charXOf(position),
+                               charYOf(position),
+                               getColumns(),
+                               getRows());
+        
+        window.requestRepaint();
+    }
+    
+    /**
+     * Makes all the cells of this plane transparent.
+     */
+    public void clear() {
+        Color textBackgroundColor = model.getTextBackgroundColor();
+        model.setTextBackgroundColor(Color.TRANSPARENT);
+        
+        for (int y = 0; y < getRows(); y++) {
+            model.clearToEndOfRow(0, y);
+        }
+        
+        model.setTextBackgroundColor(textBackgroundColor);
+    }
+    
+    /**
+     * Returns {@code true} if this plane is visible and has an opaque cell at
+     * the window model cell {@code (x, y)}.
+     */
+    boolean coversCell(int x, int y) {
+        long position = this.position;
+        int localX = x - charXOf(position);
+        int localY = y - charYOf(position);
+        
+        return visible
+            && localX >= 0
+            && localY >= 0
+            && localX < model.getWidth()
+            && localY < model.getHeight()
+            && model.backgroundColorAt(localX, localY).getOpacity() > 0.0;
+    }
+    
+    // The following accessors take window model coordinates of a cell this
+    // plane covers:
+    
+    int charAt(int x, int y) {
+        long position = this.position;
+        return model.charAt(x - charXOf(position), y - charYOf(position));
+    }
+    
+    Color foregroundColorAt(int x, int y) {
+        long position = this.position;
+        return model.foregroundColorAt(x - charXOf(position),
+                                       y - charYOf(position));
+    }
+    
+    Color backgroundColorAt(int x, int y) {
+        long position = this.position;
+        return model.backgroundColorAt(x - charXOf(position),
+                                       y - charYOf(position));
+    }
+    
+    private static long toPosition(int charX, int charY) {
+        return ((long) charX << 32) | (charY & 0xffffffffL);
+    }
+    
+    private static int charXOf(long position) {
+        return (int) (position >> 32);
+    }
+    
+    private static int charYOf(long position) {
+        return (int) position;
+    }
+}
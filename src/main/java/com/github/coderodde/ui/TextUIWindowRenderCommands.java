@@ -0,0 +1,261 @@
+package com.github.coderodde.ui;
+
+import java.util.Arrays;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+
+/**
+ * This class implements a reusable list of drawing commands for the layers of
+ * a {@link TextUIWindow}. The commands are encoded as plain integers in a
+ * growable array, with the colors kept in a side table, so that a list
+ * allocates nothing once its arrays have grown to the working size.
+ * <p>
+ * All coordinates are in cells; they are converted to pixels on replay, using
+ * the font metrics current at that time. Adjacent cells of the same color are
+ * merged into a single rectangle, and consecutive glyphs of the same color into
+ * a single glyph run.
+ * <p>
+ * The encoding of the commands is:
+ * <ul>
+ *   <li>{@code FILL layer color x y width},</li>
+ *   <li>{@code CLEAR layer x y width},</li>
+ *   <li>{@code GLYPHS layer color x y count cellValue...}.</li>
+ * </ul>
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowRenderCommands {
+    
+    private static final int OP_FILL = 1;
+    private static final int OP_CLEAR = 2;
+    private static final int OP_GLYPHS = 3;
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private int[] ops = new int[INITIAL_CAPACITY];
+    private int size;
+    private Color[] colors = new Color[16];
+    private int colorCount;
+    private int commandCount;
+    
+    // The start of the last command, if it may still be extended:
+    private int lastFillStart = -1;
+    private int lastGlyphsStart = -1;
+    private int lastGlyphsEndX;
+    
+    // When the list was handed over for replaying:
+    private long publishNanos;
+    
+    // The frame number of the latency traces completed by this list:
+    private long traceFrame;
+    
+    void clear() {
+        size = 0;
+        colorCount = 0;
+        commandCount = 0;
+        lastFillStart = -1;
+        lastGlyphsStart = -1;
+        // Do not keep the colors reachable through a pooled list:
+        Arrays.fill(colors, null);
+    }
+    
+    boolean isEmpty() {
+        return size == 0;
+    }
+    
+    int getCommandCount() {
+        return commandCount;
+    }
+    
+    long getPublishNanos() {
+        return publishNanos;
+    }
+    
+    void setPublishNanos(long publishNanos) {
+        this.publishNanos = publishNanos;
+    }
+    
+    long getTraceFrame() {
+        return traceFrame;
+    }
+    
+    void setTraceFrame(long traceFrame) {
+        this.traceFrame = traceFrame;
+    }
+    
+    void fill(TextUIWindowLayer layer, Color color, int x, int y, int width) {
+        int colorIndex = colorIndexOf(color);
+        
+        if (lastFillStart >= 0
+                && ops[lastFillStart + 1] == layer.ordinal()
+                && ops[lastFillStart + 2] == colorIndex
+                && ops[lastFillStart + 4] == y
+                && ops[lastFillStart + 3] + ops[lastFillStart + 5] == x) {
+            ops[lastFillStart + 5] += width;
+            return;
+        }
+        
+        ensureCapacity(6);
+        lastFillStart = size;
+        lastGlyphsStart = -1;
+        ops[size++] = OP_FILL;
+        ops[size++] = layer.ordinal();
+        ops[size++] = colorIndex;
+        ops[size++] = x;
+        ops[size++] = y;
+        ops[size++] = width;
+        commandCount++;
+    }
+    
+    void clear(TextUIWindowLayer layer, int x, int y, int width) {
+        ensureCapacity(5);
+        lastFillStart = -1;
+        lastGlyphsStart = -1;
+        ops[size++] = OP_CLEAR;
+        ops[size++] = layer.ordinal();
+        ops[size++] = x;
+        ops[size++] = y;
+        ops[size++] = width;
+        commandCount++;
+    }
+    
+    /**
+     * Adds the glyph of {@code cellValue} at the cell {@code (x, y)}. The right
+     * halves of wide characters are skipped, as they are drawn together with
+     * their left halves.
+     */
+    void glyph(TextUIWindowLayer layer,
+               Color color,
+               int x,
+               int y,
+               int cellValue) {
+        if (cellValue == TextUIWindowGraphemes.WIDE_CONTINUATION) {
+            return;
+        }
+        
+        int colorIndex = colorIndexOf(color);
+        
+        if (lastGlyphsStart >= 0
+                && ops[lastGlyphsStart + 1] == layer.ordinal()
+                && ops[lastGlyphsStart + 2] == colorIndex
+                && ops[lastGlyphsStart + 4] == y
+                && lastGlyphsEndX == x) {
+            ensureCapacity(1);
+            ops[size++] = cellValue;
+            ops[lastGlyphsStart + 5]++;
+            lastGlyphsEndX += TextUIWindowGraphemes.getColumns(cellValue);
+            return;
+        }
+        
+        ensureCapacity(7);
+        lastGlyphsStart = size;
+        lastFillStart = -1;
+        ops[size++] = OP_GLYPHS;
+        ops[size++] = layer.ordinal();
+        ops[size++] = colorIndex;
+        ops[size++] = x;
+        ops[size++] = y;
+        ops[size++] = 1;
+        ops[size++] = cellValue;
+        lastGlyphsEndX = x + TextUIWindowGraphemes.getColumns(cellValue);
+        commandCount++;
+    }
+    
+    /**
+     * Replays the commands onto the canvases of the layers. Must be called on
+     * the JavaFX application thread.
+     *
+     * @param layers     the graphics contexts indexed by the layer ordinals.
+     * @param font       the font of the glyphs.
+     * @param cellWidth  the cell width in pixels.
+     * @param cellHeight the cell height in pixels.
+     * @param glyphX     the horizontal offset of a glyph in its cell.
+     * @param baselineY  the baseline offset of a glyph in its cell.
+     */
+    void replay(GraphicsContext[] layers,
+                Font font,
+                int cellWidth,
+                int cellHeight,
+                int glyphX,
+                int baselineY) {
+        for (GraphicsContext gc : layers) {
+            gc.setFont(font);
+        }
+        
+        int i = 0;
+        
+        while (i < size) {
+            GraphicsContext gc = layers[ops[i + 1]];
+            
+            switch (ops[i]) {
+                case OP_FILL:
+                    gc.setFill(colors[ops[i + 2]]);
+                    gc.fillRect(ops[i + 3] * cellWidth,
+                                ops[i + 4] * cellHeight,
+                                ops[i + 5] * cellWidth,
+                                cellHeight);
+                    i += 6;
+                    break;
+                
+                case OP_CLEAR:
+                    gc.clearRect(ops[i + 2] * cellWidth,
+                                 ops[i + 3] * cellHeight,
+                                 ops[i + 4] * cellWidth,
+                                 cellHeight);
+                    i += 5;
+                    break;
+                
+                case OP_GLYPHS:
+                    gc.setFill(colors[ops[i + 2]]);
+                    
+                    int x = ops[i + 3] * cellWidth + glyphX;
+                    int y = ops[i + 4] * cellHeight + baselineY;
+                    int count = ops[i + 5];
+                    
+                    for (int j = 0; j < count; j++) {
+                        int cellValue = ops[i + 6 + j];
+                        
+                        gc.fillText(TextUIWindowGraphemes.toString(cellValue),
+                                    x,
+                                    y);
+                        
+                        x += TextUIWindowGraphemes.getColumns(cellValue)
+                                * cellWidth;
+                    }
+                    
+                    i += 6 + count;
+                    break;
+                
+                default:
+                    throw new IllegalStateException(
+                            "Unknown render command: " + ops[i] + ".");
+            }
+        }
+    }
+    
+    private int colorIndexOf(Color color) {
+        // Neighbouring cells usually share colors; look at the recent ones:
+        for (int i = colorCount - 1; i >= Math.max(0, colorCount - 4); i--) {
+            if (colors[i] == color) {
+                return i;
+            }
+        }
+        
+        if (colorCount == colors.length) {
+            colors = Arrays.copyOf(colors, 2 * colors.length);
+        }
+        
+        colors[colorCount] = color;
+        return colorCount++;
+    }
+    
+    private void ensureCapacity(int additional) {
+        if (size + additional > ops.length) {
+            ops = Arrays.copyOf(ops, Math.max(size + additional,
+                                              2 * ops.length));
+        }
+    }
+}
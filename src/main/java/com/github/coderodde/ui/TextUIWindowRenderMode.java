@@ -0,0 +1,24 @@
+package com.github.coderodde.ui;
+
+/**
+ * This enumeration lists the ways a {@link TextUIWindow} may draw its cells.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public enum TextUIWindowRenderMode {
+    
+    /**
+     * Draws the cells with {@code GraphicsContext} calls into the layered 
+     * canvases, see {@link TextUIWindowLayer}.
+     */
+    CANVAS,
+    
+    /**
+     * Rasterizes the cells into a {@code PixelBuffer} shown through a 
+     * {@code WritableImage}, uploading only the dirty rectangle. This avoids 
+     * the per-call cost of the canvas command queue on very large windows.
+     */
+    PIXEL_BUFFER;
+}
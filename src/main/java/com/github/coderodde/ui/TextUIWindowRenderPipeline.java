@@ -0,0 +1,135 @@
+package com.github.coderodde.ui;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.application.Platform;
+
+/**
+ * This class implements the off-thread rendering of a {@link TextUIWindow} in
+ * the {@link TextUIWindowRenderMode#CANVAS} mode. A render thread diffs the
+ * model against the damage of the window and encodes the changes into a
+ * {@link TextUIWindowRenderCommands} list; the JavaFX application thread only
+ * replays the finished lists onto the canvases. This way, the time the JavaFX
+ * application thread spends on a frame depends on the number of changed cells,
+ * not on the model traversal.
+ * <p>
+ * The command lists are pooled: a list travels from the pool to the render
+ * thread, to the ready queue, to the JavaFX application thread, and back to
+ * the pool. Once the lists have grown to the working size, no frame allocates.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+final class TextUIWindowRenderPipeline {
+    
+    // One list being built, one waiting and one being replayed:
+    private static final int POOL_SIZE = 3;
+    
+    private final TextUIWindow window;
+    private final ArrayBlockingQueue<TextUIWindowRenderCommands> freeCommands =
+            new ArrayBlockingQueue<>(POOL_SIZE);
+    
+    private final ArrayBlockingQueue<TextUIWindowRenderCommands> readyCommands =
+            new ArrayBlockingQueue<>(POOL_SIZE);
+    
+    private final AtomicBoolean replayPending = new AtomicBoolean();
+    private final Runnable replayTask = this::replayReadyCommands;
+    private final Object frameLock = new Object();
+    private final Thread renderThread;
+    private boolean frameRequested;
+    private volatile boolean doRun = true;
+    
+    TextUIWindowRenderPipeline(TextUIWindow window) {
+        this.window = window;
+        
+        for (int i = 0; i < POOL_SIZE; i++) {
+            freeCommands.add(new TextUIWindowRenderCommands());
+        }
+        
+        this.renderThread = new Thread(this::renderFrames, 
+                                       "TextUIWindowRenderPipeline");
+        this.renderThread.setDaemon(true);
+        this.renderThread.start();
+    }
+    
+    /**
+     * Asks the render thread to build a frame out of the current damage.
+     * Requests made while a frame is being built are coalesced into the next
+     * frame.
+     */
+    void requestFrame() {
+        synchronized (frameLock) {
+            frameRequested = true;
+            frameLock.notify();
+        }
+    }
+    
+    /**
+     * Stops the render thread and replays the frames it has finished. Must be
+     * called on the JavaFX application thread.
+     */
+    void stop() {
+        doRun = false;
+        renderThread.interrupt();
+        
+        try {
+            renderThread.join();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        
+        replayReadyCommands();
+    }
+    
+    private void renderFrames() {
+        try {
+            while (doRun) {
+                synchronized (frameLock) {
+                    while (!frameRequested) {
+                        frameLock.wait();
+                    }
+                    
+                    frameRequested = false;
+                }
+                
+                TextUIWindowRenderCommands commands = freeCommands.take();
+                long startNanos = System.nanoTime();
+                
+                window.buildRenderCommands(commands);
+                
+                long endNanos = System.nanoTime();
+                window.getRenderTimings().recordBuild(endNanos - startNanos);
+                
+                if (commands.isEmpty()) {
+                    window.getLatencyTracer()
+                          .onFramePainted(commands.getTraceFrame());
+                    
+                    freeCommands.add(commands);
+                    continue;
+                }
+                
+                commands.setPublishNanos(endNanos);
+                readyCommands.add(commands);
+                
+                // Never keep more than one replay request in the FX queue:
+                if (replayPending.compareAndSet(false, true)) {
+                    Platform.runLater(replayTask);
+                }
+            }
+        } catch (InterruptedException ex) {
+            // Stopped.
+        }
+    }
+    
+    private void replayReadyCommands() {
+        replayPending.set(false);
+        TextUIWindowRenderCommands commands;
+        
+        while ((commands = readyCommands.poll()) != null) {
+            window.replayRenderCommands(commands);
+            commands.clear();
+            freeCommands.add(commands);
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.github.coderodde.ui;
+
+/**
+ * This class collects the stage timings of the frames a {@link TextUIWindow}
+ * renders in the {@link TextUIWindowRenderMode#CANVAS} mode:
+ * <ul>
+ *   <li>build: diffing the model and encoding the render commands,</li>
+ *   <li>queue: waiting for the JavaFX application thread,</li>
+ *   <li>replay: drawing the commands onto the canvases.</li>
+ * </ul>
+ * The build stage runs on the render thread if the window renders off the
+ * JavaFX application thread; the replay stage always runs on the JavaFX 
+ * application thread.
+ * <p>
+ * The frame accounting of the window is collected here as well: the dropped
+ * frames (repaint requests merged into an already pending frame), the late 
+ * frames (painted more than one frame interval after they were due), the 
+ * frames whose build exceeded the frame budget, and the damaged spans deferred
+ * to a later frame because of that.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowRenderTimings {
+    
+    private long frames;
+    private long commands;
+    private long totalBuildNanos;
+    private long maximumBuildNanos;
+    private long totalQueueNanos;
+    private long maximumQueueNanos;
+    private long totalReplayNanos;
+    private long maximumReplayNanos;
+    private long droppedFrames;
+    private long lateFrames;
+    private long overBudgetFrames;
+    private long deferredSpans;
+    
+    synchronized void recordBuild(long buildNanos) {
+        totalBuildNanos += buildNanos;
+        maximumBuildNanos = Math.max(maximumBuildNanos, buildNanos);
+    }
+    
+    synchronized void recordDroppedFrame() {
+        droppedFrames++;
+    }
+    
+    synchronized void recordLateFrame() {
+        lateFrames++;
+    }
+    
+    synchronized void recordOverBudgetFrame(int deferredSpans) {
+        overBudgetFrames++;
+        this.deferredSpans += deferredSpans;
+    }
+    
+    synchronized void recordReplay(long queueNanos, 
+                                   long replayNanos, 
+                                   int commandCount) {
+        frames++;
+        commands += commandCount;
+        totalQueueNanos += queueNanos;
+        maximumQueueNanos = Math.max(maximumQueueNanos, queueNanos);
+        totalReplayNanos += replayNanos;
+        maximumReplayNanos = Math.max(maximumReplayNanos, replayNanos);
+    }
+    
+    /**
+     * Returns the number of frames replayed onto the canvases.
+     * 
+     * @return the number of frames.
+     */
+    public synchronized long getFrames() {
+        return frames;
+    }
+    
+    public synchronized long getCommands() {
+        return commands;
+    }
+    
+    public synchronized long getTotalBuildNanos() {
+        return totalBuildNanos;
+    }
+    
+    public synchronized long getMaximumBuildNanos() {
+        return maximumBuildNanos;
+    }
+    
+    public synchronized long getTotalQueueNanos() {
+        return totalQueueNanos;
+    }
+    
+    public synchronized long getMaximumQueueNanos() {
+        return maximumQueueNanos;
+    }
+    
+    public synchronized long getTotalReplayNanos() {
+        return totalReplayNanos;
+    }
+    
+    public synchronized long getMaximumReplayNanos() {
+        return maximumReplayNanos;
+    }
+    
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+    
+    public synchronized long getLateFrames() {
+        return lateFrames;
+    }
+    
+    public synchronized long getOverBudgetFrames() {
+        return overBudgetFrames;
+    }
+    
+    public synchronized long getDeferredSpans() {
+        return deferredSpans;
+    }
+    
+    public synchronized void reset() {
+        frames = 0;
+        commands = 0;
+        totalBuildNanos = 0;
+        maximumBuildNanos = 0;
+        totalQueueNanos = 0;
+        maximumQueueNanos = 0;
+        totalReplayNanos = 0;
+        maximumReplayNanos = 0;
+        droppedFrames = 0;
+        lateFrames = 0;
+        overBudgetFrames = 0;
+        deferredSpans = 0;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        long divisor = Math.max(1, frames);
+        
+        return "[frames: " 
+                + frames
+                + ", commands/frame: " 
+                + commands / divisor
+                + ", build: "
+                + totalBuildNanos / divisor / 1000 
+                + " us avg / " 
+                + maximumBuildNanos / 1000 
+                + " us max, queue: "
+                + totalQueueNanos / divisor / 1000 
+                + " us avg / " 
+                + maximumQueueNanos / 1000
+                + " us max, replay: "
+                + totalReplayNanos / divisor / 1000 
+                + " us avg / " 
+                + maximumReplayNanos / 1000 
+                + " us max, dropped: "
+                + droppedFrames
+                + ", late: "
+                + lateFrames
+                + ", over budget: "
+                + overBudgetFrames
+                + ", deferred spans: "
+                + deferredSpans
+                + "]";
+    }
+}
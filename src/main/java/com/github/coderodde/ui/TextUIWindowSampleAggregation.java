@@ -0,0 +1,32 @@
+package com.github.coderodde.ui;
+
+/**
+ * This enumeration lists the ways a {@link TextUIWindowSampleBuffer} reduces
+ * the samples of a bucket to a single value.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public enum TextUIWindowSampleAggregation {
+    
+    /**
+     * The mean of the samples of the bucket.
+     */
+    AVERAGE,
+    
+    /**
+     * The smallest sample of the bucket.
+     */
+    MINIMUM,
+    
+    /**
+     * The largest sample of the bucket, so that short spikes stay visible.
+     */
+    MAXIMUM,
+    
+    /**
+     * The most recent sample of the bucket.
+     */
+    LAST;
+}
@@ -0,0 +1,285 @@
+package com.github.coderodde.ui;
+
+import java.util.Objects;
+
+/**
+ * This class implements a bounded ring buffer of {@code double} samples
+ * feeding the chart widgets such as {@link TextUIWindowSparkline}. Every
+ * {@link #getSamplesPerBucket()} consecutive samples are reduced to a single
+ * bucket value by the {@link TextUIWindowSampleAggregation}; the buffer keeps
+ * the last {@link #getCapacity()} buckets and drops the older ones.
+ * <p>
+ * Adding a sample takes amortized constant time and allocates nothing: the
+ * pending bucket is a handful of running totals, and the minimum and the
+ * maximum of the retained buckets are maintained by two monotonic queues, so
+ * {@link #getMinimum()} and {@link #getMaximum()} take constant time as well.
+ * The buffer is not thread-safe; add the samples on the thread rendering the
+ * charts.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowSampleBuffer {
+    
+    private final double[] buckets;
+    private final int samplesPerBucket;
+    private final TextUIWindowSampleAggregation aggregation;
+    private final MonotonicQueue minimumQueue;
+    private final MonotonicQueue maximumQueue;
+    
+    // The number of buckets ever completed; the bucket of sequence number s
+    // is stored at s % capacity:
+    private long bucketCount;
+    private int size;
+    
+    // The running totals of the bucket being filled:
+    private int pendingCount;
+    private double pendingSum;
+    private double pendingMinimum;
+    private double pendingMaximum;
+    private double pendingLast;
+    
+    /**
+     * Constructs a buffer keeping every sample as a bucket of its own.
+     *
+     * @param capacity the maximum number of samples kept.
+     */
+    public TextUIWindowSampleBuffer(int capacity) {
+        this(capacity, 1, TextUIWindowSampleAggregation.LAST);
+    }
+    
+    public TextUIWindowSampleBuffer(int capacity,
+                                    int samplesPerBucket,
+                                    TextUIWindowSampleAggregation aggregation) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                    "Capacity is invalid (" + capacity + "). Must be at "
+                            + "least 1.");
+        }
+        
+        if (samplesPerBucket < 1) {
+            throw new IllegalArgumentException(
+                    "Samples per bucket is invalid ("
+                            + samplesPerBucket
+                            + "). Must be at least 1.");
+        }
+        
+        this.aggregation = Objects.requireNonNull(aggregation,
+                                                  "The aggregation is null.");
+        this.buckets = new double[capacity];
+        this.samplesPerBucket = samplesPerBucket;
+        this.minimumQueue = new MonotonicQueue(capacity, false);
+        this.maximumQueue = new MonotonicQueue(capacity, true);
+    }
+    
+    public int getCapacity() {
+        return buckets.length;
+    }
+    
+    public int getSamplesPerBucket() {
+        return samplesPerBucket;
+    }
+    
+    public TextUIWindowSampleAggregation getAggregation() {
+        return aggregation;
+    }
+    
+    /**
+     * Returns the number of buckets kept, at most {@link #getCapacity()}.
+     *
+     * @return the number of buckets.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the number of buckets completed since the construction or the
+     * last {@link #clear()}, including the dropped ones. The charts compare
+     * it against the value they last rendered to detect new data.
+     *
+     * @return the number of completed buckets.
+     */
+    public long getBucketCount() {
+        return bucketCount;
+    }
+    
+    /**
+     * Adds a sample.
+     *
+     * @param sample the sample.
+     * @return {@code true} if the sample completed a bucket.
+     */
+    public boolean add(double sample) {
+        if (Double.isNaN(sample)) {
+            throw new IllegalArgumentException(
+                    "Sample is invalid (NaN). Must be a number.");
+        }
+        
+        if (pendingCount == 0) {
+            pendingSum = sample;
+            pendingMinimum = sample;
+            pendingMaximum = sample;
+        } else {
+            pendingSum += sample;
+            pendingMinimum = Math.min(pendingMinimum, sample);
+            pendingMaximum = Math.max(pendingMaximum, sample);
+        }
+        
+        pendingLast = sample;
+        
+        if (++pendingCount < samplesPerBucket) {
+            return false;
+        }
+        
+        switch (aggregation) {
+            case AVERAGE:
+                commit(pendingSum / pendingCount);
+                break;
+            
+            case MINIMUM:
+                commit(pendingMinimum);
+                break;
+            
+            case MAXIMUM:
+                commit(pendingMaximum);
+                break;
+            
+            default:
+                commit(pendingLast);
+                break;
+        }
+        
+        pendingCount = 0;
+        return true;
+    }
+    
+    /**
+     * Returns a bucket value.
+     *
+     * @param index the bucket index, 0 being the oldest bucket kept and
+     *              {@code size() - 1} the newest one.
+     * @return the bucket value.
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "Index is invalid ("
+                            + index
+                            + "). Must be between 0 and "
+                            + (size - 1)
+                            + ".");
+        }
+        
+        return valueOf(bucketCount - size + index);
+    }
+    
+    /**
+     * Returns the newest bucket value, or {@code NaN} if there is none.
+     *
+     * @return the newest bucket value.
+     */
+    public double getLast() {
+        return size == 0 ? Double.NaN : valueOf(bucketCount - 1);
+    }
+    
+    /**
+     * Returns the smallest bucket value kept, or {@code NaN} if there is none.
+     *
+     * @return the smallest bucket value.
+     */
+    public double getMinimum() {
+        return size == 0 ? Double.NaN : valueOf(minimumQueue.first());
+    }
+    
+    /**
+     * Returns the largest bucket value kept, or {@code NaN} if there is none.
+     *
+     * @return the largest bucket value.
+     */
+    public double getMaximum() {
+        return size == 0 ? Double.NaN : valueOf(maximumQueue.first());
+    }
+    
+    /**
+     * Removes all the buckets and the samples of the pending bucket.
+     */
+    public void clear() {
+        bucketCount = 0;
+        size = 0;
+        pendingCount = 0;
+        minimumQueue.clear();
+        maximumQueue.clear();
+    }
+    
+    private void commit(double value) {
+        long sequence = bucketCount++;
+        buckets[(int) (sequence % buckets.length)] = value;
+        
+        if (size < buckets.length) {
+            size++;
+        }
+        
+        long oldestSequence = bucketCount - size;
+        minimumQueue.push(sequence, value, oldestSequence);
+        maximumQueue.push(sequence, value, oldestSequence);
+    }
+    
+    private double valueOf(long sequence) {
+        return buckets[(int) (sequence % buckets.length)];
+    }
+    
+    /**
+     * A ring of bucket sequence numbers whose values are monotonic, so that
+     * the first one is always the extreme of the buckets kept. Each sequence
+     * number is pushed and popped at most once, hence the amortized constant
+     * time.
+     */
+    private final class MonotonicQueue {
+        
+        private final long[] sequences;
+        private final boolean maximum;
+        private int head;
+        private int length;
+        
+        MonotonicQueue(int capacity, boolean maximum) {
+            this.sequences = new long[capacity];
+            this.maximum = maximum;
+        }
+        
+        long first() {
+            return sequences[head];
+        }
+        
+        void push(long sequence, double value, long oldestSequence) {
+            // Drop the buckets that fell out of the ring first, as their
+            // slots are reused:
+            while (length > 0 && sequences[head] < oldestSequence) {
+                head = (head + 1) % sequences.length;
+                length--;
+            }
+            
+            // Drop the buckets the new one dominates:
+            while (length > 0) {
+                double lastValue =
+                        valueOf(sequences[(head + length - 1)
+                                % sequences.length]);
+                
+                if (maximum ? lastValue > value : lastValue < value) {
+                    break;
+                }
+                
+                length--;
+            }
+            
+            sequences[(head + length) % sequences.length] = sequence;
+            length++;
+        }
+        
+        void clear() {
+            head = 0;
+            length = 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.coderodde.ui;
+
+import java.util.Objects;
+
+/**
+ * This class describes a selection of model cells in a {@link TextUIWindow}.
+ * A selection is immutable, so the renderers may test cells against it on any
+ * thread; changing the selection replaces the instance. Both the anchor, where
+ * the selection started, and the focus, where it currently ends, are included.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowSelection {
+    
+    private final TextUIWindowSelectionMode mode;
+    private final int anchorX;
+    private final int anchorY;
+    private final int focusX;
+    private final int focusY;
+    
+    // The normalized bounds; for a linear selection, (fromX, fromY) precedes
+    // (toX, toY) in the reading order:
+    private final int fromX;
+    private final int fromY;
+    private final int toX;
+    private final int toY;
+    
+    public TextUIWindowSelection(TextUIWindowSelectionMode mode,
+                                 int anchorX,
+                                 int anchorY,
+                                 int focusX,
+                                 int focusY) {
+        this.mode = Objects.requireNonNull(mode, "The mode is null.");
+        this.anchorX = anchorX;
+        this.anchorY = anchorY;
+        this.focusX = focusX;
+        this.focusY = focusY;
+        
+        if (mode == TextUIWindowSelectionMode.BLOCK) {
+            this.fromX = Math.min(anchorX, focusX);
+            this.toX = Math.max(anchorX, focusX);
+        } else if (anchorY < focusY 
+                || (anchorY == focusY && anchorX <= focusX)) {
+            this.fromX = anchorX;
+            this.toX = focusX;
+        } else {
+            this.fromX = focusX;
+            this.toX = anchorX;
+        }
+        
+        this.fromY = Math.min(anchorY, focusY);
+        this.toY = Math.max(anchorY, focusY);
+    }
+    
+    public TextUIWindowSelectionMode getMode() {
+        return mode;
+    }
+    
+    public int getAnchorX() {
+        return anchorX;
+    }
+    
+    public int getAnchorY() {
+        return anchorY;
+    }
+    
+    public int getFocusX() {
+        return focusX;
+    }
+    
+    public int getFocusY() {
+        return focusY;
+    }
+    
+    public int getFirstRow() {
+        return fromY;
+    }
+    
+    public int getLastRow() {
+        return toY;
+    }
+    
+    /**
+     * Returns a selection with the same anchor and the focus moved to 
+     * {@code (focusX, focusY)}.
+     * 
+     * @param focusX the new focus column.
+     * @param focusY the new focus row.
+     * @return the extended selection.
+     */
+    public TextUIWindowSelection withFocus(int focusX, int focusY) {
+        return new TextUIWindowSelection(mode, 
+                                         anchorX, 
+                                         anchorY, 
+                                         focusX,
+                                         focusY);
+    }
+    
+    public boolean contains(int x, int y) {
+        return y >= fromY 
+            && y <= toY
+            && x >= getRowFrom(y) 
+            && x < getRowTo(y, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Returns the first selected column of the row {@code y}, which must lie
+     * within the selection.
+     * 
+     * @param y the row.
+     * @return the first selected column.
+     */
+    public int getRowFrom(int y) {
+        if (mode == TextUIWindowSelectionMode.LINEAR && y > fromY) {
+            return 0;
+        }
+        
+        return fromX;
+    }
+    
+    /**
+     * Returns the column past the last selected one in the row {@code y}, 
+     * which must lie within the selection. A linear selection runs to the end
+     * of its inner rows, given as {@code rowWidth}.
+     * 
+     * @param y        the row.
+     * @param rowWidth the width of the row.
+     * @return the column past the selected ones.
+     */
+    public int getRowTo(int y, int rowWidth) {
+        if (mode == TextUIWindowSelectionMode.LINEAR && y < toY) {
+            return rowWidth;
+        }
+        
+        return Math.min(rowWidth, toX + 1);
+    }
+    
+    @Override
+    public String toString() {
+        return mode 
+                + " (" 
+                + anchorX 
+                + ", " 
+                + anchorY 
+                + ") - (" 
+                + focusX 
+                + ", " 
+                + focusY 
+                + ")";
+    }
+}
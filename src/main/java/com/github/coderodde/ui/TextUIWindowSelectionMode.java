@@ -0,0 +1,22 @@
+package com.github.coderodde.ui;
+
+/**
+ * This enumeration lists the shapes of a {@link TextUIWindowSelection}.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public enum TextUIWindowSelectionMode {
+    
+    /**
+     * The selection runs in the reading order from the anchor to the focus,
+     * wrapping at the row ends like selected text in an editor.
+     */
+    LINEAR,
+    
+    /**
+     * The selection is the rectangle spanned by the anchor and the focus.
+     */
+    BLOCK;
+}
@@ -0,0 +1,615 @@
+package com.github.coderodde.ui;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.locks.LockSupport;
+import javafx.application.Platform;
+import javafx.event.EventType;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+import static com.github.coderodde.ui.TextUIWindowSessionRecorder.*;
+
+/**
+ * This class replays session logs produced by
+ * {@link TextUIWindowSessionRecorder} into a {@link TextUIWindow}. The replay
+ * may run in real time, scaled by a speed factor, or as fast as possible.
+ * <p>
+ * By default, the recorded model mutations are applied and the input events
+ * are skipped; see {@link TextUIWindowSessionReplayMode}. They are applied on 
+ * the thread calling {@link #replay(TextUIWindow, double)}. When the target
+ * window is live, {@link #setRepaintsRequested(boolean)} makes the player
+ * request a repaint through the frame governor of the window after each
+ * event; a headless window is simply replayed without any repaints.
+ * <p>
+ * The input events of {@link TextUIWindowSessionReplayMode#INPUTS} are
+ * dispatched on the JavaFX application thread, and each is handled before the
+ * next event is read.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowSessionPlayer {
+    
+    /**
+     * Pass this as the speed in order to replay without any delays.
+     */
+    public static final double AS_FAST_AS_POSSIBLE = Double.POSITIVE_INFINITY;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    // The largest grid a log may resize the window to:
+    private static final int MAXIMUM_GRID_CELLS = 16 * 1024 * 1024;
+    
+    // The longest string a log may hold:
+    private static final int MAXIMUM_STRING_LENGTH = 16 * 1024 * 1024;
+    
+    private static final KeyCode[] KEY_CODES = KeyCode.values();
+    private static final MouseButton[] MOUSE_BUTTONS = MouseButton.values();
+    
+    private final DataInputStream in;
+    private volatile boolean doRun = true;
+    private TextUIWindowSessionReplayMode replayMode = 
+            TextUIWindowSessionReplayMode.MUTATIONS;
+    private boolean repaintsRequested;
+    private long replayedEvents;
+    private long replayNanos;
+    
+    public TextUIWindowSessionPlayer(InputStream inputStream)
+            throws IOException {
+        Objects.requireNonNull(inputStream, "The input stream is null.");
+        
+        this.in = new DataInputStream(
+                new BufferedInputStream(inputStream, BUFFER_SIZE));
+        
+        int magic = in.readInt();
+        
+        if (magic != MAGIC) {
+            throw new IOException(
+                    "Not a TextUIWindow session log: bad magic number "
+                            + Integer.toHexString(magic)
+                            + ".");
+        }
+        
+        byte version = in.readByte();
+        
+        if (version != FORMAT_VERSION) {
+            throw new IOException(
+                    "Unsupported session log version: "
+                            + version
+                            + ". Must be "
+                            + FORMAT_VERSION
+                            + ".");
+        }
+    }
+    
+    public void setRepaintsRequested(boolean repaintsRequested) {
+        this.repaintsRequested = repaintsRequested;
+    }
+    
+    public TextUIWindowSessionReplayMode getReplayMode() {
+        return replayMode;
+    }
+    
+    public void setReplayMode(TextUIWindowSessionReplayMode replayMode) {
+        this.replayMode = 
+                Objects.requireNonNull(replayMode, 
+                                       "The replay mode is null.");
+    }
+    
+    public void requestStop() {
+        doRun = false;
+    }
+    
+    public long getReplayedEvents() {
+        return replayedEvents;
+    }
+    
+    public long getReplayNanos() {
+        return replayNanos;
+    }
+    
+    /**
+     * Replays the log into {@code window}.
+     *
+     * @param window the target window.
+     * @param speed  the replay speed. {@code 1.0} replays in real time,
+     *               {@link #AS_FAST_AS_POSSIBLE} ignores the timestamps.
+     * @return the number of events replayed.
+     * @throws IOException if the log is corrupted or cannot be read.
+     */
+    public long replay(TextUIWindow window, double speed) throws IOException {
+        Objects.requireNonNull(window, "The window is null.");
+        
+        if (!(speed > 0.0)) {
+            throw new IllegalArgumentException(
+                    "Speed must be positive: " + speed + ".");
+        }
+        
+        long startNanos = System.nanoTime();
+        long logMicros = 0L;
+        
+        while (doRun) {
+            int eventType = in.read();
+            
+            if (eventType < 0) {
+                break;
+            }
+            
+            logMicros += readVarLong();
+            
+            if (speed != AS_FAST_AS_POSSIBLE) {
+                long dueNanos = startNanos + (long)(logMicros * 1000.0 / speed);
+                long waitNanos;
+                
+                while ((waitNanos = dueNanos - System.nanoTime()) > 0L) {
+                    LockSupport.parkNanos(waitNanos);
+                    
+                    if (!doRun) {
+                        break;
+                    }
+                }
+            }
+            
+            applyEvent(window, (byte) eventType);
+            replayedEvents++;
+            
+            // The frame governor coalesces the requests into frames:
+            if (repaintsRequested) {
+                window.requestRepaint();
+            }
+        }
+        
+        replayNanos += System.nanoTime() - startNanos;
+        return replayedEvents;
+    }
+    
+    private void applyEvent(TextUIWindow window, byte eventType)
+            throws IOException {
+        boolean inputs = replayMode == TextUIWindowSessionReplayMode.INPUTS;
+        int charX;
+        int charY;
+        Color color;
+        String text;
+        int slot;
+        
+        // Each event is read in full, but applied only in its replay mode:
+        switch (eventType) {
+            case EVENT_SET_CHAR:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                char ch = (char) readVarInt();
+                
+                if (!inputs) {
+                    window.setChar(charX, charY, ch);
+                }
+                
+                break;
+            
+            case EVENT_SET_GRAPHEME:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                text = readString();
+                
+                if (!inputs) {
+                    window.getModel().setGrapheme(charX, charY, text);
+                }
+                
+                break;
+            
+            case EVENT_PRINT_STRING:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                text = readString();
+                
+                if (!inputs) {
+                    window.printString(charX, charY, text);
+                }
+                
+                break;
+            
+            case EVENT_SET_FOREGROUND_COLOR:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                color = readColor();
+                
+                if (!inputs) {
+                    window.setForegroundColor(charX, charY, color);
+                }
+                
+                break;
+            
+            case EVENT_SET_BACKGROUND_COLOR:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                color = readColor();
+                
+                if (!inputs) {
+                    window.setBackgroundColor(charX, charY, color);
+                }
+                
+                break;
+            
+            case EVENT_SET_TEXT_FOREGROUND_COLOR:
+                color = readColor();
+                
+                if (!inputs) {
+                    window.setTextForegroundColor(color);
+                }
+                
+                break;
+            
+            case EVENT_SET_TEXT_BACKGROUND_COLOR:
+                color = readColor();
+                
+                if (!inputs) {
+                    window.setTextBackgroundColor(color);
+                }
+                
+                break;
+            
+            case EVENT_SET_BLINK_CURSOR_FOREGROUND_COLOR:
+                color = readColor();
+                
+                if (!inputs) {
+                    window.setBlinkCursorForegroundColor(color);
+                }
+                
+                break;
+            
+            case EVENT_SET_BLINK_CURSOR_BACKGROUND_COLOR:
+                color = readColor();
+                
+                if (!inputs) {
+                    window.setBlinkCursorBackgroundColor(color);
+                }
+                
+                break;
+            
+            case EVENT_SET_FOREGROUND_SLOT:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                slot = readSlot();
+                
+                if (!inputs) {
+                    window.getModel().setForegroundSlot(charX, charY, slot);
+                }
+                
+                break;
+            
+            case EVENT_SET_BACKGROUND_SLOT:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                slot = readSlot();
+                
+                if (!inputs) {
+                    window.getModel().setBackgroundSlot(charX, charY, slot);
+                }
+                
+                break;
+            
+            case EVENT_SET_TEXT_FOREGROUND_SLOT:
+                slot = readSlot();
+                
+                if (!inputs) {
+                    window.setTextForegroundSlot(slot);
+                }
+                
+                break;
+            
+            case EVENT_SET_TEXT_BACKGROUND_SLOT:
+                slot = readSlot();
+                
+                if (!inputs) {
+                    window.setTextBackgroundSlot(slot);
+                }
+                
+                break;
+            
+            case EVENT_SET_PALETTE_COLOR:
+                slot = readSlot();
+                color = readColor();
+                
+                if (!inputs) {
+                    window.getPalette().setColor(slot, color);
+                }
+                
+                break;
+            
+            case EVENT_TOGGLE_BLINK_CURSOR:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                
+                if (!inputs) {
+                    window.toggleBlinkCursor(charX, charY);
+                }
+                
+                break;
+            
+            case EVENT_TURN_OFF_BLINK:
+                charX = readSignedVarInt();
+                charY = readSignedVarInt();
+                
+                if (!inputs) {
+                    window.turnOffBlink(charX, charY);
+                }
+                
+                break;
+            
+            case EVENT_RESIZE:
+                int width = readVarInt();
+                int height = readVarInt();
+                boolean reflow = in.readBoolean();
+                
+                if (width < 1 
+                        || height < 1 
+                        || (long) width * height > MAXIMUM_GRID_CELLS) {
+                    throw new IOException(
+                            "Invalid grid size: " 
+                                    + width 
+                                    + "x" 
+                                    + height 
+                                    + ".");
+                }
+                
+                if (!inputs) {
+                    window.resize(width, height, reflow);
+                }
+                
+                break;
+            
+            case EVENT_KEY:
+                KeyEvent keyEvent = readKeyEvent(window);
+                
+                if (inputs) {
+                    runOnFxThread(() -> window.dispatchKeyEvent(keyEvent));
+                }
+                
+                break;
+            
+            case EVENT_MOUSE:
+                replayMouseEvent(window, inputs);
+                break;
+            
+            default:
+                throw new IOException(
+                        "Unknown session event type: " + eventType + ".");
+        }
+    }
+    
+    private KeyEvent readKeyEvent(TextUIWindow window) throws IOException {
+        byte keyEventType = in.readByte();
+        int modifiers = in.readUnsignedByte();
+        int keyCodeOrdinal = readVarInt();
+        String character = readString();
+        String text = readString();
+        
+        EventType<KeyEvent> eventType;
+        
+        switch (keyEventType) {
+            case KEY_PRESSED:
+                eventType = KeyEvent.KEY_PRESSED;
+                break;
+            
+            case KEY_RELEASED:
+                eventType = KeyEvent.KEY_RELEASED;
+                break;
+            
+            case KEY_TYPED:
+                eventType = KeyEvent.KEY_TYPED;
+                break;
+            
+            default:
+                throw new IOException(
+                        "Unknown key event type: " + keyEventType + ".");
+        }
+        
+        KeyCode keyCode = keyCodeOrdinal < KEY_CODES.length ?
+                KEY_CODES[keyCodeOrdinal] :
+                KeyCode.UNDEFINED;
+        
+        return new KeyEvent(window,
+                            window,
+                            eventType,
+                            character,
+                            text,
+                            keyCode,
+                            (modifiers & MODIFIER_SHIFT) != 0,
+                            (modifiers & MODIFIER_CONTROL) != 0,
+                            (modifiers & MODIFIER_ALT) != 0,
+                            (modifiers & MODIFIER_META) != 0);
+    }
+    
+    private void replayMouseEvent(TextUIWindow window, boolean dispatch) 
+            throws IOException {
+        byte mouseEventType = in.readByte();
+        int modifiers = in.readUnsignedByte();
+        int buttonOrdinal = in.readUnsignedByte();
+        int clickCount = readVarInt();
+        int charX = readSignedVarInt();
+        int charY = readSignedVarInt();
+        double x = in.readFloat();
+        double y = in.readFloat();
+        
+        EventType<MouseEvent> eventType;
+        
+        switch (mouseEventType) {
+            case MOUSE_MOVED:
+                eventType = MouseEvent.MOUSE_MOVED;
+                break;
+            
+            case MOUSE_DRAGGED:
+                eventType = MouseEvent.MOUSE_DRAGGED;
+                break;
+            
+            case MOUSE_CLICKED:
+                eventType = MouseEvent.MOUSE_CLICKED;
+                break;
+            
+            case MOUSE_ENTERED:
+                eventType = MouseEvent.MOUSE_ENTERED;
+                break;
+            
+            case MOUSE_EXITED:
+                eventType = MouseEvent.MOUSE_EXITED;
+                break;
+            
+            case MOUSE_PRESSED:
+                eventType = MouseEvent.MOUSE_PRESSED;
+                break;
+            
+            case MOUSE_RELEASED:
+                eventType = MouseEvent.MOUSE_RELEASED;
+                break;
+            
+            default:
+                throw new IOException(
+                        "Unknown mouse event type: " + mouseEventType + ".");
+        }
+        
+        if (!dispatch) {
+            return;
+        }
+        
+        MouseButton button = buttonOrdinal < MOUSE_BUTTONS.length ?
+                MOUSE_BUTTONS[buttonOrdinal] :
+                MouseButton.NONE;
+        
+        MouseEvent event =
+                new MouseEvent(window,
+                               window,
+                               eventType,
+                               x,
+                               y,
+                               x,
+                               y,
+                               button,
+                               clickCount,
+                               (modifiers & MODIFIER_SHIFT) != 0,
+                               (modifiers & MODIFIER_CONTROL) != 0,
+                               (modifiers & MODIFIER_ALT) != 0,
+                               (modifiers & MODIFIER_META) != 0,
+                               (modifiers & MODIFIER_PRIMARY_BUTTON) != 0,
+                               (modifiers & MODIFIER_MIDDLE_BUTTON) != 0,
+                               (modifiers & MODIFIER_SECONDARY_BUTTON) != 0,
+                               true,
+                               false,
+                               false,
+                               null);
+        
+        runOnFxThread(() -> window.dispatchMouseEvent(event, charX, charY));
+    }
+    
+    /**
+     * Runs {@code dispatch} on the JavaFX application thread and waits for it
+     * to complete, so that the replay keeps the recorded timing.
+     */
+    private static void runOnFxThread(Runnable dispatch) throws IOException {
+        if (Platform.isFxApplicationThread()) {
+            dispatch.run();
+            return;
+        }
+        
+        CountDownLatch latch = new CountDownLatch(1);
+        
+        Platform.runLater(() -> {
+            try {
+                dispatch.run();
+            } finally {
+                latch.countDown();
+            }
+        });
+        
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                    "Interrupted while dispatching an input event.");
+        }
+    }
+    
+    private int readSlot() throws IOException {
+        int slot = readVarInt();
+        
+        if (slot < 0 || slot >= TextUIWindowPalette.SIZE) {
+            throw new IOException("Invalid palette slot: " + slot + ".");
+        }
+        
+        return slot;
+    }
+    
+    private Color readColor() throws IOException {
+        int argb = in.readInt();
+        
+        return Color.rgb((argb >>> 16) & 0xff,
+                         (argb >>> 8)  & 0xff,
+                          argb         & 0xff,
+                         ((argb >>> 24) & 0xff) / 255.0);
+    }
+    
+    private String readString() throws IOException {
+        int length = readVarInt();
+        
+        if (length < 0 || length > MAXIMUM_STRING_LENGTH) {
+            throw new IOException("Invalid string length: " + length + ".");
+        }
+        
+        char[] chars = new char[length];
+        
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) readVarInt();
+        }
+        
+        return new String(chars);
+    }
+    
+    private int readSignedVarInt() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private int readVarInt() throws IOException {
+        int value = 0;
+        
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7f) << shift;
+            
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        
+        throw new IOException("Malformed variable length integer.");
+    }
+    
+    private long readVarLong() throws IOException {
+        long value = 0L;
+        
+        for (int shift = 0; shift < 70; shift += 7) {
+            int b = in.read();
+            
+            if (b < 0) {
+                throw new EOFException("Truncated session event.");
+            }
+            
+            value |= (long)(b & 0x7f) << shift;
+            
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        
+        throw new IOException("Malformed variable length integer.");
+    }
+}
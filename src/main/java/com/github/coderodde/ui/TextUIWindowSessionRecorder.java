@@ -0,0 +1,479 @@
+package com.github.coderodde.ui;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Objects;
+import javafx.event.EventType;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseButton;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * This class implements a compact, timestamped event log of everything that
+ * happens to a {@link TextUIWindow}: model mutations (characters, strings,
+ * colors, palette slots, blink cursors, resizes) and dispatched keyboard/mouse
+ * events. The log may be replayed via {@link TextUIWindowSessionPlayer}.
+ * <p>
+ * Each event is encoded as a single opcode byte, followed by the variable
+ * length time delta (in microseconds) since the previous event, followed by
+ * the event payload. Coordinates and deltas are written as unsigned/zig-zag
+ * variable length integers, so that a typical {@code setChar} costs only a
+ * handful of bytes.
+ * <p>
+ * Just like {@link java.io.PrintStream}, this recorder never throws
+ * {@link IOException}s from its recording methods. Instead, the first I/O
+ * error is remembered, recording stops, and the error may be queried via
+ * {@link #checkError()}.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowSessionRecorder implements Closeable, Flushable {
+    
+    static final int MAGIC = 0x54554952; // "TUIR"
+    
+    // Version 2 added the grapheme, slot and palette events, which version 1
+    // players do not know; the player reads only the logs of its own version:
+    static final byte FORMAT_VERSION = 2;
+    
+    static final byte EVENT_SET_CHAR                          = 1;
+    static final byte EVENT_PRINT_STRING                      = 2;
+    static final byte EVENT_SET_FOREGROUND_COLOR              = 3;
+    static final byte EVENT_SET_BACKGROUND_COLOR              = 4;
+    static final byte EVENT_SET_TEXT_FOREGROUND_COLOR         = 5;
+    static final byte EVENT_SET_TEXT_BACKGROUND_COLOR         = 6;
+    static final byte EVENT_SET_BLINK_CURSOR_FOREGROUND_COLOR = 7;
+    static final byte EVENT_SET_BLINK_CURSOR_BACKGROUND_COLOR = 8;
+    static final byte EVENT_TOGGLE_BLINK_CURSOR               = 9;
+    static final byte EVENT_TURN_OFF_BLINK                    = 10;
+    static final byte EVENT_KEY                               = 11;
+    static final byte EVENT_MOUSE                             = 12;
+    static final byte EVENT_RESIZE                            = 13;
+    static final byte EVENT_SET_GRAPHEME                      = 14;
+    static final byte EVENT_SET_FOREGROUND_SLOT               = 15;
+    static final byte EVENT_SET_BACKGROUND_SLOT               = 16;
+    static final byte EVENT_SET_TEXT_FOREGROUND_SLOT          = 17;
+    static final byte EVENT_SET_TEXT_BACKGROUND_SLOT          = 18;
+    static final byte EVENT_SET_PALETTE_COLOR                 = 19;
+    
+    static final byte KEY_PRESSED  = 0;
+    static final byte KEY_RELEASED = 1;
+    static final byte KEY_TYPED    = 2;
+    
+    static final byte MOUSE_MOVED    = 0;
+    static final byte MOUSE_DRAGGED  = 1;
+    static final byte MOUSE_CLICKED  = 2;
+    static final byte MOUSE_ENTERED  = 3;
+    static final byte MOUSE_EXITED   = 4;
+    static final byte MOUSE_PRESSED  = 5;
+    static final byte MOUSE_RELEASED = 6;
+    
+    static final int MODIFIER_SHIFT            = 1;
+    static final int MODIFIER_CONTROL          = 1 << 1;
+    static final int MODIFIER_ALT              = 1 << 2;
+    static final int MODIFIER_META             = 1 << 3;
+    static final int MODIFIER_PRIMARY_BUTTON   = 1 << 4;
+    static final int MODIFIER_MIDDLE_BUTTON    = 1 << 5;
+    static final int MODIFIER_SECONDARY_BUTTON = 1 << 6;
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final DataOutputStream out;
+    private long previousEventNanos;
+    private long eventCount;
+    private IOException error;
+    private boolean closed;
+    
+    public TextUIWindowSessionRecorder(OutputStream outputStream) {
+        Objects.requireNonNull(outputStream, "The output stream is null.");
+        
+        this.out = new DataOutputStream(
+                new BufferedOutputStream(outputStream, BUFFER_SIZE));
+        
+        this.previousEventNanos = System.nanoTime();
+        
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(FORMAT_VERSION);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    public synchronized long getEventCount() {
+        return eventCount;
+    }
+    
+    /**
+     * Returns the first I/O error this recorder has encountered, or
+     * {@code null} if there was none.
+     *
+     * @return the first I/O error or {@code null}.
+     */
+    public synchronized IOException checkError() {
+        return error;
+    }
+    
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            out.flush();
+        }
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        if (!closed) {
+            closed = true;
+            out.close();
+        }
+    }
+    
+    synchronized void recordSetChar(int charX, int charY, char ch) {
+        if (!beginEvent(EVENT_SET_CHAR)) {
+            return;
+        }
+        
+        try {
+            writeSignedVarInt(charX);
+            writeSignedVarInt(charY);
+            writeVarInt(ch);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordSetGrapheme(int charX, 
+                                        int charY, 
+                                        String grapheme) {
+        if (!beginEvent(EVENT_SET_GRAPHEME)) {
+            return;
+        }
+        
+        try {
+            writeSignedVarInt(charX);
+            writeSignedVarInt(charY);
+            writeString(grapheme);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordPrintString(int charX, int charY, String text) {
+        if (!beginEvent(EVENT_PRINT_STRING)) {
+            return;
+        }
+        
+        try {
+            writeSignedVarInt(charX);
+            writeSignedVarInt(charY);
+            writeString(text);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordResize(int width, int height, boolean reflow) {
+        if (!beginEvent(EVENT_RESIZE)) {
+            return;
+        }
+        
+        try {
+            writeVarInt(width);
+            writeVarInt(height);
+            out.writeBoolean(reflow);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordColor(byte eventType, Color color) {
+        if (!beginEvent(eventType)) {
+            return;
+        }
+        
+        try {
+            out.writeInt(toArgb(color));
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordCell(byte eventType, int charX, int charY) {
+        if (!beginEvent(eventType)) {
+            return;
+        }
+        
+        try {
+            writeSignedVarInt(charX);
+            writeSignedVarInt(charY);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordCellColor(byte eventType,
+                                      int charX,
+                                      int charY,
+                                      Color color) {
+        if (!beginEvent(eventType)) {
+            return;
+        }
+        
+        try {
+            writeSignedVarInt(charX);
+            writeSignedVarInt(charY);
+            out.writeInt(toArgb(color));
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordSlot(byte eventType, int slot) {
+        if (!beginEvent(eventType)) {
+            return;
+        }
+        
+        try {
+            writeVarInt(slot);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordCellSlot(byte eventType,
+                                     int charX,
+                                     int charY,
+                                     int slot) {
+        if (!beginEvent(eventType)) {
+            return;
+        }
+        
+        try {
+            writeSignedVarInt(charX);
+            writeSignedVarInt(charY);
+            writeVarInt(slot);
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordPaletteColor(int slot, Color color) {
+        if (!beginEvent(EVENT_SET_PALETTE_COLOR)) {
+            return;
+        }
+        
+        try {
+            writeVarInt(slot);
+            out.writeInt(toArgb(color));
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordKeyEvent(KeyEvent event) {
+        byte keyEventType = toKeyEventType(event.getEventType());
+        
+        if (keyEventType < 0 || !beginEvent(EVENT_KEY)) {
+            return;
+        }
+        
+        int modifiers = 0;
+        
+        if (event.isShiftDown()) {
+            modifiers |= MODIFIER_SHIFT;
+        }
+        
+        if (event.isControlDown()) {
+            modifiers |= MODIFIER_CONTROL;
+        }
+        
+        if (event.isAltDown()) {
+            modifiers |= MODIFIER_ALT;
+        }
+        
+        if (event.isMetaDown()) {
+            modifiers |= MODIFIER_META;
+        }
+        
+        try {
+            out.writeByte(keyEventType);
+            out.writeByte(modifiers);
+            writeVarInt(event.getCode().ordinal());
+            writeString(event.getCharacter());
+            writeString(event.getText());
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    synchronized void recordMouseEvent(MouseEvent event,
+                                       int charX,
+                                       int charY) {
+        byte mouseEventType = toMouseEventType(event.getEventType());
+        
+        if (mouseEventType < 0 || !beginEvent(EVENT_MOUSE)) {
+            return;
+        }
+        
+        int modifiers = 0;
+        
+        if (event.isShiftDown()) {
+            modifiers |= MODIFIER_SHIFT;
+        }
+        
+        if (event.isControlDown()) {
+            modifiers |= MODIFIER_CONTROL;
+        }
+        
+        if (event.isAltDown()) {
+            modifiers |= MODIFIER_ALT;
+        }
+        
+        if (event.isMetaDown()) {
+            modifiers |= MODIFIER_META;
+        }
+        
+        if (event.isPrimaryButtonDown()) {
+            modifiers |= MODIFIER_PRIMARY_BUTTON;
+        }
+        
+        if (event.isMiddleButtonDown()) {
+            modifiers |= MODIFIER_MIDDLE_BUTTON;
+        }
+        
+        if (event.isSecondaryButtonDown()) {
+            modifiers |= MODIFIER_SECONDARY_BUTTON;
+        }
+        
+        MouseButton button = event.getButton();
+        
+        try {
+            out.writeByte(mouseEventType);
+            out.writeByte(modifiers);
+            out.writeByte(button == null ? 0 : button.ordinal());
+            writeVarInt(event.getClickCount());
+            writeSignedVarInt(charX);
+            writeSignedVarInt(charY);
+            out.writeFloat((float) event.getX());
+            out.writeFloat((float) event.getY());
+        } catch (IOException ex) {
+            error = ex;
+        }
+    }
+    
+    static int toArgb(Color color) {
+        int a = (int) Math.round(color.getOpacity() * 255.0);
+        int r = (int) Math.round(color.getRed()     * 255.0);
+        int g = (int) Math.round(color.getGreen()   * 255.0);
+        int b = (int) Math.round(color.getBlue()    * 255.0);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+    
+    static byte toKeyEventType(EventType<KeyEvent> eventType) {
+        if (eventType == KeyEvent.KEY_PRESSED) {
+            return KEY_PRESSED;
+        }
+        
+        if (eventType == KeyEvent.KEY_RELEASED) {
+            return KEY_RELEASED;
+        }
+        
+        if (eventType == KeyEvent.KEY_TYPED) {
+            return KEY_TYPED;
+        }
+        
+        return -1;
+    }
+    
+    static byte toMouseEventType(EventType<? extends MouseEvent> eventType) {
+        if (eventType == MouseEvent.MOUSE_MOVED) {
+            return MOUSE_MOVED;
+        }
+        
+        if (eventType == MouseEvent.MOUSE_DRAGGED) {
+            return MOUSE_DRAGGED;
+        }
+        
+        if (eventType == MouseEvent.MOUSE_CLICKED) {
+            return MOUSE_CLICKED;
+        }
+        
+        if (eventType == MouseEvent.MOUSE_ENTERED) {
+            return MOUSE_ENTERED;
+        }
+        
+        if (eventType == MouseEvent.MOUSE_EXITED) {
+            return MOUSE_EXITED;
+        }
+        
+        if (eventType == MouseEvent.MOUSE_PRESSED) {
+            return MOUSE_PRESSED;
+        }
+        
+        if (eventType == MouseEvent.MOUSE_RELEASED) {
+            return MOUSE_RELEASED;
+        }
+        
+        return -1;
+    }
+    
+    private boolean beginEvent(byte eventType) {
+        if (closed || error != null) {
+            return false;
+        }
+        
+        long now = System.nanoTime();
+        long deltaMicros = Math.max(0L, (now - previousEventNanos) / 1000L);
+        // Advance only by the whole microseconds written so that rounding
+        // errors do not accumulate over long sessions:
+        previousEventNanos += deltaMicros * 1000L;
+        
+        try {
+            out.writeByte(eventType);
+            writeVarLong(deltaMicros);
+        } catch (IOException ex) {
+            error = ex;
+            return false;
+        }
+        
+        eventCount++;
+        return true;
+    }
+    
+    private void writeString(String text) throws IOException {
+        writeVarInt(text.length());
+        
+        for (int i = 0; i < text.length(); i++) {
+            writeVarInt(text.charAt(i));
+        }
+    }
+    
+    private void writeSignedVarInt(int value) throws IOException {
+        writeVarInt((value << 1) ^ (value >> 31));
+    }
+    
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7f) != 0) {
+            out.writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        
+        out.writeByte(value);
+    }
+    
+    private void writeVarLong(long value) throws IOException {
+        while ((value & ~0x7fL) != 0L) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        
+        out.writeByte((int) value);
+    }
+}
@@ -0,0 +1,29 @@
+package com.github.coderodde.ui;
+
+/**
+ * This enumeration lists what a {@link TextUIWindowSessionPlayer} replays. A
+ * session log holds both the input events and the model mutations the 
+ * listeners made in response to them, so replaying both would apply every 
+ * effect twice.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public enum TextUIWindowSessionReplayMode {
+    
+    /**
+     * Applies the recorded model mutations and skips the input events. The 
+     * window ends up exactly as recorded, whatever listeners it has.
+     */
+    MUTATIONS,
+    
+    /**
+     * Dispatches the recorded input events to the listeners of the window and
+     * skips the model mutations, so that the listeners produce them anew. 
+     * Useful for reproducing a bug in the listeners themselves. The events
+     * are dispatched on the JavaFX application thread, so the JavaFX toolkit
+     * must be running.
+     */
+    INPUTS;
+}
@@ -0,0 +1,90 @@
+package com.github.coderodde.ui;
+
+/**
+ * This class implements a sparkline drawn with braille characters. Each cell
+ * holds 2 x 4 dots, so a sparkline of {@code columns} cells shows the newest
+ * {@code 2 * columns} buckets of its buffer at a vertical resolution of
+ * {@code 4 * rows} dots, the newest bucket at the right edge.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public final class TextUIWindowSparkline extends TextUIWindowChart {
+    
+    private static final int BRAILLE_BLANK = 0x2800;
+    private static final int DOTS_PER_ROW = 4;
+    
+    // The braille dot bits of the left and the right dot column, from the
+    // top dot to the bottom one:
+    private static final int[] LEFT_DOTS = { 0x01, 0x02, 0x04, 0x40 };
+    private static final int[] RIGHT_DOTS = { 0x08, 0x10, 0x20, 0x80 };
+    
+    private boolean filled;
+    
+    public TextUIWindowSparkline(TextUIWindow window,
+                                 int charX,
+                                 int charY,
+                                 int columns,
+                                 int rows,
+                                 TextUIWindowSampleBuffer buffer) {
+        super(window, charX, charY, columns, rows, buffer);
+    }
+    
+    public boolean isFilled() {
+        return filled;
+    }
+    
+    /**
+     * Selects whether the area under the line is filled with dots.
+     *
+     * @param filled whether to fill the area under the line.
+     */
+    public void setFilled(boolean filled) {
+        this.filled = filled;
+        invalidate();
+    }
+    
+    @Override
+    int cellAt(int x, int y, double minimum, double maximum) {
+        int firstBucket = buffer.size() - 2 * columns;
+        int bottomDot = (rows - 1 - y) * DOTS_PER_ROW;
+        int bits = dotsOf(firstBucket + 2 * x, bottomDot, minimum, maximum,
+                          LEFT_DOTS)
+                 | dotsOf(firstBucket + 2 * x + 1, bottomDot, minimum, maximum,
+                          RIGHT_DOTS);
+        
+        return bits == 0 ? ' ' : BRAILLE_BLANK | bits;
+    }
+    
+    /**
+     * Returns the dot bits of a bucket within the cell whose lowest dot row
+     * is {@code bottomDot}, counted from the bottom of the sparkline.
+     */
+    private int dotsOf(int bucket,
+                       int bottomDot,
+                       double minimum,
+                       double maximum,
+                       int[] dots) {
+        if (bucket < 0) {
+            return 0;
+        }
+        
+        int level = levelOf(buffer.get(bucket),
+                            minimum,
+                            maximum,
+                            rows * DOTS_PER_ROW - 1);
+        
+        int bits = 0;
+        
+        for (int dot = 0; dot < DOTS_PER_ROW; dot++) {
+            int dotLevel = bottomDot + dot;
+            
+            if (dotLevel == level || (filled && dotLevel < level)) {
+                bits |= dots[DOTS_PER_ROW - 1 - dot];
+            }
+        }
+        
+        return bits;
+    }
+}
@@ -0,0 +1,839 @@
+package com.github.coderodde.ui;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.paint.Color;
+
+/**
+ * This class implements a virtualized table shown in a rectangle of cells of
+ * a {@link TextUIWindow}. The rows are pulled from a
+ * {@link TextUIWindowTableDataProvider} only as they come into view, so the
+ * table handles millions of rows in the memory of the visible ones:
+ * <ul>
+ *   <li>The formatted cell strings are kept in a least recently used cache of
+ *       {@link #getCacheCapacity()} entries.</li>
+ *   <li>The width of a column grows to fit the widest cell seen so far, up to
+ *       {@link #getMaximumColumnWidth()}, unless set explicitly.</li>
+ *   <li>Each screen row remembers what it shows; scrolling, selecting and
+ *       sorting rewrite only the rows whose text or style changed.</li>
+ *   <li>Sorting permutes the row indices and never copies the rows; a
+ *       provider paging its rows in may supply the permutation itself.</li>
+ * </ul>
+ * Clicking a row selects it, clicking the header sorts by the column. Add the
+ * table as a keyboard listener of the window to browse it with the arrow,
+ * page and home/end keys. The table must be used on a single thread, normally
+ * the JavaFX application thread.
+ *
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public class TextUIWindowTable implements TextUIWindowKeyboardListener {
+    
+    public static final int DEFAULT_CACHE_CAPACITY = 8192;
+    public static final int DEFAULT_MAXIMUM_COLUMN_WIDTH = 32;
+    
+    private static final char COLUMN_SEPARATOR = '│';
+    private static final char ELLIPSIS = '…';
+    private static final String ASCENDING_MARK = " ▲";
+    private static final String DESCENDING_MARK = " ▼";
+    
+    private static final int STYLE_NORMAL = 0;
+    private static final int STYLE_SELECTED = 1;
+    private static final int STYLE_HEADER = 2;
+    
+    private final TextUIWindow window;
+    private final TextUIWindowModel model;
+    private final TextUIWindowTableDataProvider provider;
+    private final int charX;
+    private final int charY;
+    private final int columns;
+    private final int rows;
+    private final TextUIWindowMouseRegion mouseRegion;
+    private int cacheCapacity = DEFAULT_CACHE_CAPACITY;
+    private int maximumColumnWidth = DEFAULT_MAXIMUM_COLUMN_WIDTH;
+    
+    // Access ordered, keyed by the model row in the high and the column in
+    // the low 32 bits:
+    private final Map<Long, String> cellCache =
+            new LinkedHashMap<Long, String>(16, 0.75f, true) {
+                
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > cacheCapacity;
+        }
+    };
+    
+    private int[] columnWidths = new int[0];
+    private boolean[] fixedColumnWidths = new boolean[0];
+    private boolean headerVisible = true;
+    private int firstRow;
+    private int selectedRow = -1;
+    private int sortColumn = -1;
+    private boolean sortAscending = true;
+    
+    // Maps the shown row indices to the provider row indices, or is null if
+    // the table is not sorted:
+    private int[] viewToModel;
+    
+    // What each screen row shows, so that unchanged rows are not rewritten:
+    private final String[] shownLines;
+    private final int[] shownStyles;
+    private final String blankLine;
+    private final StringBuilder lineBuilder = new StringBuilder();
+    
+    private Color foregroundColor = Color.WHITE;
+    private Color backgroundColor = Color.BLACK;
+    private Color selectedForegroundColor = Color.BLACK;
+    private Color selectedBackgroundColor = Color.LIGHTGRAY;
+    private Color headerForegroundColor = Color.BLACK;
+    private Color headerBackgroundColor = Color.GRAY;
+    
+    public TextUIWindowTable(TextUIWindow window,
+                             int charX,
+                             int charY,
+                             int columns,
+                             int rows,
+                             TextUIWindowTableDataProvider provider) {
+        this.window = Objects.requireNonNull(window, "The window is null.");
+        this.provider = Objects.requireNonNull(provider,
+                                               "The provider is null.");
+        this.model = window.getModel();
+        this.charX = charX;
+        this.charY = charY;
+        this.columns = columns;
+        this.rows = rows;
+        this.shownLines = new String[rows];
+        this.shownStyles = new int[rows];
+        this.blankLine = " ".repeat(columns);
+        this.mouseRegion =
+                window.addMouseRegion(charX,
+                                      charY,
+                                      columns,
+                                      rows,
+                                      new TextUIWindowMouseListener() {
+                                          
+            @Override
+            public void onMouseClick(MouseEvent event, int x, int y) {
+                onClick(x - TextUIWindowTable.this.charX,
+                        y - TextUIWindowTable.this.charY);
+            }
+        });
+    }
+    
+    public int getFirstRow() {
+        return firstRow;
+    }
+    
+    /**
+     * Scrolls the table so that the shown row {@code row} is the topmost one.
+     *
+     * @param row the new topmost row.
+     */
+    public void scrollTo(int row) {
+        firstRow = row;
+        render();
+    }
+    
+    public void scrollBy(int rows) {
+        scrollTo(firstRow + rows);
+    }
+    
+    /**
+     * Returns the selected row, as an index of the shown, possibly sorted,
+     * rows; use {@link #getModelRow(int)} for the provider row.
+     *
+     * @return the selected row, or -1 if no row is selected.
+     */
+    public int getSelectedRow() {
+        return selectedRow;
+    }
+    
+    /**
+     * Selects the shown row {@code row} and scrolls it into view.
+     *
+     * @param row the row to select, or -1 to clear the selection.
+     */
+    public void setSelectedRow(int row) {
+        int rowCount = provider.getRowCount();
+        selectedRow = Math.max(-1, Math.min(row, rowCount - 1));
+        
+        if (selectedRow >= 0) {
+            int bodyRows = getBodyRows();
+            
+            if (selectedRow < firstRow) {
+                firstRow = selectedRow;
+            } else if (selectedRow >= firstRow + bodyRows) {
+                firstRow = selectedRow - bodyRows + 1;
+            }
+        }
+        
+        render();
+    }
+    
+    /**
+     * Converts a shown row index to the row index of the provider.
+     *
+     * @param row the shown row index.
+     * @return the provider row index.
+     */
+    public int getModelRow(int row) {
+        int[] permutation = viewToModel;
+        return permutation == null ? row : permutation[row];
+    }
+    
+    /**
+     * Sorts the table by {@code column}. The order comes from
+     * {@link TextUIWindowTableDataProvider#sort(int, boolean)} if the provider
+     * implements it; otherwise all the values of the column are read once and
+     * sorted stably. The selection stays on the same provider row.
+     *
+     * @param column    the column to sort by.
+     * @param ascending whether to sort in ascending order.
+     */
+    public void sortBy(int column, boolean ascending) {
+        checkColumn(column);
+        
+        int rowCount = provider.getRowCount();
+        int selectedModelRow = selectedRow >= 0 && selectedRow < rowCount ?
+                getModelRow(selectedRow) :
+                -1;
+        
+        int[] order = provider.sort(column, ascending);
+        
+        if (order == null) {
+            order = sortRows(rowCount, column, ascending);
+        } else if (order.length != rowCount) {
+            throw new IllegalStateException(
+                    "Sorted row count is invalid ("
+                            + order.length
+                            + "). Must be "
+                            + rowCount
+                            + ".");
+        }
+        
+        viewToModel = order;
+        sortColumn = column;
+        sortAscending = ascending;
+        
+        if (selectedModelRow >= 0) {
+            for (int row = 0; row < rowCount; row++) {
+                if (order[row] == selectedModelRow) {
+                    selectedRow = row;
+                    break;
+                }
+            }
+        }
+        
+        render();
+    }
+    
+    public void clearSorting() {
+        int selectedModelRow = selectedRow >= 0 ? getModelRow(selectedRow) : -1;
+        
+        viewToModel = null;
+        sortColumn = -1;
+        selectedRow = selectedModelRow;
+        render();
+    }
+    
+    public int getSortColumn() {
+        return sortColumn;
+    }
+    
+    public boolean isSortAscending() {
+        return sortAscending;
+    }
+    
+    /**
+     * Drops all the cached cells and the automatic column widths, and sorts
+     * the rows anew if the table is sorted. Call after the data of the
+     * provider has changed.
+     */
+    public void refresh() {
+        cellCache.clear();
+        
+        for (int column = 0; column < columnWidths.length; column++) {
+            if (!fixedColumnWidths[column]) {
+                columnWidths[column] = 0;
+            }
+        }
+        
+        if (sortColumn >= 0 && sortColumn < provider.getColumnCount()) {
+            sortBy(sortColumn, sortAscending);
+        } else {
+            viewToModel = null;
+            sortColumn = -1;
+            render();
+        }
+    }
+    
+    /**
+     * Drops the cached cells of the provider rows
+     * {@code fromRow, ..., toRow - 1}, and shows their current values.
+     *
+     * @param fromRow the first changed provider row.
+     * @param toRow   the provider row past the last changed one.
+     */
+    public void refreshRows(int fromRow, int toRow) {
+        int columnCount = provider.getColumnCount();
+        
+        for (int row = fromRow; row < toRow; row++) {
+            for (int column = 0; column < columnCount; column++) {
+                cellCache.remove(cellKey(row, column));
+            }
+        }
+        
+        render();
+    }
+    
+    public boolean isHeaderVisible() {
+        return headerVisible;
+    }
+    
+    public void setHeaderVisible(boolean headerVisible) {
+        this.headerVisible = headerVisible;
+        render();
+    }
+    
+    /**
+     * Fixes the width of {@code column}; a width of 0 makes it automatic
+     * again.
+     *
+     * @param column the column.
+     * @param width  the width in cells, or 0.
+     */
+    public void setColumnWidth(int column, int width) {
+        checkColumn(column);
+        
+        if (width < 0) {
+            throw new IllegalArgumentException(
+                    "Column width is invalid (" + width + "). Must be at "
+                            + "least 0.");
+        }
+        
+        ensureColumnArrays(provider.getColumnCount());
+        columnWidths[column] = width;
+        fixedColumnWidths[column] = width > 0;
+        render();
+    }
+    
+    public int getMaximumColumnWidth() {
+        return maximumColumnWidth;
+    }
+    
+    public void setMaximumColumnWidth(int maximumColumnWidth) {
+        if (maximumColumnWidth < 1) {
+            throw new IllegalArgumentException(
+                    "Maximum column width is invalid ("
+                            + maximumColumnWidth
+                            + "). Must be at least 1.");
+        }
+        
+        this.maximumColumnWidth = maximumColumnWidth;
+        render();
+    }
+    
+    public int getCacheCapacity() {
+        return cacheCapacity;
+    }
+    
+    public void setCacheCapacity(int cacheCapacity) {
+        if (cacheCapacity < 0) {
+            throw new IllegalArgumentException(
+                    "Cache capacity is invalid ("
+                            + cacheCapacity
+                            + "). Must be at least 0.");
+        }
+        
+        this.cacheCapacity = cacheCapacity;
+        cellCache.clear();
+    }
+    
+    public int getCachedCellCount() {
+        return cellCache.size();
+    }
+    
+    public void setRowColors(Color foregroundColor, Color backgroundColor) {
+        this.foregroundColor =
+                Objects.requireNonNull(foregroundColor,
+                                       "The foreground color is null.");
+        this.backgroundColor =
+                Objects.requireNonNull(backgroundColor,
+                                       "The background color is null.");
+        repaintAll();
+    }
+    
+    public void setSelectedRowColors(Color foregroundColor,
+                                     Color backgroundColor) {
+        this.selectedForegroundColor =
+                Objects.requireNonNull(foregroundColor,
+                                       "The foreground color is null.");
+        this.selectedBackgroundColor =
+                Objects.requireNonNull(backgroundColor,
+                                       "The background color is null.");
+        repaintAll();
+    }
+    
+    public void setHeaderColors(Color foregroundColor, Color backgroundColor) {
+        this.headerForegroundColor =
+                Objects.requireNonNull(foregroundColor,
+                                       "The foreground color is null.");
+        this.headerBackgroundColor =
+                Objects.requireNonNull(backgroundColor,
+                                       "The background color is null.");
+        repaintAll();
+    }
+    
+    /**
+     * Writes the visible rows into the window model, skipping the screen rows
+     * that already show the right text in the right style, and requests a
+     * repaint of the window.
+     */
+    public void render() {
+        int rowCount = provider.getRowCount();
+        int headerRows = headerVisible ? 1 : 0;
+        int bodyRows = getBodyRows();
+        
+        if (viewToModel != null && viewToModel.length != rowCount) {
+            // The provider changed without a refresh; the order is stale:
+            viewToModel = null;
+            sortColumn = -1;
+        }
+        
+        firstRow = Math.max(0, Math.min(firstRow, rowCount - bodyRows));
+        selectedRow = Math.min(selectedRow, rowCount - 1);
+        updateColumnWidths(rowCount, bodyRows);
+        
+        Color savedForegroundColor = model.getTextForegroundColor();
+        Color savedBackgroundColor = model.getTextBackgroundColor();
+        int savedForegroundSlot = model.getTextForegroundSlot();
+        int savedBackgroundSlot = model.getTextBackgroundSlot();
+        int currentStyle = -1;
+        
+        for (int y = 0; y < rows; y++) {
+            int viewRow = firstRow + y - headerRows;
+            String line;
+            int style;
+            
+            if (y < headerRows) {
+                line = buildHeaderLine();
+                style = STYLE_HEADER;
+            } else if (viewRow < rowCount) {
+                line = buildRowLine(getModelRow(viewRow));
+                style = viewRow == selectedRow ?
+                        STYLE_SELECTED :
+                        STYLE_NORMAL;
+            } else {
+                line = blankLine;
+                style = STYLE_NORMAL;
+            }
+            
+            if (style == shownStyles[y] && line.equals(shownLines[y])) {
+                continue;
+            }
+            
+            if (style != currentStyle) {
+                applyStyle(style);
+                currentStyle = style;
+            }
+            
+            model.printString(charX, charY + y, line);
+            shownLines[y] = line;
+            shownStyles[y] = style;
+        }
+        
+        if (currentStyle >= 0) {
+            if (savedForegroundSlot >= 0) {
+                model.setTextForegroundSlot(savedForegroundSlot);
+            } else {
+                model.setTextForegroundColor(savedForegroundColor);
+            }
+            
+            if (savedBackgroundSlot >= 0) {
+                model.setTextBackgroundSlot(savedBackgroundSlot);
+            } else {
+                model.setTextBackgroundColor(savedBackgroundColor);
+            }
+            
+            window.requestRepaint();
+        }
+    }
+    
+    /**
+     * Unregisters the mouse region of this table. The cells written so far
+     * stay in the model.
+     */
+    public void dispose() {
+        window.removeMouseRegion(mouseRegion);
+    }
+    
+    @Override
+    public void onKeyPressed(KeyEvent event) {
+        int rowCount = provider.getRowCount();
+        
+        if (rowCount == 0) {
+            return;
+        }
+        
+        switch (event.getCode()) {
+            case UP:
+                setSelectedRow(Math.max(0, selectedRow - 1));
+                break;
+            
+            case DOWN:
+                setSelectedRow(selectedRow + 1);
+                break;
+            
+            case PAGE_UP:
+                setSelectedRow(Math.max(0, selectedRow - getBodyRows()));
+                break;
+            
+            case PAGE_DOWN:
+                setSelectedRow(Math.max(0, selectedRow) + getBodyRows());
+                break;
+            
+            case HOME:
+                setSelectedRow(0);
+                break;
+            
+            case END:
+                setSelectedRow(rowCount - 1);
+                break;
+            
+            default:
+                return;
+        }
+        
+        event.consume();
+    }
+    
+    private void onClick(int localX, int localY) {
+        if (headerVisible && localY == 0) {
+            int column = getColumnAt(localX);
+            
+            if (column >= 0) {
+                sortBy(column, column != sortColumn || !sortAscending);
+            }
+            
+            return;
+        }
+        
+        int row = firstRow + localY - (headerVisible ? 1 : 0);
+        
+        if (row < provider.getRowCount()) {
+            setSelectedRow(row);
+        }
+    }
+    
+    private int getColumnAt(int localX) {
+        int x = 0;
+        
+        for (int column = 0; column < columnWidths.length; column++) {
+            x += columnWidths[column];
+            
+            if (localX < x) {
+                return column;
+            }
+            
+            // Skip the separator:
+            x++;
+        }
+        
+        return -1;
+    }
+    
+    private int getBodyRows() {
+        return Math.max(1, rows - (headerVisible ? 1 : 0));
+    }
+    
+    private void repaintAll() {
+        // Forget what the screen rows show, so that render() rewrites them:
+        Arrays.fill(shownLines, null);
+        render();
+    }
+    
+    private void applyStyle(int style) {
+        switch (style) {
+            case STYLE_SELECTED:
+                model.setTextForegroundColor(selectedForegroundColor);
+                model.setTextBackgroundColor(selectedBackgroundColor);
+                break;
+            
+            case STYLE_HEADER:
+                model.setTextForegroundColor(headerForegroundColor);
+                model.setTextBackgroundColor(headerBackgroundColor);
+                break;
+            
+            default:
+                model.setTextForegroundColor(foregroundColor);
+                model.setTextBackgroundColor(backgroundColor);
+                break;
+        }
+    }
+    
+    private void ensureColumnArrays(int columnCount) {
+        if (columnWidths.length != columnCount) {
+            columnWidths = new int[columnCount];
+            fixedColumnWidths = new boolean[columnCount];
+        }
+    }
+    
+    /**
+     * Widens the automatic columns to fit the header and the visible cells.
+     */
+    private void updateColumnWidths(int rowCount, int bodyRows) {
+        int columnCount = provider.getColumnCount();
+        ensureColumnArrays(columnCount);
+        
+        for (int column = 0; column < columnCount; column++) {
+            if (fixedColumnWidths[column]) {
+                continue;
+            }
+            
+            int width = Math.max(1, columnWidths[column]);
+            
+            if (headerVisible) {
+                width = Math.max(width,
+                                 getTextColumns(provider.getColumnName(column))
+                                         + ASCENDING_MARK.length());
+            }
+            
+            int toRow = Math.min(rowCount, firstRow + bodyRows);
+            
+            for (int row = firstRow; row < toRow; row++) {
+                width = Math.max(
+                        width,
+                        getTextColumns(getCellText(getModelRow(row), column)));
+            }
+            
+            columnWidths[column] = Math.min(width, maximumColumnWidth);
+        }
+    }
+    
+    private String buildHeaderLine() {
+        lineBuilder.setLength(0);
+        
+        for (int column = 0; column < columnWidths.length; column++) {
+            if (column > 0) {
+                lineBuilder.append(COLUMN_SEPARATOR);
+            }
+            
+            String name = provider.getColumnName(column);
+            
+            if (column == sortColumn) {
+                name += sortAscending ? ASCENDING_MARK : DESCENDING_MARK;
+            }
+            
+            appendFitted(lineBuilder, name, columnWidths[column], true);
+        }
+        
+        return finishLine();
+    }
+    
+    private String buildRowLine(int modelRow) {
+        lineBuilder.setLength(0);
+        
+        for (int column = 0; column < columnWidths.length; column++) {
+            if (column > 0) {
+                lineBuilder.append(COLUMN_SEPARATOR);
+            }
+            
+            appendFitted(lineBuilder,
+                         getCellText(modelRow, column),
+                         columnWidths[column],
+                         true);
+        }
+        
+        return finishLine();
+    }
+    
+    /**
+     * Fits the line built so far to the width of the table.
+     */
+    private String finishLine() {
+        String line = lineBuilder.toString();
+        lineBuilder.setLength(0);
+        appendFitted(lineBuilder, line, columns, false);
+        return lineBuilder.toString();
+    }
+    
+    private String getCellText(int modelRow, int column) {
+        Long key = cellKey(modelRow, column);
+        String text = cellCache.get(key);
+        
+        if (text == null) {
+            Object value = provider.getValue(modelRow, column);
+            text = value == null ? "" : value.toString();
+            
+            if (cacheCapacity > 0) {
+                cellCache.put(key, text);
+            }
+        }
+        
+        return text;
+    }
+    
+    private void checkColumn(int column) {
+        int columnCount = provider.getColumnCount();
+        
+        if (column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException(
+                    "Column is invalid ("
+                            + column
+                            + "). Must be between 0 and "
+                            + (columnCount - 1)
+                            + ".");
+        }
+    }
+    
+    private static long cellKey(int modelRow, int column) {
+        return ((long) modelRow << 32) | column;
+    }
+    
+    private static int getTextColumns(String text) {
+        int textColumns = 0;
+        
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            textColumns += TextUIWindowGraphemes.getCodePointColumns(codePoint);
+            i += Character.charCount(codePoint);
+        }
+        
+        return textColumns;
+    }
+    
+    /**
+     * Appends {@code text} to {@code sb} cut or padded to exactly
+     * {@code width} columns. A cut text ends with an ellipsis if
+     * {@code ellipsis} is set. Control characters are shown as spaces.
+     */
+    private static void appendFitted(StringBuilder sb,
+                                     String text,
+                                     int width,
+                                     boolean ellipsis) {
+        int limit = ellipsis && getTextColumns(text) > width ?
+                width - 1 :
+                width;
+        
+        int textColumns = 0;
+        int i = 0;
+        
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            int codePointColumns =
+                    TextUIWindowGraphemes.getCodePointColumns(codePoint);
+            
+            if (textColumns + codePointColumns > limit) {
+                break;
+            }
+            
+            if (codePoint < ' ') {
+                sb.append(' ');
+            } else {
+                sb.appendCodePoint(codePoint);
+            }
+            
+            textColumns += codePointColumns;
+            i += Character.charCount(codePoint);
+        }
+        
+        if (i < text.length() && ellipsis && textColumns < width) {
+            sb.append(ELLIPSIS);
+            textColumns++;
+        }
+        
+        for (; textColumns < width; textColumns++) {
+            sb.append(' ');
+        }
+    }
+    
+    private int[] sortRows(int rowCount, int column, boolean ascending) {
+        Object[] keys = new Object[rowCount];
+        int[] order = new int[rowCount];
+        
+        for (int row = 0; row < rowCount; row++) {
+            keys[row] = provider.getValue(row, column);
+            order[row] = row;
+        }
+        
+        mergeSort(order, keys, ascending);
+        return order;
+    }
+    
+    /**
+     * Sorts the row indices {@code order} by {@code keys}. The sort is a
+     * stable bottom-up merge sort, so the rows of equal keys keep their
+     * order.
+     */
+    private static void mergeSort(int[] order, Object[] keys, boolean ascending) {
+        int length = order.length;
+        int[] source = order;
+        int[] target = new int[length];
+        
+        for (int run = 1; run < length; run *= 2) {
+            for (int from = 0; from < length; from += 2 * run) {
+                int middle = Math.min(from + run, length);
+                int to = Math.min(from + 2 * run, length);
+                int left = from;
+                int right = middle;
+                int index = from;
+                
+                while (left < middle && right < to) {
+                    int comparison = compareValues(keys[source[left]],
+                                                   keys[source[right]]);
+                    
+                    if (!ascending) {
+                        comparison = -comparison;
+                    }
+                    
+                    target[index++] = comparison <= 0 ?
+                            source[left++] :
+                            source[right++];
+                }
+                
+                while (left < middle) {
+                    target[index++] = source[left++];
+                }
+                
+                while (right < to) {
+                    target[index++] = source[right++];
+                }
+            }
+            
+            int[] swap = source;
+            source = target;
+            target = swap;
+        }
+        
+        if (source != order) {
+            System.arraycopy(source, 0, order, 0, length);
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static int compareValues(Object value1, Object value2) {
+        if (value1 == value2) {
+            return 0;
+        }
+        
+        if (value1 == null) {
+            return -1;
+        }
+        
+        if (value2 == null) {
+            return 1;
+        }
+        
+        if (value1 instanceof Comparable
+                && value1.getClass() == value2.getClass()) {
+            return ((Comparable<Object>) value1).compareTo(value2);
+        }
+        
+        return value1.toString().compareTo(value2.toString());
+    }
+}
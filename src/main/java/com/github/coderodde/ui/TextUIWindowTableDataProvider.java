@@ -0,0 +1,47 @@
+package com.github.coderodde.ui;
+
+/**
+ * This interface defines the source of the rows of a 
+ * {@link TextUIWindowTable}. The table asks only for the rows it shows, so the
+ * provider may page its rows in from a database or a file on demand. Such a
+ * provider should implement {@link #sort(int, boolean)} as well.
+ * 
+ * @author Rodion "rodde" Efremov
+ * @version 1.7 (Oct 18, 2026)
+ * @since 1.7 (Oct 18, 2026)
+ */
+public interface TextUIWindowTableDataProvider {
+    
+    int getRowCount();
+    
+    int getColumnCount();
+    
+    default String getColumnName(int column) {
+        return "";
+    }
+    
+    /**
+     * Returns the value of a cell. The table shows the {@code toString()} of
+     * the value, and sorts by it if it is {@link Comparable}.
+     * 
+     * @param row    the row index.
+     * @param column the column index.
+     * @return the cell value, or {@code null} for an empty cell.
+     */
+    Object getValue(int row, int column);
+    
+    /**
+     * Returns the row indices in the order of {@code column}, for example as
+     * sorted by a database index. The default implementation returns 
+     * {@code null}, upon which the table reads every value of the column and
+     * sorts them itself, which is fine for the rows kept in memory but not for
+     * the rows paged in on demand.
+     * 
+     * @param column    the column to sort by.
+     * @param ascending whether to sort in ascending order.
+     * @return the permutation of the row indices, or {@code null}.
+     */
+    default int[] sort(int column, boolean ascending) {
+        return null;
+    }
+}